@@ -24,14 +24,23 @@ package com.gmail.socraticphoenix.asmsig;
 import com.gmail.socraticphoenix.asmsig.builder.ClassSignatureBuilder;
 import com.gmail.socraticphoenix.asmsig.builder.MethodSignatureBuilder;
 import com.gmail.socraticphoenix.asmsig.builder.TypeSignatureBuilder;
+import com.gmail.socraticphoenix.asmsig.cache.SignatureCache;
+import com.gmail.socraticphoenix.asmsig.metrics.SignatureMetrics;
+import com.gmail.socraticphoenix.asmsig.metrics.SignatureOperation;
+import com.gmail.socraticphoenix.asmsig.parser.SignatureParser;
+import com.gmail.socraticphoenix.asmsig.parser.SignatureValidator;
 import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.LazyClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.LazyMethodSignature;
 import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
-import com.gmail.socraticphoenix.asmsig.visitor.ClassSignatureVisitor;
-import com.gmail.socraticphoenix.asmsig.visitor.MethodSignatureVisitor;
-import com.gmail.socraticphoenix.asmsig.visitor.TypeSignatureVisitor;
 import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
 import org.objectweb.asm.Type;
-import org.objectweb.asm.signature.SignatureReader;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
  * This class holds utility methods for parsing and writing signatures.
@@ -46,7 +55,14 @@ public class Signatures {
      * @return The first portion of the type.
      */
     public static String writeStart(Type type) {
-        return Signatures.isPrimitive(type) ? type.getDescriptor() : type.getSort() == Type.OBJECT ? "L" + type.getInternalName() : type.getDescriptor().replace(";", "");
+        if (Signatures.isPrimitive(type)) {
+            return type.getDescriptor();
+        } else if (type.getSort() == Type.OBJECT) {
+            return "L" + type.getInternalName();
+        }
+
+        String descriptor = type.getDescriptor();
+        return descriptor.endsWith(";") ? descriptor.substring(0, descriptor.length() - 1) : descriptor;
     }
 
     /**
@@ -60,6 +76,69 @@ public class Signatures {
         return Signatures.isPrimitive(type) ? "" : ";";
     }
 
+    /**
+     * Appends the first portion of a type, as it appears in a signature, to the given output. See
+     * {@link Signatures#writeStart(Type)}.
+     *
+     * @param type The type to write.
+     * @param out The output to append to.
+     * @throws IOException If the output throws an IOException.
+     */
+    public static void writeStart(Type type, Appendable out) throws IOException {
+        switch (type.getSort()) {
+            case Type.OBJECT:
+                out.append('L').append(type.getInternalName());
+                break;
+            case Type.ARRAY:
+                String descriptor = type.getDescriptor();
+                out.append(descriptor, 0, descriptor.endsWith(";") ? descriptor.length() - 1 : descriptor.length());
+                break;
+            case Type.METHOD:
+                out.append(type.getDescriptor());
+                break;
+            default:
+                out.append(Signatures.primitiveDescriptor(type));
+                break;
+        }
+    }
+
+    /**
+     * Appends the last portion of a type, as it appears in a signature, to the given output. See
+     * {@link Signatures#writeEnd(Type)}.
+     *
+     * @param type The type to write.
+     * @param out The output to append to.
+     * @throws IOException If the output throws an IOException.
+     */
+    public static void writeEnd(Type type, Appendable out) throws IOException {
+        if (!Signatures.isPrimitive(type)) {
+            out.append(';');
+        }
+    }
+
+    private static char primitiveDescriptor(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return 'Z';
+            case Type.CHAR:
+                return 'C';
+            case Type.BYTE:
+                return 'B';
+            case Type.SHORT:
+                return 'S';
+            case Type.INT:
+                return 'I';
+            case Type.FLOAT:
+                return 'F';
+            case Type.LONG:
+                return 'J';
+            case Type.DOUBLE:
+                return 'D';
+            default:
+                return 'V';
+        }
+    }
+
     /**
      * Checks if the given type is primitive.
      *
@@ -71,6 +150,27 @@ public class Signatures {
         return s != Type.ARRAY && s != Type.OBJECT && s != Type.METHOD;
     }
 
+    /**
+     * Wraps the given mapper so that it is applied at most once per distinct type, and the result is reused for every
+     * later occurrence of that type. This is intended for expensive mappers, and for signatures which mention the same
+     * types many times. The returned mapper is not thread safe, and should be created for a single {@code map} call, or
+     * for a single batch of calls which are made from the same thread.
+     *
+     * @param mapper The mapper.
+     * @return A memoizing mapper.
+     */
+    public static Function<Type, Type> memoizing(Function<Type, Type> mapper) {
+        Map<Type, Type> results = new HashMap<>();
+        return type -> {
+            Type result = results.get(type);
+            if (result == null) {
+                result = mapper.apply(type);
+                results.put(type, result);
+            }
+            return result;
+        };
+    }
+
     /**
      * Parses a {@link ClassSignature} object from the given class name and signature. This method only works if the
      * signature is nonnull. It is suggested to use the {@link ClassSignatureBuilder} to construct a class signature object,
@@ -81,15 +181,21 @@ public class Signatures {
      * @return The parsed class signature.
      */
     public static ClassSignature parseClass(String name, String signature) {
-        Type type = Type.getObjectType(name);
-        ClassSignatureVisitor visitor = new ClassSignatureVisitor();
-        SignatureReader reader = new SignatureReader(signature);
-        reader.accept(visitor);
-        visitor.visitEnd();
+        return Signatures.parse(SignatureOperation.PARSE_CLASS, signature, false, SymbolTable.shared().objectType(name), SignatureParser::parseClass);
+    }
 
-        ClassSignature sigObj = visitor.getSignature();
-        sigObj.setType(type);
-        return sigObj;
+    /**
+     * Parses a {@link ClassSignature} object from the given class name and signature. If strict, the signature is
+     * validated against the grammar of the JVM specification first (see {@link SignatureValidator}).
+     *
+     * @param name The name.
+     * @param signature The signature.
+     * @param strict True if the signature should be validated before it is parsed.
+     * @return The parsed class signature.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public static ClassSignature parseClass(String name, String signature, boolean strict) {
+        return Signatures.parse(SignatureOperation.PARSE_CLASS, signature, strict, SymbolTable.shared().objectType(name), SignatureParser::parseClass);
     }
 
     /**
@@ -101,12 +207,20 @@ public class Signatures {
      * @return The parsed method signature.
      */
     public static MethodSignature parseMethod(String signature) {
-        MethodSignatureVisitor visitor = new MethodSignatureVisitor();
-        SignatureReader reader = new SignatureReader(signature);
-        reader.accept(visitor);
-        visitor.visitEnd();
+        return Signatures.parse(SignatureOperation.PARSE_METHOD, signature, false, null, (parser, type) -> parser.parseMethod());
+    }
 
-        return visitor.getSignature();
+    /**
+     * Parses a {@link MethodSignature} object from the given signature. If strict, the signature is validated against
+     * the grammar of the JVM specification first (see {@link SignatureValidator}).
+     *
+     * @param signature The signature.
+     * @param strict True if the signature should be validated before it is parsed.
+     * @return The parsed method signature.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public static MethodSignature parseMethod(String signature, boolean strict) {
+        return Signatures.parse(SignatureOperation.PARSE_METHOD, signature, strict, null, (parser, type) -> parser.parseMethod());
     }
 
     /**
@@ -118,12 +232,59 @@ public class Signatures {
      * @return The parsed type.
      */
     public static TypeInformal parseType(String signature) {
-        TypeSignatureVisitor visitor = new TypeSignatureVisitor();
-        SignatureReader reader = new SignatureReader(signature);
-        reader.accept(visitor);
-        visitor.visitFinish();
+        return Signatures.parse(SignatureOperation.PARSE_TYPE, signature, false, null, (parser, type) -> parser.parseType());
+    }
 
-        return visitor.getSignature();
+    /**
+     * Parses a {@link TypeInformal} object from the given signature. If strict, the signature is validated against the
+     * grammar of the JVM specification first (see {@link SignatureValidator}).
+     *
+     * @param signature The signature.
+     * @param strict True if the signature should be validated before it is parsed.
+     * @return The parsed type.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public static TypeInformal parseType(String signature, boolean strict) {
+        return Signatures.parse(SignatureOperation.PARSE_TYPE, signature, strict, null, (parser, type) -> parser.parseType());
+    }
+
+    private static <T> T parse(SignatureOperation operation, String signature, boolean strict, Type type, BiFunction<SignatureParser, Type, T> parse) {
+        //The parse functions do not capture anything, so nothing is allocated for them while metrics are disabled
+        if (SignatureMetrics.isEnabled()) {
+            return SignatureMetrics.record(operation, measurement -> {
+                measurement.addLength(signature);
+                SignatureParser parser = new SignatureParser(signature, SymbolTable.shared(), strict);
+                T result = parse.apply(parser, type);
+                measurement.addNodes(parser.getNodeCount());
+                return result;
+            });
+        }
+        return parse.apply(new SignatureParser(signature, SymbolTable.shared(), strict), type);
+    }
+
+    /**
+     * Creates a {@link LazyClassSignature} from the given class name and signature, which only parses its superclass,
+     * interfaces and formal type parameters when they are first accessed.
+     *
+     * @param name The name.
+     * @param signature The signature.
+     * @return The lazy class signature.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public static LazyClassSignature lazyClass(String name, String signature) {
+        return new LazyClassSignature(name, signature);
+    }
+
+    /**
+     * Creates a {@link LazyMethodSignature} from the given signature, which only parses its parameters, return type,
+     * exceptions and formal type parameters when they are first accessed.
+     *
+     * @param signature The signature.
+     * @return The lazy method signature.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public static LazyMethodSignature lazyMethod(String signature) {
+        return new LazyMethodSignature(signature);
     }
 
     /**
@@ -133,6 +294,14 @@ public class Signatures {
         return new ClassSignatureBuilder();
     }
 
+    /**
+     * @param cache The cache the builder should parse signatures through (may be null).
+     * @return A new class signature builder which parses signatures through the given cache.
+     */
+    public static ClassSignatureBuilder classSignature(SignatureCache cache) {
+        return new ClassSignatureBuilder(cache);
+    }
+
     /**
      * @return A new method signature builder.
      */
@@ -140,6 +309,14 @@ public class Signatures {
         return new MethodSignatureBuilder();
     }
 
+    /**
+     * @param cache The cache the builder should parse signatures through (may be null).
+     * @return A new method signature builder which parses signatures through the given cache.
+     */
+    public static MethodSignatureBuilder methodSignature(SignatureCache cache) {
+        return new MethodSignatureBuilder(cache);
+    }
+
     /**
      * @return A new type signature builder.
      */
@@ -147,4 +324,12 @@ public class Signatures {
         return new TypeSignatureBuilder();
     }
 
+    /**
+     * @param cache The cache the builder should parse signatures through (may be null).
+     * @return A new type signature builder which parses signatures through the given cache.
+     */
+    public static TypeSignatureBuilder typeSignature(SignatureCache cache) {
+        return new TypeSignatureBuilder(cache);
+    }
+
 }
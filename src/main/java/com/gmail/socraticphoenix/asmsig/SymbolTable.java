@@ -0,0 +1,280 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig;
+
+import org.objectweb.asm.Type;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A thread safe table of canonical {@link Type} instances and interned names. Signatures reference the same handful of
+ * types and type variable names over and over again, so the parser, the builders and the visitors all go through a
+ * symbol table rather than creating a fresh {@link Type} or name for every occurrence. The table is pre-populated with
+ * the primitive types, {@code void}, {@code java/lang/Object} and other commonly used JDK types. Every other type and
+ * name is only weakly referenced by the table, so, like the frozen signature parts in the
+ * {@link com.gmail.socraticphoenix.asmsig.type.TypeInterner}, it is garbage collected once nothing else uses it.
+ */
+public class SymbolTable {
+    /**
+     * The canonical type of {@link Object}.
+     */
+    public static final Type OBJECT = Type.getObjectType("java/lang/Object");
+
+    /**
+     * The canonical type of {@link String}.
+     */
+    public static final Type STRING = Type.getObjectType("java/lang/String");
+
+    private static final String[] COMMON = {
+            "java/lang/Class", "java/lang/Enum", "java/lang/Record", "java/lang/Number", "java/lang/Integer",
+            "java/lang/Long", "java/lang/Boolean", "java/lang/Character", "java/lang/Byte", "java/lang/Short",
+            "java/lang/Float", "java/lang/Double", "java/lang/Void", "java/lang/CharSequence", "java/lang/Comparable",
+            "java/lang/Iterable", "java/lang/Runnable", "java/lang/Cloneable", "java/lang/Throwable",
+            "java/lang/Exception", "java/lang/RuntimeException", "java/lang/Error", "java/io/Serializable",
+            "java/io/IOException", "java/util/Collection", "java/util/List", "java/util/ArrayList", "java/util/Set",
+            "java/util/HashSet", "java/util/Map", "java/util/HashMap", "java/util/Map$Entry", "java/util/Iterator",
+            "java/util/Optional", "java/util/Comparator", "java/util/concurrent/Callable",
+            "java/util/concurrent/CompletableFuture", "java/util/function/Function",
+            "java/util/function/BiFunction", "java/util/function/Supplier", "java/util/function/Consumer",
+            "java/util/function/BiConsumer", "java/util/function/Predicate", "java/util/stream/Stream"
+    };
+
+    private static final SymbolTable SHARED = new SymbolTable();
+
+    private Map<String, Symbol<Type>> types;
+    private Map<String, Symbol<String>> names;
+    private ReferenceQueue<Object> collected;
+    private Type[] common;
+
+    /**
+     * Creates a new symbol table, pre-populated with commonly used types.
+     */
+    public SymbolTable() {
+        this.types = new ConcurrentHashMap<>();
+        this.names = new ConcurrentHashMap<>();
+        this.collected = new ReferenceQueue<>();
+        this.populate();
+    }
+
+    /**
+     * @return The symbol table shared by the whole library.
+     */
+    public static SymbolTable shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the canonical primitive or void type for the given descriptor character.
+     *
+     * @param descriptor The descriptor character.
+     * @return The primitive type, or null if the character is not a primitive or void descriptor.
+     */
+    public static Type primitive(char descriptor) {
+        switch (descriptor) {
+            case 'Z':
+                return Type.BOOLEAN_TYPE;
+            case 'C':
+                return Type.CHAR_TYPE;
+            case 'B':
+                return Type.BYTE_TYPE;
+            case 'S':
+                return Type.SHORT_TYPE;
+            case 'I':
+                return Type.INT_TYPE;
+            case 'F':
+                return Type.FLOAT_TYPE;
+            case 'J':
+                return Type.LONG_TYPE;
+            case 'D':
+                return Type.DOUBLE_TYPE;
+            case 'V':
+                return Type.VOID_TYPE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the canonical object or array type for the given internal name.
+     *
+     * @param internalName The internal name.
+     * @return The canonical type.
+     * @see Type#getObjectType(String)
+     */
+    public Type objectType(String internalName) {
+        Type type = SymbolTable.get(this.types, internalName);
+        if (type == null) {
+            String name = this.name(internalName);
+            type = this.intern(this.types, name, Type.getObjectType(name));
+        }
+        return type;
+    }
+
+    /**
+     * Gets the canonical type for the given field descriptor. Method descriptors are not canonicalized.
+     *
+     * @param descriptor The descriptor.
+     * @return The canonical type.
+     * @see Type#getType(String)
+     */
+    public Type type(String descriptor) {
+        char c = descriptor.charAt(0);
+        if (c == 'L') {
+            return this.objectType(descriptor.substring(1, descriptor.length() - 1));
+        } else if (c == '[') {
+            return this.objectType(descriptor);
+        } else if (descriptor.length() == 1) {
+            return SymbolTable.primitive(c);
+        }
+        return Type.getType(descriptor);
+    }
+
+    /**
+     * Gets the canonical instance of the given type. Primitive, void, object and array types are canonicalized; method
+     * types are returned unchanged.
+     *
+     * @param type The type.
+     * @return The canonical type.
+     */
+    public Type canonical(Type type) {
+        switch (type.getSort()) {
+            case Type.OBJECT:
+            case Type.ARRAY:
+                String internalName = type.getInternalName();
+                Type canonical = SymbolTable.get(this.types, internalName);
+                if (canonical == null) {
+                    canonical = this.intern(this.types, this.name(internalName), type);
+                }
+                return canonical;
+            case Type.METHOD:
+                return type;
+            default:
+                return SymbolTable.primitive(type.getDescriptor().charAt(0));
+        }
+    }
+
+    /**
+     * Wraps the given mapper so that every type it produces is canonicalized through this table. This is intended to be
+     * used with the {@code map} methods of the signature objects.
+     *
+     * @param mapper The mapper.
+     * @return A mapper which produces canonical types.
+     */
+    public Function<Type, Type> canonicalizing(Function<Type, Type> mapper) {
+        return type -> this.canonical(mapper.apply(type));
+    }
+
+    /**
+     * Interns the given name, such as an internal name or the name of a type variable.
+     *
+     * @param name The name.
+     * @return The canonical instance of the name.
+     */
+    public String name(String name) {
+        String canonical = SymbolTable.get(this.names, name);
+        if (canonical == null) {
+            //The key is a copy, so that the table does not keep the canonical name alive
+            canonical = this.intern(this.names, new String(name), name);
+        }
+        return canonical;
+    }
+
+    /**
+     * @return The number of types in this table, including the pre-populated types.
+     */
+    public int size() {
+        this.expunge();
+        return this.types.size();
+    }
+
+    /**
+     * Removes every type and name from this table, except for the pre-populated types.
+     */
+    public void clear() {
+        this.types.clear();
+        this.names.clear();
+        this.populate();
+    }
+
+    private void populate() {
+        //The pre-populated types are strongly referenced by the table, so they are never collected
+        this.common = new Type[COMMON.length + 2];
+        this.common[0] = this.canonical(OBJECT);
+        this.common[1] = this.canonical(STRING);
+        for (int i = 0; i < COMMON.length; i++) {
+            this.common[i + 2] = this.objectType(COMMON[i]);
+        }
+    }
+
+    private <T> T intern(Map<String, Symbol<T>> table, String key, T value) {
+        this.expunge();
+        Symbol<T> symbol = new Symbol<>(value, table, key, this.collected);
+        while (true) {
+            Symbol<T> previous = table.putIfAbsent(key, symbol);
+            if (previous == null) {
+                return value;
+            }
+
+            T canonical = previous.get();
+            if (canonical != null) {
+                return canonical;
+            } else if (table.replace(key, previous, symbol)) {
+                return value;
+            }
+        }
+    }
+
+    private void expunge() {
+        //Removes the entries whose types or names have been collected
+        Reference<?> reference;
+        while ((reference = this.collected.poll()) != null) {
+            ((Symbol<?>) reference).remove();
+        }
+    }
+
+    private static <T> T get(Map<String, Symbol<T>> table, String key) {
+        Symbol<T> symbol = table.get(key);
+        return symbol == null ? null : symbol.get();
+    }
+
+    private static class Symbol<T> extends WeakReference<T> {
+        private Map<String, Symbol<T>> table;
+        private String key;
+
+        public Symbol(T value, Map<String, Symbol<T>> table, String key, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.table = table;
+            this.key = key;
+        }
+
+        private void remove() {
+            this.table.remove(this.key, this);
+        }
+
+    }
+
+}
@@ -21,31 +21,45 @@
  */
 package com.gmail.socraticphoenix.asmsig.builder;
 
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.cache.DescriptorCache;
+import com.gmail.socraticphoenix.asmsig.cache.SignatureCache;
 import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
 import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
 import com.gmail.socraticphoenix.asmsig.Signatures;
 import com.gmail.socraticphoenix.asmsig.type.TypeFill;
-import org.objectweb.asm.Type;
 
 /**
  * A utility class to build a class signature. It attempts to parse a signature first, and if that fails it will build
  * a signature with no generic information from the class's name, the name of its superclass, and the names of its
  * interfaces. To successfully build a class signature, every method in this class must be called. The
  * {@link ClassSignatureBuilder#submitSignature(String, String)} method must be called first, followed by all the remaining
- * methods in any order.
+ * methods in any order. The superclass and interfaces of signatures built from names are frozen, canonical types (see
+ * {@link DescriptorCache}).
  */
 public class ClassSignatureBuilder {
     private ClassSignature signature;
+    private SignatureCache cache;
     private boolean listen;
 
     /**
      * Creates a new class signature builder.
      */
     public ClassSignatureBuilder() {
-        this.signature = new ClassSignature(new TypeParameterized(Type.getType(Object.class)), new TypeFill(Type.getType(Object.class)));
+        this.signature = new ClassSignature(new TypeParameterized(SymbolTable.OBJECT), new TypeFill(SymbolTable.OBJECT));
         this.listen = true;
     }
 
+    /**
+     * Creates a new class signature builder which parses signatures through the given cache.
+     *
+     * @param cache The cache to parse signatures through (may be null).
+     */
+    public ClassSignatureBuilder(SignatureCache cache) {
+        this();
+        this.cache = cache;
+    }
+
     /**
      * Submits a class name and signature for parsing by this signature builder. The signature may be null, and if it is,
      * the builder will use the information provided by other methods to construct the signature.
@@ -56,10 +70,10 @@ public class ClassSignatureBuilder {
      */
     public ClassSignatureBuilder submitSignature(String name, String signature) {
         if(signature != null) {
-            this.signature = Signatures.parseClass(name, signature);
+            this.signature = this.cache != null ? this.cache.parseClass(name, signature) : Signatures.parseClass(name, signature);
             this.listen = false;
         } else {
-            this.signature.setType(Type.getObjectType(name));
+            this.signature.setType(SymbolTable.shared().objectType(name));
         }
 
         return this;
@@ -74,7 +88,7 @@ public class ClassSignatureBuilder {
      */
     public ClassSignatureBuilder submitSuper(String superclass) {
         if(this.listen && superclass != null) {
-            this.signature.setSuperclass(new TypeFill(Type.getObjectType(superclass)));
+            this.signature.setSuperclass(DescriptorCache.shared().objectType(superclass));
         }
         return this;
     }
@@ -89,7 +103,7 @@ public class ClassSignatureBuilder {
     public ClassSignatureBuilder submitInterfaces(String... interfaces) {
         if(this.listen && interfaces != null) {
             for(String i : interfaces) {
-                this.signature.addInterface(new TypeFill(Type.getObjectType(i)));
+                this.signature.addInterface(DescriptorCache.shared().objectType(i));
             }
         }
 
@@ -21,6 +21,8 @@
  */
 package com.gmail.socraticphoenix.asmsig.builder;
 
+import com.gmail.socraticphoenix.asmsig.cache.DescriptorCache;
+import com.gmail.socraticphoenix.asmsig.cache.SignatureCache;
 import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
 import com.gmail.socraticphoenix.asmsig.Signatures;
 import com.gmail.socraticphoenix.asmsig.type.TypeFill;
@@ -30,20 +32,32 @@ import org.objectweb.asm.Type;
  * A utility class to build a method signature. It attempts to parse a signature first, and if that fails it will build
  * a signature with no generic information from the method's descriptor. To successfully build a method signature, every
  * method in this class must be called. The {@link MethodSignatureBuilder#submitDesc(String)} must be called, followed by
- * all the remaining methods in any order.
+ * all the remaining methods in any order. Signatures built from descriptors share frozen, canonical parameter lists and
+ * types with each other (see {@link DescriptorCache}); the signature itself may still be modified.
  */
 public class MethodSignatureBuilder {
     private MethodSignature signature;
+    private SignatureCache cache;
     private boolean listen;
 
     /**
      * Creates a new method signature builder.
      */
     public MethodSignatureBuilder() {
-        this.signature = new MethodSignature(new TypeFill(Type.getType(void.class)));
+        this.signature = new MethodSignature(new TypeFill(Type.VOID_TYPE));
         this.listen = true;
     }
 
+    /**
+     * Creates a new method signature builder which parses signatures through the given cache.
+     *
+     * @param cache The cache to parse signatures through (may be null).
+     */
+    public MethodSignatureBuilder(SignatureCache cache) {
+        this();
+        this.cache = cache;
+    }
+
     /**
      * Submits a method signature for parsing by this signature builder. The signature may be null, and if it is,
      * the builder will use the information provided by the other methods to construct the signature.
@@ -53,7 +67,7 @@ public class MethodSignatureBuilder {
      */
     public MethodSignatureBuilder submitSignature(String signature) {
         if (signature != null) {
-            this.signature = Signatures.parseMethod(signature);
+            this.signature = this.cache != null ? this.cache.parseMethod(signature) : Signatures.parseMethod(signature);
             this.listen = false;
         }
         return this;
@@ -68,12 +82,8 @@ public class MethodSignatureBuilder {
      */
     public MethodSignatureBuilder submitDesc(String desc) {
         if (this.listen && desc != null) {
-            Type type = Type.getMethodType(desc);
-            this.signature.setReturn(new TypeFill(type.getReturnType()));
-
-            for (Type param : type.getArgumentTypes()) {
-                this.signature.addParameter(new TypeFill(param));
-            }
+            MethodSignature descriptor = DescriptorCache.shared().method(desc);
+            this.signature = new MethodSignature(this.signature.getGenerics(), descriptor.getParameters(), descriptor.getReturn(), this.signature.getExceptions());
         }
 
         return this;
@@ -90,7 +100,7 @@ public class MethodSignatureBuilder {
     public MethodSignatureBuilder submitExceptions(String... exceptions) {
         if (this.listen && exceptions != null) {
             for (String exe : exceptions) {
-                this.signature.addException(new TypeFill(Type.getObjectType(exe)));
+                this.signature.addException(DescriptorCache.shared().objectType(exe));
             }
         }
 
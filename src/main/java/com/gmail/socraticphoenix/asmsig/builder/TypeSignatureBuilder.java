@@ -21,29 +21,43 @@
  */
 package com.gmail.socraticphoenix.asmsig.builder;
 
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.cache.DescriptorCache;
+import com.gmail.socraticphoenix.asmsig.cache.SignatureCache;
 import com.gmail.socraticphoenix.asmsig.Signatures;
 import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
 import com.gmail.socraticphoenix.asmsig.type.TypeFill;
-import org.objectweb.asm.Type;
 
 /**
  * A utility class to build a type signature. It attempts to parse a signature first, and if that fails it will build
  * a signature with no generic information from the type's descriptor or name. To successfully build a type signature,
  * the {@link TypeSignatureBuilder#submitSignature(String)} must be called, followed by either the
- * {@link TypeSignatureBuilder#submitDesc(String)} or {@link TypeSignatureBuilder#submitInternal(String)} method.
+ * {@link TypeSignatureBuilder#submitDesc(String)} or {@link TypeSignatureBuilder#submitInternal(String)} method. Types
+ * built from descriptors or names are frozen, canonical types (see {@link DescriptorCache}).
  */
 public class TypeSignatureBuilder {
     private TypeInformal type;
+    private SignatureCache cache;
     private boolean listen;
 
     /**
      * Creates a new type signature builder.
      */
     public TypeSignatureBuilder() {
-        this.type = new TypeFill(Type.getType(Object.class));
+        this.type = new TypeFill(SymbolTable.OBJECT);
         this.listen = true;
     }
 
+    /**
+     * Creates a new type signature builder which parses signatures through the given cache.
+     *
+     * @param cache The cache to parse signatures through (may be null).
+     */
+    public TypeSignatureBuilder(SignatureCache cache) {
+        this();
+        this.cache = cache;
+    }
+
     /**
      * Submits a type signature for parsing by this signature builder. The signature may be null, and if it is, the
      * builder will use the information provided by the other methods to construct the signature.
@@ -53,7 +67,7 @@ public class TypeSignatureBuilder {
      */
     public TypeSignatureBuilder submitSignature(String signature) {
         if(signature != null) {
-            this.type = Signatures.parseType(signature);
+            this.type = this.cache != null ? this.cache.parseType(signature) : Signatures.parseType(signature);
             this.listen = false;
         }
 
@@ -69,7 +83,7 @@ public class TypeSignatureBuilder {
      */
     public TypeSignatureBuilder submitDesc(String desc) {
         if(this.listen && desc != null) {
-            this.type = new TypeFill(Type.getType(desc));
+            this.type = DescriptorCache.shared().type(desc);
         }
 
         return this;
@@ -84,7 +98,7 @@ public class TypeSignatureBuilder {
      */
     public TypeSignatureBuilder submitInternal(String internalName) {
         if(this.listen && internalName != null) {
-            this.type = new TypeFill(Type.getObjectType(internalName));
+            this.type = DescriptorCache.shared().objectType(internalName);
         }
 
         return this;
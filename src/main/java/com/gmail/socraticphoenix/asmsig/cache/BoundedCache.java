@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.cache;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread safe cache which holds at most a maximum number of entries. Like the {@link SignatureCache}, entries are
+ * evicted in clock order, giving entries which have been read since they were last passed a second chance. The
+ * library's memoizing utilities and the {@link DescriptorCache} store their results in bounded caches, so that they
+ * cannot retain an unbounded number of frozen signature parts, which would otherwise be collected from the
+ * {@link com.gmail.socraticphoenix.asmsig.type.TypeInterner}.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public class BoundedCache<K, V> {
+    private Map<K, Entry<K, V>> entries;
+    private Queue<Entry<K, V>> clock;
+    private int maxSize;
+    private AtomicInteger size;
+
+    /**
+     * Creates a new, empty bounded cache.
+     *
+     * @param maxSize The maximum number of entries.
+     * @throws IllegalArgumentException If the maximum size is negative.
+     */
+    public BoundedCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Negative maximum size: " + maxSize);
+        }
+        this.entries = new ConcurrentHashMap<>();
+        this.clock = new ConcurrentLinkedQueue<>();
+        this.maxSize = maxSize;
+        this.size = new AtomicInteger();
+    }
+
+    /**
+     * Gets the value cached for the given key.
+     *
+     * @param key The key.
+     * @return The cached value, or null if there is none.
+     */
+    public V get(K key) {
+        Entry<K, V> entry = this.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        entry.referenced = true;
+        return entry.value;
+    }
+
+    /**
+     * Caches the given value for the given key, unless a value is already cached for it. Caching a value may evict
+     * other entries.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @return The value already cached for the key, or the given value if there was none.
+     */
+    public V putIfAbsent(K key, V value) {
+        Entry<K, V> entry = new Entry<>(key, value);
+        Entry<K, V> previous = this.entries.putIfAbsent(key, entry);
+        if (previous != null) {
+            previous.referenced = true;
+            return previous.value;
+        }
+
+        this.clock.offer(entry);
+        this.size.incrementAndGet();
+        this.evict();
+        return value;
+    }
+
+    /**
+     * @return The number of entries in this cache.
+     */
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * @return The maximum number of entries in this cache.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Removes every entry from this cache.
+     */
+    public void clear() {
+        this.entries.clear();
+        this.clock.clear();
+        this.size.set(0);
+    }
+
+    private void evict() {
+        while (this.size.get() > this.maxSize) {
+            Entry<K, V> entry = this.clock.poll();
+            if (entry == null) {
+                break;
+            }
+
+            if (entry.referenced) {
+                entry.referenced = false;
+                this.clock.offer(entry);
+            } else if (this.entries.remove(entry.key, entry)) {
+                this.size.decrementAndGet();
+            }
+        }
+    }
+
+    private static class Entry<K, V> {
+        private K key;
+        private V value;
+        private volatile boolean referenced;
+
+        public Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.cache;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import org.objectweb.asm.Type;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A thread safe cache of the signature objects built from descriptors and internal names, for members and classes
+ * which have no generic signature. Descriptors are scanned directly, without going through {@link Type#getMethodType(String)}
+ * and its argument arrays, and every type is represented by a frozen, canonical {@link TypeFill} (see
+ * {@link TypeFill#freeze()}), so all signatures built from descriptors share their nodes. The cache holds a bounded
+ * number of types and of method signatures (see {@link BoundedCache}); since frozen types are interned, types which
+ * have been evicted from the cache are still shared with any live signatures built before they were evicted.
+ */
+public class DescriptorCache {
+    private static final int DEFAULT_SIZE = 16384;
+    private static final DescriptorCache SHARED = new DescriptorCache(SymbolTable.shared());
+
+    private SymbolTable symbols;
+    private TypeFill[] primitives;
+    private BoundedCache<String, TypeFill> types;
+    private BoundedCache<String, MethodSignature> methods;
+
+    /**
+     * Creates a new descriptor cache, which resolves types through the given symbol table.
+     *
+     * @param symbols The symbol table to resolve types through.
+     */
+    public DescriptorCache(SymbolTable symbols) {
+        this(symbols, DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a new descriptor cache, which resolves types through the given symbol table, and holds at most the given
+     * number of types and of method signatures.
+     *
+     * @param symbols The symbol table to resolve types through.
+     * @param maxSize The maximum number of cached types, and of cached method signatures.
+     */
+    public DescriptorCache(SymbolTable symbols, int maxSize) {
+        this.symbols = symbols;
+        this.primitives = new TypeFill['Z' - 'A' + 1];
+        for (char c : "BCDFIJSVZ".toCharArray()) {
+            this.primitives[c - 'A'] = new TypeFill(SymbolTable.primitive(c)).freeze();
+        }
+        this.types = new BoundedCache<>(maxSize);
+        this.methods = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * @return The descriptor cache shared by the whole library, which uses the {@link SymbolTable#shared() shared}
+     * symbol table.
+     */
+    public static DescriptorCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the frozen, canonical type for the given internal name.
+     *
+     * @param internalName The internal name.
+     * @return The frozen type.
+     */
+    public TypeFill objectType(String internalName) {
+        TypeFill type = this.types.get(internalName);
+        if (type == null) {
+            type = new TypeFill(this.symbols.objectType(internalName)).freeze();
+            type = this.types.putIfAbsent(internalName, type);
+        }
+        return type;
+    }
+
+    /**
+     * Gets the frozen, canonical type for the given field descriptor.
+     *
+     * @param descriptor The field descriptor.
+     * @return The frozen type.
+     * @throws IllegalArgumentException If the descriptor is malformed.
+     */
+    public TypeFill type(String descriptor) {
+        char c = descriptor.isEmpty() ? 0 : descriptor.charAt(0);
+        if (c == 'L') {
+            if (descriptor.length() < 3 || descriptor.indexOf(';') != descriptor.length() - 1) {
+                throw DescriptorCache.error(descriptor);
+            }
+            return this.objectType(descriptor.substring(1, descriptor.length() - 1));
+        } else if (c == '[') {
+            //The internal name of an array type is its descriptor
+            if (this.end(descriptor, 0) != descriptor.length()) {
+                throw DescriptorCache.error(descriptor);
+            }
+            return this.objectType(descriptor);
+        } else if (descriptor.length() == 1 && c != 'V' && SymbolTable.primitive(c) != null) {
+            return this.primitives[c - 'A'];
+        }
+        throw DescriptorCache.error(descriptor);
+    }
+
+    /**
+     * Gets the frozen method signature for the given method descriptor. The signature has no formal type parameters and
+     * no exceptions, and its parameters and return type are frozen, canonical types. Signatures built from it, for
+     * example by {@link com.gmail.socraticphoenix.asmsig.builder.MethodSignatureBuilder}, share its parameter list.
+     *
+     * @param descriptor The method descriptor.
+     * @return The frozen method signature.
+     * @throws IllegalArgumentException If the descriptor is malformed.
+     */
+    public MethodSignature method(String descriptor) {
+        MethodSignature signature = this.methods.get(descriptor);
+        if (signature == null) {
+            signature = this.scanMethod(descriptor);
+            signature = this.methods.putIfAbsent(descriptor, signature);
+        }
+        return signature;
+    }
+
+    /**
+     * @return The number of types and method signatures in this cache.
+     */
+    public int size() {
+        return this.types.size() + this.methods.size();
+    }
+
+    /**
+     * Removes every type and method signature from this cache.
+     */
+    public void clear() {
+        this.types.clear();
+        this.methods.clear();
+    }
+
+    private MethodSignature scanMethod(String descriptor) {
+        if (descriptor.isEmpty() || descriptor.charAt(0) != '(') {
+            throw DescriptorCache.error(descriptor);
+        }
+
+        int count = 0;
+        int index = 1;
+        while (index < descriptor.length() && descriptor.charAt(index) != ')') {
+            index = this.end(descriptor, index);
+            count++;
+        }
+        if (index + 1 >= descriptor.length()) {
+            throw DescriptorCache.error(descriptor);
+        }
+        int end = descriptor.charAt(index + 1) == 'V' ? index + 2 : this.end(descriptor, index + 1);
+        if (end != descriptor.length()) {
+            throw DescriptorCache.error(descriptor);
+        }
+
+        TypeInformal[] paras = new TypeInformal[count];
+        index = 1;
+        for (int i = 0; i < count; i++) {
+            end = this.end(descriptor, index);
+            paras[i] = this.part(descriptor, index, end);
+            index = end;
+        }
+        TypeFill ret = this.part(descriptor, index + 1, descriptor.length());
+        List<TypeInformal> parameters = CompactList.wrap(paras);
+        return new MethodSignature(Collections.emptyList(), parameters, ret, Collections.emptyList()).freeze();
+    }
+
+    private TypeFill part(String descriptor, int start, int end) {
+        char c = descriptor.charAt(start);
+        if (c == 'L') {
+            return this.objectType(descriptor.substring(start + 1, end - 1));
+        } else if (c == '[') {
+            return this.objectType(descriptor.substring(start, end));
+        }
+        return this.primitives[c - 'A'];
+    }
+
+    private int end(String descriptor, int index) {
+        //Returns the index after the field descriptor starting at the given index
+        while (index < descriptor.length() && descriptor.charAt(index) == '[') {
+            index++;
+        }
+        if (index == descriptor.length()) {
+            throw DescriptorCache.error(descriptor);
+        }
+
+        char c = descriptor.charAt(index);
+        if (c == 'L') {
+            int end = descriptor.indexOf(';', index);
+            if (end <= index + 1) {
+                throw DescriptorCache.error(descriptor);
+            }
+            return end + 1;
+        } else if (c == 'V' || SymbolTable.primitive(c) == null) {
+            throw DescriptorCache.error(descriptor);
+        }
+        return index + 1;
+    }
+
+    private static IllegalArgumentException error(String descriptor) {
+        return new IllegalArgumentException("Malformed descriptor \"" + descriptor + "\"");
+    }
+
+}
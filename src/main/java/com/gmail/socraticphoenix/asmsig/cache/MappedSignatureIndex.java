@@ -0,0 +1,266 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.cache;
+
+import com.gmail.socraticphoenix.asmsig.io.BinarySignatureReader;
+import com.gmail.socraticphoenix.asmsig.io.BinarySignatureWriter;
+import com.gmail.socraticphoenix.asmsig.scan.IndexedClass;
+import com.gmail.socraticphoenix.asmsig.scan.SignatureIndex;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A read-only signature index backed by a buffer holding a persisted index, usually a memory-mapped file. Only the
+ * table of contents is read up front; each class is decoded the first time it is looked up.
+ * <p>
+ * The persisted form consists of a header (magic number, version, scanner mode and class count), a table of contents holding the
+ * name, offset and length of every class record, and the class records themselves. Each class record holds the keys of
+ * the class's members, followed by a self-contained {@link BinarySignatureWriter binary signature stream} of the class
+ * signature and the member signatures, so that every record can be decoded on its own.
+ */
+class MappedSignatureIndex extends SignatureIndex {
+    static final int MAGIC = 0x41534943;
+    static final int VERSION = 2;
+    //The smallest table of contents entry: an empty name, an offset and a length
+    private static final int MIN_ENTRY = 2 + 4 + 4;
+
+    private ByteBuffer buffer;
+    private Map<String, Integer> slots;
+    private int[] offsets;
+    private int[] lengths;
+
+    private MappedSignatureIndex(ByteBuffer buffer, Map<String, Integer> slots, int[] offsets, int[] lengths) {
+        this.buffer = buffer;
+        this.slots = slots;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    static MappedSignatureIndex open(ByteBuffer buffer, boolean signaturesOnly) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferInputStream(buffer.duplicate()));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a persisted signature index of version " + VERSION);
+        } else if (in.readBoolean() != signaturesOnly) {
+            throw new IOException("Persisted signature index was written by a scanner of another mode");
+        }
+
+        int count = in.readInt();
+        if (count < 0 || count > in.available() / MIN_ENTRY) {
+            throw new IOException("Persisted signature index is damaged: " + count + " classes");
+        }
+        Map<String, Integer> slots = new HashMap<>();
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            slots.put(in.readUTF(), i);
+            offsets[i] = in.readInt();
+            lengths[i] = in.readInt();
+        }
+
+        int base = buffer.limit() - in.available();
+        for (int i = 0; i < count; i++) {
+            offsets[i] += base;
+            if (offsets[i] < base || lengths[i] < 0 || offsets[i] + lengths[i] > buffer.limit()) {
+                throw new IOException("Persisted signature index is truncated");
+            }
+        }
+        return new MappedSignatureIndex(buffer, slots, offsets, lengths);
+    }
+
+    static void write(SignatureIndex index, boolean signaturesOnly, OutputStream out) throws IOException {
+        Map<String, byte[]> records = new TreeMap<>();
+        for (IndexedClass cls : index.getClasses()) {
+            records.put(cls.getName(), MappedSignatureIndex.record(cls));
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeBoolean(signaturesOnly);
+        data.writeInt(records.size());
+        int offset = 0;
+        for (Map.Entry<String, byte[]> entry : records.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeInt(offset);
+            data.writeInt(entry.getValue().length);
+            offset += entry.getValue().length;
+        }
+        for (byte[] record : records.values()) {
+            data.write(record);
+        }
+        data.flush();
+    }
+
+    @Override
+    public void add(IndexedClass cls) {
+        throw new UnsupportedOperationException("Persisted signature indices are read only");
+    }
+
+    @Override
+    public IndexedClass get(String owner) {
+        IndexedClass cls = super.get(owner);
+        if (cls == null) {
+            Integer slot = this.slots.get(owner);
+            if (slot == null) {
+                return null;
+            }
+            try {
+                super.add(this.read(owner, slot));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + owner + " from persisted signature index", e);
+            }
+            cls = super.get(owner);
+        }
+        return cls;
+    }
+
+    @Override
+    public Set<String> getOwners() {
+        return Collections.unmodifiableSet(this.slots.keySet());
+    }
+
+    @Override
+    public Collection<IndexedClass> getClasses() {
+        for (String owner : this.slots.keySet()) {
+            this.get(owner);
+        }
+        return super.getClasses();
+    }
+
+    @Override
+    public int size() {
+        return this.slots.size();
+    }
+
+    private IndexedClass read(String owner, int slot) throws IOException {
+        ByteBuffer record = this.buffer.duplicate();
+        record.limit(this.offsets[slot] + this.lengths[slot]).position(this.offsets[slot]);
+        InputStream in = new BufferInputStream(record);
+        DataInputStream data = new DataInputStream(in);
+
+        boolean generic = data.readBoolean();
+        List<String> fields = MappedSignatureIndex.readKeys(data);
+        List<String> methods = MappedSignatureIndex.readKeys(data);
+
+        //DataInputStream does not read ahead, so the signature stream starts right after the keys
+        BinarySignatureReader reader = new BinarySignatureReader(in);
+        ClassSignature signature = generic ? reader.readClass() : null;
+        Map<String, TypeInformal> fieldTypes = new HashMap<>();
+        for (String key : fields) {
+            fieldTypes.put(key, reader.readType());
+        }
+        Map<String, MethodSignature> methodSignatures = new HashMap<>();
+        for (String key : methods) {
+            methodSignatures.put(key, reader.readMethod());
+        }
+        return new IndexedClass(owner, signature, methodSignatures, fieldTypes);
+    }
+
+    private static byte[] record(IndexedClass cls) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeBoolean(cls.getSignature() != null);
+        MappedSignatureIndex.writeKeys(data, cls.getFields().keySet());
+        MappedSignatureIndex.writeKeys(data, cls.getMethods().keySet());
+        data.flush();
+
+        BinarySignatureWriter writer = new BinarySignatureWriter(bytes);
+        if (cls.getSignature() != null) {
+            writer.write(cls.getSignature());
+        }
+        for (String key : cls.getFields().keySet()) {
+            writer.write(cls.getFields().get(key));
+        }
+        for (String key : cls.getMethods().keySet()) {
+            writer.write(cls.getMethods().get(key));
+        }
+        writer.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeKeys(DataOutputStream data, Set<String> keys) throws IOException {
+        data.writeInt(keys.size());
+        for (String key : keys) {
+            data.writeUTF(key);
+        }
+    }
+
+    private static List<String> readKeys(DataInputStream data) throws IOException {
+        int count = data.readInt();
+        if (count < 0 || count > data.available() / 2) {
+            throw new IOException("Persisted signature index is damaged: " + count + " members");
+        }
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(data.readUTF());
+        }
+        return keys;
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private ByteBuffer buffer;
+
+        private BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!this.buffer.hasRemaining()) {
+                return length == 0 ? 0 : -1;
+            }
+            length = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.cache;
+
+import com.gmail.socraticphoenix.asmsig.scan.SignatureIndex;
+import com.gmail.socraticphoenix.asmsig.scan.SignatureScanner;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An on-disk cache of the signature indices of jars, keyed by the SHA-256 hash of each jar's content. The first time a
+ * jar is loaded, it is scanned with a {@link SignatureScanner} and its index is written to the cache directory. Every
+ * later load of a jar with the same content memory-maps the cached file instead, and only decodes the signatures of a
+ * class the first time the class is looked up, so loading an unchanged jar costs little more than hashing it.
+ * <p>
+ * Indices loaded from the cache are read only. Cache files are written atomically, so several processes may share a
+ * cache directory. Since a scanner which only indexes generic signatures (see {@link SignatureScanner#isSignaturesOnly()})
+ * produces a different index than one which indexes every class, the scanner mode is part of both the name and the
+ * header of a cache file, and a cache file of the other mode is never loaded.
+ */
+public class PersistentSignatureCache {
+    private Path directory;
+    private SignatureScanner scanner;
+
+    /**
+     * Creates a new persistent signature cache in the given directory, which scans jars with a default
+     * {@link SignatureScanner}.
+     *
+     * @param directory The cache directory.
+     */
+    public PersistentSignatureCache(Path directory) {
+        this(directory, new SignatureScanner());
+    }
+
+    /**
+     * Creates a new persistent signature cache in the given directory, which scans jars with the given scanner.
+     *
+     * @param directory The cache directory.
+     * @param scanner The scanner used to index jars which are not yet cached.
+     */
+    public PersistentSignatureCache(Path directory, SignatureScanner scanner) {
+        this.directory = directory;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Loads the signature index of the given jar, from the cache if a jar with the same content has been loaded before,
+     * or by scanning the jar otherwise.
+     *
+     * @param jar The jar.
+     * @return The read only signature index of the jar.
+     * @throws IOException If the jar or the cache could not be read, or the cache could not be written.
+     */
+    public SignatureIndex load(Path jar) throws IOException {
+        boolean signaturesOnly = this.scanner.isSignaturesOnly();
+        Path file = this.directory.resolve(PersistentSignatureCache.hash(jar) + (signaturesOnly ? ".generic.sigs" : ".sigs"));
+        if (Files.isRegularFile(file)) {
+            try {
+                return MappedSignatureIndex.open(PersistentSignatureCache.map(file), signaturesOnly);
+            } catch (IOException e) {
+                //The file was written by an incompatible version, or is damaged, so it is replaced below
+            }
+        }
+
+        SignatureIndex index = this.scanner.scan(jar);
+        Files.createDirectories(this.directory);
+        Path temp = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                MappedSignatureIndex.write(index, signaturesOnly, out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return MappedSignatureIndex.open(PersistentSignatureCache.map(file), signaturesOnly);
+    }
+
+    /**
+     * @return The cache directory.
+     */
+    public Path getDirectory() {
+        return this.directory;
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static String hash(Path jar) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[65536];
+        try (InputStream in = Files.newInputStream(jar)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+}
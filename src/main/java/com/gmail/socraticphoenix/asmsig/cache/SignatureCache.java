@@ -0,0 +1,257 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.cache;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
+import org.objectweb.asm.Type;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread safe cache of parsed signatures, keyed by signature string. The cache is bounded by the total estimated
+ * retained size of its entries (see {@link SignatureWeigher}), and evicts entries with a second chance (clock) policy
+ * once that bound is exceeded: entries which have been hit since they were last considered for eviction are kept for
+ * another round. The signatures handed out by this cache are frozen (see {@link MethodSignature#freeze()}) and shared
+ * between all callers, so they cannot be corrupted by callers. Callers who need to modify a cached signature should
+ * build a modified copy through the constructors of the signature objects; note that {@code map} shares unchanged
+ * parts, so it does not produce a mutable copy.
+ */
+public class SignatureCache {
+    private static final long ENTRY_WEIGHT = 64;
+
+    private Map<String, Entry> classes;
+    private Map<String, Entry> methods;
+    private Map<String, Entry> types;
+    private Queue<Entry> clock;
+
+    private long maxWeight;
+    private AtomicLong weight;
+    private ReadWriteLock lock;
+
+    private LongAdder hits;
+    private LongAdder misses;
+    private LongAdder evictions;
+
+    /**
+     * Creates a new signature cache with the given maximum weight.
+     *
+     * @param maxWeight The maximum total estimated retained size of the cached signatures, in bytes.
+     */
+    public SignatureCache(long maxWeight) {
+        this.classes = new ConcurrentHashMap<>();
+        this.methods = new ConcurrentHashMap<>();
+        this.types = new ConcurrentHashMap<>();
+        this.clock = new ConcurrentLinkedQueue<>();
+        this.maxWeight = maxWeight;
+        this.weight = new AtomicLong();
+        this.lock = new ReentrantReadWriteLock();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * Parses a frozen {@link ClassSignature} object from the given class name and signature, or returns the cached
+     * class signature if the signature has been parsed before. The class name is not part of the key, so classes with
+     * identical signatures share the same cache entry, and only differ in their type.
+     *
+     * @param name The name.
+     * @param signature The signature.
+     * @return The parsed class signature.
+     * @see Signatures#parseClass(String, String)
+     */
+    public ClassSignature parseClass(String name, String signature) {
+        ClassSignature cached = this.get(this.classes, signature, s -> Signatures.parseClass(name, s).freeze(), SignatureWeigher::weigh);
+        Type type = SymbolTable.shared().objectType(name);
+        if (cached.getName().equals(type)) {
+            return cached;
+        }
+
+        TypeParameterized parameterized = new TypeParameterized(type, cached.getGenerics());
+        return new ClassSignature(parameterized, cached.getSuperclass(), cached.getInterfaces()).freeze();
+    }
+
+    /**
+     * Parses a frozen {@link MethodSignature} object from the given signature, or returns the cached method signature
+     * if the signature has been parsed before.
+     *
+     * @param signature The signature.
+     * @return The parsed method signature.
+     * @see Signatures#parseMethod(String)
+     */
+    public MethodSignature parseMethod(String signature) {
+        return this.get(this.methods, signature, s -> Signatures.parseMethod(s).freeze(), SignatureWeigher::weigh);
+    }
+
+    /**
+     * Parses a frozen {@link TypeInformal} object from the given signature, or returns the cached type if the
+     * signature has been parsed before.
+     *
+     * @param signature The signature.
+     * @return The parsed type.
+     * @see Signatures#parseType(String)
+     */
+    public TypeInformal parseType(String signature) {
+        return this.get(this.types, signature, s -> Signatures.parseType(s).freeze(), SignatureWeigher::weigh);
+    }
+
+    /**
+     * Removes every entry from this cache. Signatures which are parsed while the cache is being cleared are only
+     * inserted once it has been cleared. The hit, miss and eviction counts are not reset.
+     */
+    public void clear() {
+        Lock clear = this.lock.writeLock();
+        clear.lock();
+        try {
+            this.classes.clear();
+            this.methods.clear();
+            this.types.clear();
+            this.clock.clear();
+            this.weight.set(0);
+        } finally {
+            clear.unlock();
+        }
+    }
+
+    /**
+     * @return The number of signatures in this cache.
+     */
+    public int size() {
+        return this.classes.size() + this.methods.size() + this.types.size();
+    }
+
+    /**
+     * @return The total estimated retained size of the signatures in this cache, in bytes.
+     */
+    public long getWeight() {
+        return this.weight.get();
+    }
+
+    /**
+     * @return The maximum total estimated retained size of the signatures in this cache, in bytes.
+     */
+    public long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    /**
+     * @return The number of lookups which found a cached signature.
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return The number of lookups which had to parse the signature.
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return The number of signatures which have been evicted from this cache.
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(Map<String, Entry> map, String signature, Function<String, T> parser, ToLongFunction<T> weigher) {
+        Entry entry = map.get(signature);
+        if (entry != null) {
+            this.hits.increment();
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return (T) entry.value;
+        }
+
+        this.misses.increment();
+        T value = parser.apply(signature);
+        entry = new Entry(map, signature, value, ENTRY_WEIGHT + SignatureWeigher.weigh(signature) + weigher.applyAsLong(value));
+        //Inserts may run concurrently, but not while the cache is cleared, which would lose their weight
+        Lock insert = this.lock.readLock();
+        insert.lock();
+        try {
+            Entry previous = map.putIfAbsent(signature, entry);
+            if (previous != null) {
+                return (T) previous.value;
+            }
+
+            this.clock.offer(entry);
+            this.weight.addAndGet(entry.weight);
+            this.evict();
+        } finally {
+            insert.unlock();
+        }
+        return value;
+    }
+
+    private void evict() {
+        while (this.weight.get() > this.maxWeight) {
+            Entry entry = this.clock.poll();
+            if (entry == null) {
+                break;
+            }
+
+            if (entry.referenced) {
+                entry.referenced = false;
+                this.clock.offer(entry);
+            } else if (entry.map.remove(entry.key, entry)) {
+                this.weight.addAndGet(-entry.weight);
+                this.evictions.increment();
+            }
+        }
+    }
+
+    private static class Entry {
+        private Map<String, Entry> map;
+        private String key;
+        private Object value;
+        private long weight;
+        private volatile boolean referenced;
+
+        public Entry(Map<String, Entry> map, String key, Object value, long weight) {
+            this.map = map;
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.cache;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+import org.objectweb.asm.Type;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class holds utility methods for estimating the retained size, in bytes, of signature objects. The estimates
+ * assume a 64 bit JVM with compressed object pointers, and are only intended to be used as cache weights; they are
+ * not exact.
+ */
+public class SignatureWeigher {
+    private static final int HEADER = 12;
+    private static final int REFERENCE = 4;
+
+    /**
+     * Estimates the retained size of the given class signature.
+     *
+     * @param signature The class signature.
+     * @return The estimated retained size, in bytes.
+     */
+    public static long weigh(ClassSignature signature) {
+        long size = object(3) + SignatureWeigher.weigh(signature.getType()) + SignatureWeigher.weigh(signature.getSuperclass());
+        return size + SignatureWeigher.weigh(signature.getInterfaces());
+    }
+
+    /**
+     * Estimates the retained size of the given method signature.
+     *
+     * @param signature The method signature.
+     * @return The estimated retained size, in bytes.
+     */
+    public static long weigh(MethodSignature signature) {
+        long size = object(4) + SignatureWeigher.weigh(signature.getReturn());
+        return size + SignatureWeigher.weigh(signature.getGenerics()) + SignatureWeigher.weigh(signature.getParameters()) + SignatureWeigher.weigh(signature.getExceptions());
+    }
+
+    /**
+     * Estimates the retained size of the given signature part, including all of its children.
+     *
+     * @param part The signature part.
+     * @return The estimated retained size, in bytes.
+     */
+    public static long weigh(TypeSignaturePart part) {
+        if (part == null) {
+            return 0;
+        }
+
+        switch (part.kind()) {
+            case FILL: {
+                TypeFill fill = (TypeFill) part;
+                return object(2) + SignatureWeigher.weigh(fill.getType()) + SignatureWeigher.weigh(fill.getFill());
+            }
+            case INNER: {
+                TypeInner inner = (TypeInner) part;
+                return object(3) + SignatureWeigher.weigh(inner.getType()) + SignatureWeigher.weigh(inner.getFill()) + SignatureWeigher.weigh(inner.getOuter());
+            }
+            case ARRAY:
+                return object(1) + SignatureWeigher.weigh(((TypeArray) part).getType());
+            case WILD: {
+                TypeWild wild = (TypeWild) part;
+                return object(2) + SignatureWeigher.weigh(wild.getUpper()) + SignatureWeigher.weigh(wild.getLower());
+            }
+            case VAR_REF:
+                return object(1) + SignatureWeigher.weigh(((TypeVarRef) part).getName());
+            case VAR: {
+                TypeVar var = (TypeVar) part;
+                return object(3) + SignatureWeigher.weigh(var.getName()) + SignatureWeigher.weigh(var.getClassBound()) + SignatureWeigher.weigh(var.getInterBound());
+            }
+            case PARAMETERIZED: {
+                TypeParameterized parameterized = (TypeParameterized) part;
+                return object(2) + SignatureWeigher.weigh(parameterized.getType()) + SignatureWeigher.weigh(parameterized.getParameters());
+            }
+            default:
+                return object(0);
+        }
+    }
+
+    /**
+     * Estimates the retained size of the given string.
+     *
+     * @param string The string.
+     * @return The estimated retained size, in bytes.
+     */
+    public static long weigh(String string) {
+        return string == null ? 0 : object(3) + array(string.length(), 2);
+    }
+
+    private static long weigh(Type type) {
+        //Primitive types are shared constants, and do not count towards the retained size
+        return type == null || Signatures.isPrimitive(type) ? 0 : object(4) + array(type.getDescriptor().length(), 2);
+    }
+
+    private static long weigh(List<? extends TypeSignaturePart> parts) {
+        long size;
+        if (parts == (Object) Collections.emptyList()) {
+            //The empty list is a shared constant, and does not count towards the retained size
+            return 0;
+        } else if (parts instanceof CompactList) {
+            size = object(1) + array(parts.size(), REFERENCE);
+        } else {
+            size = object(2) + (parts.isEmpty() ? 0 : array(Math.max(10, parts.size()), REFERENCE));
+        }
+
+        for (TypeSignaturePart part : parts) {
+            size += SignatureWeigher.weigh(part);
+        }
+        return size;
+    }
+
+    private static long object(int references) {
+        return align(HEADER + references * REFERENCE);
+    }
+
+    private static long array(int length, int width) {
+        return align(HEADER + 4 + (long) length * width);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+}
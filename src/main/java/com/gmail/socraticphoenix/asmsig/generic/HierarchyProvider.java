@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.generic;
+
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provides the class signatures which the generic type system walks to relate classes to their supertypes, such as
+ * the signatures of a {@link com.gmail.socraticphoenix.asmsig.scan.SignatureIndex} (through
+ * {@code index::getClassSignature}). Classes without a {@code Signature} attribute should still be provided, with
+ * their superclass and interfaces as non generic types, as they are built by
+ * {@link com.gmail.socraticphoenix.asmsig.builder.ClassSignatureBuilder}; otherwise the hierarchy ends at them.
+ */
+public interface HierarchyProvider {
+
+    /**
+     * Creates a hierarchy provider over the given class signatures.
+     *
+     * @param signatures The class signatures.
+     * @return The hierarchy provider.
+     */
+    static HierarchyProvider of(Collection<ClassSignature> signatures) {
+        Map<String, ClassSignature> classes = new HashMap<>();
+        for (ClassSignature signature : signatures) {
+            classes.put(signature.getName().getInternalName(), signature);
+        }
+        return classes::get;
+    }
+
+    /**
+     * Gets the signature of the class with the given internal name. Implementations must be safe for concurrent use.
+     *
+     * @param name The internal name of the class.
+     * @return The class signature, or null if the class is unknown.
+     */
+    ClassSignature getSignature(String name);
+
+}
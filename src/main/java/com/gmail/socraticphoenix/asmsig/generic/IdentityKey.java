@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.generic;
+
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+
+import java.util.List;
+
+/**
+ * A cache key which compares two objects and the elements of a scope list by identity. This is only meaningful for
+ * frozen signature parts, which are interned, so that structurally equal frozen signature parts are identical. The
+ * elements of the scope are copied, so that equal scopes share cache entries even when they are held in different
+ * lists, and so that a list which is later modified cannot corrupt the cache.
+ */
+class IdentityKey {
+    private Object a;
+    private Object b;
+    private Object[] scope;
+    private int hash;
+
+    IdentityKey(Object a, Object b, List<?> scope) {
+        this.a = a;
+        this.b = b;
+        this.scope = scope.toArray();
+        int hash = System.identityHashCode(a) * 31 + System.identityHashCode(b);
+        for (Object element : this.scope) {
+            hash = hash * 31 + System.identityHashCode(element);
+        }
+        this.hash = hash;
+    }
+
+    /**
+     * Checks if the given scope can be part of a cache key, which is the case if every type variable in it is frozen.
+     *
+     * @param scope The type variables in scope.
+     * @return True if every type variable in the scope is frozen, false otherwise.
+     */
+    static boolean isFrozen(List<? extends TypeSignaturePart> scope) {
+        for (int i = 0; i < scope.size(); i++) {
+            if (!scope.get(i).isFrozen()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof IdentityKey)) {
+            return false;
+        }
+        IdentityKey key = (IdentityKey) o;
+        if (this.a != key.a || this.b != key.b || this.scope.length != key.scope.length) {
+            return false;
+        }
+        for (int i = 0; i < this.scope.length; i++) {
+            if (this.scope[i] != key.scope[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+}
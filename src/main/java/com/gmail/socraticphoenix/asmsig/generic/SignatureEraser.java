@@ -0,0 +1,329 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.generic;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.cache.BoundedCache;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeKind;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+import org.objectweb.asm.Type;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Erases generic types and signatures to the JVM types and descriptors they are compiled to. Descriptors are written
+ * directly from the signature objects, without building erased signature objects first. A type variable is erased to
+ * the erasure of its leftmost bound: its class bound if one is written, even if it is {@code Object}, or its first
+ * interface bound if the class bound is absent (see {@link TypeVar#getClassBound()}). Type variables are looked up in the
+ * generics of the method first, and then in the generics of the class; type variables which cannot be found are
+ * erased to {@code Object}.
+ * <p>
+ * The erasures of frozen types and signatures, in frozen scopes, are cached by the identity of the type or signature
+ * and of the type variables in scope, which is safe because frozen signature parts are interned (see
+ * {@link com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart#freeze()}). The caches hold a bounded number of
+ * erasures. The eraser is safe for concurrent use.
+ */
+public class SignatureEraser {
+    private static final int MAX_DEPTH = 64;
+    private static final int DEFAULT_SIZE = 16384;
+    private static final TypeFill OBJECT = new TypeFill(SymbolTable.OBJECT).freeze();
+
+    private BoundedCache<IdentityKey, String> descriptors;
+    private BoundedCache<IdentityKey, Type> types;
+
+    /**
+     * Creates a new signature eraser with empty caches.
+     */
+    public SignatureEraser() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a new signature eraser with empty caches, which hold at most the given number of erased types and of
+     * method descriptors.
+     *
+     * @param maxSize The maximum number of cached erasures of each kind.
+     */
+    public SignatureEraser(int maxSize) {
+        this.descriptors = new BoundedCache<>(maxSize);
+        this.types = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * Erases the given type, with no type variables in scope.
+     *
+     * @param type The type.
+     * @return The erased type.
+     */
+    public Type erase(TypeInformal type) {
+        return this.erase(type, Collections.emptyList());
+    }
+
+    /**
+     * Erases the given type.
+     *
+     * @param type The type.
+     * @param generics The type variables in scope, method generics first.
+     * @return The erased type.
+     */
+    public Type erase(TypeInformal type, List<TypeVar> generics) {
+        if (type.kind() == TypeKind.FILL) {
+            //The type of a plain class type is already its erasure
+            return ((TypeFill) type).getType();
+        } else if (!type.isFrozen() || !IdentityKey.isFrozen(generics)) {
+            return this.eraseType(type, generics);
+        }
+
+        IdentityKey key = new IdentityKey(type, null, generics);
+        Type erased = this.types.get(key);
+        if (erased == null) {
+            erased = this.types.putIfAbsent(key, this.eraseType(type, generics));
+        }
+        return erased;
+    }
+
+    /**
+     * Erases the given type to a descriptor.
+     *
+     * @param type The type.
+     * @param generics The type variables in scope, method generics first.
+     * @return The descriptor of the erased type.
+     */
+    public String descriptor(TypeInformal type, List<TypeVar> generics) {
+        return this.erase(type, generics).getDescriptor();
+    }
+
+    /**
+     * Erases the given method signature, which is not declared by a generic class.
+     *
+     * @param signature The method signature.
+     * @return The erased method type.
+     */
+    public Type erase(MethodSignature signature) {
+        return this.erase(signature, Collections.emptyList());
+    }
+
+    /**
+     * Erases the given method signature.
+     *
+     * @param signature The method signature.
+     * @param owner The signature of the class which declares the method, or null.
+     * @return The erased method type.
+     */
+    public Type erase(MethodSignature signature, ClassSignature owner) {
+        return Type.getMethodType(this.descriptor(signature, owner));
+    }
+
+    /**
+     * Erases the given method signature.
+     *
+     * @param signature The method signature.
+     * @param generics The type variables in scope of the class which declares the method, including those of its
+     * enclosing classes, innermost first.
+     * @return The erased method type.
+     */
+    public Type erase(MethodSignature signature, List<TypeVar> generics) {
+        return Type.getMethodType(this.descriptor(signature, generics));
+    }
+
+    /**
+     * Erases the given method signature to a method descriptor, which is not declared by a generic class.
+     *
+     * @param signature The method signature.
+     * @return The method descriptor.
+     */
+    public String descriptor(MethodSignature signature) {
+        return this.descriptor(signature, Collections.emptyList());
+    }
+
+    /**
+     * Erases the given method signature to a method descriptor. The exceptions of the method are not part of the
+     * descriptor.
+     *
+     * @param signature The method signature.
+     * @param owner The signature of the class which declares the method, or null.
+     * @return The method descriptor.
+     */
+    public String descriptor(MethodSignature signature, ClassSignature owner) {
+        if (owner != null && !owner.isFrozen()) {
+            return this.writeMethod(signature, owner.getGenerics());
+        }
+        return this.descriptor(signature, owner == null ? Collections.emptyList() : owner.getGenerics());
+    }
+
+    /**
+     * Erases the given method signature to a method descriptor. The exceptions of the method are not part of the
+     * descriptor. Since a class signature does not list the type variables of its enclosing classes, this method
+     * should be used for the methods of inner classes which use those type variables.
+     *
+     * @param signature The method signature.
+     * @param generics The type variables in scope of the class which declares the method, including those of its
+     * enclosing classes, innermost first.
+     * @return The method descriptor.
+     */
+    public String descriptor(MethodSignature signature, List<TypeVar> generics) {
+        if (!signature.isFrozen() || !IdentityKey.isFrozen(generics)) {
+            return this.writeMethod(signature, generics);
+        }
+
+        IdentityKey key = new IdentityKey(signature, null, generics);
+        String descriptor = this.descriptors.get(key);
+        if (descriptor == null) {
+            descriptor = this.descriptors.putIfAbsent(key, this.writeMethod(signature, generics));
+        }
+        return descriptor;
+    }
+
+    /**
+     * Erases the superclass of the given class signature.
+     *
+     * @param signature The class signature.
+     * @return The erased superclass, or null if the class signature has no superclass.
+     */
+    public Type eraseSuperclass(ClassSignature signature) {
+        return signature.getSuperclass() == null ? null : this.erase(signature.getSuperclass(), signature.getGenerics());
+    }
+
+    /**
+     * Erases the interfaces of the given class signature.
+     *
+     * @param signature The class signature.
+     * @return The erased interfaces.
+     */
+    public Type[] eraseInterfaces(ClassSignature signature) {
+        Type[] interfaces = new Type[signature.getInterfaces().size()];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = this.erase(signature.getInterfaces().get(i), signature.getGenerics());
+        }
+        return interfaces;
+    }
+
+    /**
+     * Removes every cached erasure.
+     */
+    public void clear() {
+        this.descriptors.clear();
+        this.types.clear();
+    }
+
+    private Type eraseType(TypeInformal type, List<TypeVar> generics) {
+        TypeInformal erased = SignatureEraser.resolve(type, generics, Collections.emptyList());
+        if (erased.kind() == TypeKind.FILL) {
+            return ((TypeFill) erased).getType();
+        }
+
+        StringBuilder descriptor = new StringBuilder();
+        SignatureEraser.write(erased, generics, Collections.emptyList(), descriptor);
+        return descriptor.charAt(0) == 'L' ? SymbolTable.shared().objectType(descriptor.substring(1, descriptor.length() - 1)) : SymbolTable.shared().objectType(descriptor.toString());
+    }
+
+    private String writeMethod(MethodSignature signature, List<TypeVar> type) {
+        List<TypeVar> method = signature.getGenerics();
+        StringBuilder descriptor = new StringBuilder();
+        descriptor.append('(');
+        for (TypeInformal parameter : signature.getParameters()) {
+            SignatureEraser.write(parameter, method, type, descriptor);
+        }
+        descriptor.append(')');
+        SignatureEraser.write(signature.getReturn(), method, type, descriptor);
+        return descriptor.toString();
+    }
+
+    private static void write(TypeInformal type, List<TypeVar> method, List<TypeVar> owner, StringBuilder out) {
+        type = SignatureEraser.resolve(type, method, owner);
+        while (type.kind() == TypeKind.ARRAY) {
+            out.append('[');
+            type = SignatureEraser.resolve(((TypeArray) type).getType(), method, owner);
+        }
+
+        Type erased = ((TypeFill) type).getType();
+        if (Signatures.isPrimitive(erased) || erased.getSort() == Type.ARRAY) {
+            //Signatures built from descriptors may hold array types in class types
+            out.append(erased.getDescriptor());
+        } else {
+            out.append('L');
+            SignatureEraser.writeName((TypeFill) type, out);
+            out.append(';');
+        }
+    }
+
+    private static void writeName(TypeFill type, StringBuilder out) {
+        if (type.kind() == TypeKind.INNER) {
+            SignatureEraser.writeName(((TypeInner) type).getOuter(), out);
+            out.append('$');
+        }
+        out.append(type.getType().getInternalName());
+    }
+
+    private static TypeInformal resolve(TypeInformal type, List<TypeVar> method, List<TypeVar> owner) {
+        //Replaces type variables and wildcards with their leftmost bounds, until a class or array type is found
+        for (int depth = 0; depth < MAX_DEPTH; depth++) {
+            if (type == null) {
+                return OBJECT;
+            }
+
+            switch (type.kind()) {
+                case VAR_REF: {
+                    TypeVar var = SignatureEraser.find(((TypeVarRef) type).getName(), method, owner);
+                    type = var == null ? null : SignatureEraser.bound(var);
+                    break;
+                }
+                case WILD:
+                    type = ((TypeWild) type).getUpper();
+                    break;
+                default:
+                    return type;
+            }
+        }
+        throw new IllegalArgumentException("Cyclic type variable bounds");
+    }
+
+    private static TypeInformal bound(TypeVar var) {
+        TypeInformal classBound = var.getClassBound();
+        return classBound != null || var.getInterBound().isEmpty() ? classBound : var.getInterBound().get(0);
+    }
+
+    private static TypeVar find(String name, List<TypeVar> method, List<TypeVar> owner) {
+        for (TypeVar var : method) {
+            if (var.getName().equals(name)) {
+                return var;
+            }
+        }
+        for (TypeVar var : owner) {
+            if (var.getName().equals(name)) {
+                return var;
+            }
+        }
+        return null;
+    }
+
+}
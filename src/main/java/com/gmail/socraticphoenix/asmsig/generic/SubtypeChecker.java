@@ -0,0 +1,352 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.generic;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.cache.BoundedCache;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeKind;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks the subtype and assignability relations between generic types, following the rules of the Java language.
+ * Class types are related through a {@link SupertypeResolver}, so type arguments are checked for containment
+ * (including wildcards) against the supertype of the same class; arrays are covariant; primitive types are related by
+ * widening; and type variables are related through the bounds of the {@link TypeVar}s which declare them. The
+ * declaring type variables are passed as a scope, which should list the generics of a method before those of its
+ * class; a type variable which is not in the scope is only related to itself and to {@code Object}. Capture conversion
+ * and inference are not performed.
+ * <p>
+ * The results of checks between frozen types, in frozen scopes, are memoized in a concurrent cache which holds a
+ * bounded number of results. Since frozen types are interned (see
+ * {@link com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart#freeze()}), the cache is keyed by the identity of the
+ * types and of the type variables in the scope. The checker is safe for concurrent use.
+ */
+public class SubtypeChecker {
+    private static final TypeFill OBJECT = new TypeFill(SymbolTable.OBJECT).freeze();
+    private static final String[] PRIMITIVES = {"B", "S", "C", "I", "J", "F", "D"};
+    private static final String[][] BOXES = {
+            {"Z", "java/lang/Boolean"}, {"B", "java/lang/Byte"}, {"S", "java/lang/Short"}, {"C", "java/lang/Character"},
+            {"I", "java/lang/Integer"}, {"J", "java/lang/Long"}, {"F", "java/lang/Float"}, {"D", "java/lang/Double"}};
+
+    private static final int DEFAULT_SIZE = 16384;
+
+    private SupertypeResolver resolver;
+    private BoundedCache<IdentityKey, Boolean> subtypes;
+    private BoundedCache<IdentityKey, Boolean> assignables;
+
+    /**
+     * Creates a new subtype checker which relates classes through the given hierarchy provider.
+     *
+     * @param hierarchy The hierarchy provider.
+     */
+    public SubtypeChecker(HierarchyProvider hierarchy) {
+        this(new SupertypeResolver(hierarchy));
+    }
+
+    /**
+     * Creates a new subtype checker which relates classes through the given supertype resolver.
+     *
+     * @param resolver The supertype resolver.
+     */
+    public SubtypeChecker(SupertypeResolver resolver) {
+        this(resolver, DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a new subtype checker which relates classes through the given supertype resolver, and memoizes at most
+     * the given number of subtype results and of assignability results.
+     *
+     * @param resolver The supertype resolver.
+     * @param maxSize The maximum number of memoized results of each kind.
+     */
+    public SubtypeChecker(SupertypeResolver resolver, int maxSize) {
+        this.resolver = resolver;
+        this.subtypes = new BoundedCache<>(maxSize);
+        this.assignables = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * Checks if the first type is a subtype of the second type, with no type variables in scope.
+     *
+     * @param a The first type.
+     * @param b The second type.
+     * @return True if the first type is a subtype of the second type, false otherwise.
+     */
+    public boolean isSubtype(TypeInformal a, TypeInformal b) {
+        return this.isSubtype(a, b, Collections.emptyList());
+    }
+
+    /**
+     * Checks if the first type is a subtype of the second type. Every type is a subtype of itself.
+     *
+     * @param a The first type.
+     * @param b The second type.
+     * @param scope The type variables in scope, method generics first.
+     * @return True if the first type is a subtype of the second type, false otherwise.
+     */
+    public boolean isSubtype(TypeInformal a, TypeInformal b, List<TypeVar> scope) {
+        if (a == b) {
+            return true;
+        } else if (!a.isFrozen() || !b.isFrozen() || !IdentityKey.isFrozen(scope)) {
+            return this.subtype(a, b, scope);
+        }
+
+        IdentityKey key = new IdentityKey(a, b, scope);
+        Boolean result = this.subtypes.get(key);
+        if (result == null) {
+            result = this.subtypes.putIfAbsent(key, this.subtype(a, b, scope));
+        }
+        return result;
+    }
+
+    /**
+     * Checks if a value of the first type is assignable to a variable of the second type, with no type variables in
+     * scope.
+     *
+     * @param from The type of the value.
+     * @param to The type of the variable.
+     * @return True if the value is assignable to the variable, false otherwise.
+     */
+    public boolean isAssignable(TypeInformal from, TypeInformal to) {
+        return this.isAssignable(from, to, Collections.emptyList());
+    }
+
+    /**
+     * Checks if a value of the first type is assignable to a variable of the second type, through widening,
+     * boxing, unboxing or unchecked conversion.
+     *
+     * @param from The type of the value.
+     * @param to The type of the variable.
+     * @param scope The type variables in scope, method generics first.
+     * @return True if the value is assignable to the variable, false otherwise.
+     */
+    public boolean isAssignable(TypeInformal from, TypeInformal to, List<TypeVar> scope) {
+        if (from == to) {
+            return true;
+        } else if (!from.isFrozen() || !to.isFrozen() || !IdentityKey.isFrozen(scope)) {
+            return this.assignable(from, to, scope);
+        }
+
+        IdentityKey key = new IdentityKey(from, to, scope);
+        Boolean result = this.assignables.get(key);
+        if (result == null) {
+            result = this.assignables.putIfAbsent(key, this.assignable(from, to, scope));
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the first type argument is contained by the second type argument, for example {@code String} by
+     * {@code ? extends CharSequence}.
+     *
+     * @param a The first type argument.
+     * @param b The second type argument.
+     * @param scope The type variables in scope, method generics first.
+     * @return True if the first type argument is contained by the second type argument, false otherwise.
+     */
+    public boolean contains(TypeInformal a, TypeInformal b, List<TypeVar> scope) {
+        if (!b.isWild()) {
+            return a.equals(b);
+        }
+
+        TypeWild wild = (TypeWild) b;
+        if (wild.getUpper() != null) {
+            if (a.isWild()) {
+                TypeWild other = (TypeWild) a;
+                return other.getUpper() != null ? this.isSubtype(other.getUpper(), wild.getUpper(), scope) : SubtypeChecker.isObject(wild.getUpper());
+            }
+            return this.isSubtype(a, wild.getUpper(), scope);
+        } else if (wild.getLower() != null) {
+            if (a.isWild()) {
+                TypeWild other = (TypeWild) a;
+                return other.getLower() != null && this.isSubtype(wild.getLower(), other.getLower(), scope);
+            }
+            return this.isSubtype(wild.getLower(), a, scope);
+        }
+        return true;
+    }
+
+    /**
+     * Removes every memoized result, such as after the classes in the hierarchy have changed. The supertype resolver
+     * is not cleared.
+     */
+    public void clear() {
+        this.subtypes.clear();
+        this.assignables.clear();
+    }
+
+    private boolean subtype(TypeInformal a, TypeInformal b, List<TypeVar> scope) {
+        if (a.equals(b)) {
+            return true;
+        } else if (a.isPrimitive() || b.isPrimitive()) {
+            return a.isPrimitive() && b.isPrimitive() && SubtypeChecker.widens(SubtypeChecker.descriptor(a), SubtypeChecker.descriptor(b));
+        } else if (SubtypeChecker.isObject(b)) {
+            return true;
+        }
+
+        switch (a.kind()) {
+            case WILD: {
+                TypeWild wild = (TypeWild) a;
+                return this.isSubtype(wild.getUpper() == null ? OBJECT : wild.getUpper(), b, scope);
+            }
+            case VAR_REF: {
+                TypeVar var = SubtypeChecker.find((TypeVarRef) a, scope);
+                if (var != null) {
+                    if (var.getClassBound() != null && this.isSubtype(var.getClassBound(), b, scope)) {
+                        return true;
+                    }
+                    for (TypeInformal bound : var.getInterBound()) {
+                        if (this.isSubtype(bound, b, scope)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+            case ARRAY: {
+                TypeInformal element = ((TypeArray) a).getType();
+                if (b.isArray()) {
+                    TypeInformal other = ((TypeArray) b).getType();
+                    return element.isPrimitive() || other.isPrimitive() ? element.equals(other) : this.isSubtype(element, other, scope);
+                }
+                //Arrays are only subtypes of Object, Cloneable and Serializable
+                String name = b.kind() == TypeKind.FILL ? ((TypeFill) b).getType().getInternalName() : null;
+                return name != null && ((TypeFill) b).getFill().isEmpty() && (name.equals("java/lang/Cloneable") || name.equals("java/io/Serializable"));
+            }
+            case FILL:
+            case INNER:
+                return b.isFill() && this.classSubtype((TypeFill) a, (TypeFill) b, scope);
+            default:
+                return false;
+        }
+    }
+
+    private boolean classSubtype(TypeFill a, TypeFill target, List<TypeVar> scope) {
+        TypeFill supertype = this.resolver.asSuper(a, SupertypeResolver.name(target));
+        if (supertype == null) {
+            return false;
+        } else if (target.getFill().isEmpty()) {
+            //Every parameterization of a class is a subtype of the raw class
+            return true;
+        } else if (supertype.getFill().size() != target.getFill().size()) {
+            return false;
+        }
+
+        for (int i = 0; i < target.getFill().size(); i++) {
+            if (!this.contains(supertype.getFill().get(i), target.getFill().get(i), scope)) {
+                return false;
+            }
+        }
+        return !target.isInner() || !supertype.isInner() || this.subtype(((TypeInner) supertype).getOuter(), ((TypeInner) target).getOuter(), scope);
+    }
+
+    private boolean assignable(TypeInformal from, TypeInformal to, List<TypeVar> scope) {
+        if (this.isSubtype(from, to, scope)) {
+            return true;
+        }
+
+        boolean primitiveFrom = from.isPrimitive();
+        boolean primitiveTo = to.isPrimitive();
+        if (primitiveFrom && !primitiveTo) {
+            //Boxing, followed by widening reference conversion
+            String box = SubtypeChecker.box(SubtypeChecker.descriptor(from));
+            return box != null && this.isSubtype(new TypeFill(SymbolTable.shared().objectType(box)), to, scope);
+        } else if (!primitiveFrom && primitiveTo) {
+            //Unboxing, followed by widening primitive conversion
+            String primitive = from.isFill() ? SubtypeChecker.unbox(((TypeFill) from).getType().getInternalName()) : null;
+            return primitive != null && SubtypeChecker.widens(primitive, SubtypeChecker.descriptor(to));
+        } else if (from.isFill() && to.isFill()) {
+            //Unchecked conversion, from a raw type to any parameterization of one of its supertypes
+            TypeFill supertype = this.resolver.asSuper((TypeFill) from, SupertypeResolver.name((TypeFill) to));
+            return supertype != null && supertype.getFill().isEmpty();
+        }
+        return false;
+    }
+
+    private static TypeVar find(TypeVarRef ref, List<TypeVar> scope) {
+        for (TypeVar var : scope) {
+            if (var.getName().equals(ref.getName())) {
+                return var;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isObject(TypeInformal type) {
+        return type.kind() == TypeKind.FILL && ((TypeFill) type).getType().equals(SymbolTable.OBJECT);
+    }
+
+    private static String descriptor(TypeInformal type) {
+        return ((TypeFill) type).getType().getDescriptor();
+    }
+
+    private static boolean widens(String from, String to) {
+        if (from.equals(to)) {
+            return true;
+        } else if (from.equals("Z") || to.equals("Z") || from.equals("V") || to.equals("V") || to.equals("C")) {
+            return false;
+        } else if (from.equals("C")) {
+            //char only widens to int and wider
+            return to.equals("I") || to.equals("J") || to.equals("F") || to.equals("D");
+        }
+
+        int a = -1;
+        int b = -1;
+        for (int i = 0; i < PRIMITIVES.length; i++) {
+            if (PRIMITIVES[i].equals(from)) {
+                a = i;
+            }
+            if (PRIMITIVES[i].equals(to)) {
+                b = i;
+            }
+        }
+        return a >= 0 && b >= 0 && a <= b;
+    }
+
+    private static String box(String primitive) {
+        for (String[] box : BOXES) {
+            if (box[0].equals(primitive)) {
+                return box[1];
+            }
+        }
+        return null;
+    }
+
+    private static String unbox(String name) {
+        for (String[] box : BOXES) {
+            if (box[1].equals(name)) {
+                return box[0];
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,244 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.generic;
+
+import com.gmail.socraticphoenix.asmsig.cache.BoundedCache;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the generic supertypes of classes, such as the type arguments of {@code List} when viewed from
+ * {@code ArrayList<String>}. For every class, a table of all of its direct and indirect supertypes is computed once,
+ * with every supertype expressed in terms of the type parameters of the class itself (for example,
+ * {@code ArrayList<E>} maps {@code java/util/Collection} to {@code Collection<E>}), and cached. Queries about a
+ * parameterized type then only need a single {@link TypeSubstitution} of one table entry. The tables of superclasses
+ * and interfaces are reused when computing the table of a class, so every class in a hierarchy is only walked once
+ * while its table is cached; the tables of a bounded number of classes are cached.
+ * <p>
+ * The resolver is safe for concurrent use; tables which are computed concurrently by more than one thread are
+ * computed more than once, but only one of them is kept. Classes are looked up by internal name; a supertype which
+ * cannot be looked up is still part of the table, but its own supertypes are not. If a raw type is extended or
+ * implemented, its supertypes are erased, as they are in Java. Every type in the tables is frozen.
+ */
+public class SupertypeResolver {
+    private static final int DEFAULT_SIZE = 4096;
+
+    private HierarchyProvider classes;
+    private BoundedCache<String, Map<String, TypeFill>> tables;
+
+    /**
+     * Creates a new supertype resolver which looks up classes with the given hierarchy provider.
+     *
+     * @param classes The hierarchy provider.
+     */
+    public SupertypeResolver(HierarchyProvider classes) {
+        this(classes, DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a new supertype resolver which looks up classes with the given hierarchy provider, and caches the tables
+     * of at most the given number of classes.
+     *
+     * @param classes The hierarchy provider.
+     * @param maxSize The maximum number of cached tables.
+     */
+    public SupertypeResolver(HierarchyProvider classes, int maxSize) {
+        this.classes = classes;
+        this.tables = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * Creates a new supertype resolver over the given class signatures.
+     *
+     * @param signatures The class signatures.
+     */
+    public SupertypeResolver(Collection<ClassSignature> signatures) {
+        this(HierarchyProvider.of(signatures));
+    }
+
+    /**
+     * Computes the full internal name of the given class type. Unlike {@link TypeFill#getType()}, the name of an
+     * inner class type includes the names of its outer class types.
+     *
+     * @param type The class type.
+     * @return The internal name.
+     */
+    public static String name(TypeFill type) {
+        if (type instanceof TypeInner) {
+            TypeInner inner = (TypeInner) type;
+            return SupertypeResolver.name(inner.getOuter()) + '$' + inner.getType().getInternalName();
+        }
+        return type.getType().getInternalName();
+    }
+
+    /**
+     * Gets the table of supertypes of the given class, keyed by internal name. The table contains the class itself,
+     * parameterized by its own type parameters, followed by its direct supertypes and then its indirect supertypes,
+     * each expressed in terms of the type parameters of the class.
+     *
+     * @param name The internal name of the class.
+     * @return The unmodifiable table of supertypes.
+     */
+    public Map<String, TypeFill> getSupertypes(String name) {
+        return this.table(name, new HashSet<>());
+    }
+
+    /**
+     * Gets the given supertype of the given class, expressed in terms of the type parameters of the class.
+     *
+     * @param name The internal name of the class.
+     * @param supertype The internal name of the supertype.
+     * @return The supertype, or null if it is not a supertype of the class.
+     */
+    public TypeFill getSupertype(String name, String supertype) {
+        return this.getSupertypes(name).get(supertype);
+    }
+
+    /**
+     * Views the given class type as the given supertype; for example, {@code ArrayList<String>} viewed as
+     * {@code java/util/List} is {@code List<String>}. If the given type is raw, the supertype is raw as well.
+     *
+     * @param type The class type.
+     * @param supertype The internal name of the supertype.
+     * @return The supertype, or null if it is not a supertype of the class type.
+     */
+    public TypeFill asSuper(TypeFill type, String supertype) {
+        String name = SupertypeResolver.name(type);
+        TypeFill resolved = this.getSupertype(name, supertype);
+        if (resolved == null) {
+            return null;
+        } else if (name.equals(supertype)) {
+            return type;
+        }
+
+        ClassSignature signature = this.classes.getSignature(name);
+        List<TypeVar> parameters = signature == null ? Collections.emptyList() : signature.getGenerics();
+        if (parameters.isEmpty()) {
+            return resolved;
+        } else if (type.getFill().size() != parameters.size()) {
+            return SupertypeResolver.erase(resolved);
+        }
+        return TypeSubstitution.of(parameters, type.getFill()).substitute(resolved);
+    }
+
+    /**
+     * Gets the type arguments of the given supertype, when viewed from the given class type.
+     *
+     * @param type The class type.
+     * @param supertype The internal name of the supertype.
+     * @return The type arguments, which are empty if the supertype is raw or not generic, or null if it is not a
+     * supertype of the class type.
+     * @see SupertypeResolver#asSuper(TypeFill, String)
+     */
+    public List<TypeInformal> getTypeArguments(TypeFill type, String supertype) {
+        TypeFill resolved = this.asSuper(type, supertype);
+        return resolved == null ? null : resolved.getFill();
+    }
+
+    /**
+     * Removes every cached table, such as after the classes looked up by this resolver have changed.
+     */
+    public void clear() {
+        this.tables.clear();
+    }
+
+    private Map<String, TypeFill> table(String name, Set<String> visiting) {
+        Map<String, TypeFill> table = this.tables.get(name);
+        if (table != null) {
+            return table;
+        }
+
+        ClassSignature signature = this.classes.getSignature(name);
+        table = new LinkedHashMap<>();
+        if (signature == null || !visiting.add(name)) {
+            //Unknown classes, and classes in a (malformed) cyclic hierarchy, have no known supertypes
+            return Collections.emptyMap();
+        }
+
+        List<TypeVar> parameters = signature.getGenerics();
+        Object[] self = new Object[parameters.size()];
+        for (int i = 0; i < self.length; i++) {
+            self[i] = new TypeVarRef(parameters.get(i).getName());
+        }
+        table.put(name, new TypeFill(signature.getName(), CompactList.wrap(self)).freeze());
+
+        List<TypeFill> direct = new ArrayList<>(signature.getInterfaces().size() + 1);
+        if (signature.getSuperclass() != null) {
+            direct.add(signature.getSuperclass());
+        }
+        direct.addAll(signature.getInterfaces());
+        for (TypeFill type : direct) {
+            table.putIfAbsent(SupertypeResolver.name(type), type.freeze());
+        }
+        for (TypeFill type : direct) {
+            this.inherit(table, type, visiting);
+        }
+        visiting.remove(name);
+
+        table = Collections.unmodifiableMap(table);
+        return this.tables.putIfAbsent(name, table);
+    }
+
+    private void inherit(Map<String, TypeFill> table, TypeFill type, Set<String> visiting) {
+        String name = SupertypeResolver.name(type);
+        Map<String, TypeFill> supertypes = this.table(name, visiting);
+        if (supertypes.size() <= 1) {
+            return;
+        }
+
+        ClassSignature signature = this.classes.getSignature(name);
+        List<TypeVar> parameters = signature.getGenerics();
+        boolean raw = !parameters.isEmpty() && type.getFill().size() != parameters.size();
+        TypeSubstitution substitution = parameters.isEmpty() || raw ? null : TypeSubstitution.of(parameters, type.getFill());
+        for (Map.Entry<String, TypeFill> entry : supertypes.entrySet()) {
+            if (!table.containsKey(entry.getKey())) {
+                TypeFill supertype = entry.getValue();
+                if (raw) {
+                    supertype = SupertypeResolver.erase(supertype);
+                } else if (substitution != null) {
+                    supertype = substitution.substitute(supertype).freeze();
+                }
+                table.put(entry.getKey(), supertype);
+            }
+        }
+    }
+
+    private static TypeFill erase(TypeFill type) {
+        return type.getFill().isEmpty() && !(type instanceof TypeInner) ? type : new TypeFill(Type.getObjectType(SupertypeResolver.name(type))).freeze();
+    }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.generic;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Substitutes type arguments for type variables. Every {@link TypeVarRef} whose name is bound is replaced by its
+ * binding, through the type arguments of class types, the outer types of inner class types, array element types,
+ * wildcard bounds and type variable bounds. Subtrees which contain no bound type variables are returned unchanged,
+ * rather than copied, so the substituted type shares them with the original.
+ * <p>
+ * The substitution of every frozen class type with type arguments is cached by identity, which is safe because frozen
+ * signature parts are interned (see {@link TypeSignaturePart#freeze()}); subtrees which recur within one signature, or
+ * over many calls, are only substituted once, and frozen subtrees without type variables are skipped in constant time
+ * after they have been seen once. The substitution of a frozen class type is itself frozen, since the cached result is
+ * shared by every occurrence of the class type. Because of this cache, a substitution is not thread safe.
+ * <p>
+ * A wildcard may be bound to a type variable, in which case it is substituted as it is wherever the type variable is a
+ * type argument. Nested wildcards are collapsed: {@code ? extends T} with {@code T = ? extends Number} becomes
+ * {@code ? extends Number}, and every combination without a meaningful bound becomes {@code *}. Wherever a wildcard
+ * cannot appear, such as a parameter type or an array element type, it is replaced by its upper bound.
+ */
+public class TypeSubstitution {
+    private static final TypeFill OBJECT = new TypeFill(SymbolTable.OBJECT).freeze();
+
+    private Map<TypeVar, TypeInformal> bindings;
+    private Map<String, TypeInformal> names;
+    private Map<TypeFill, TypeFill> cache;
+
+    /**
+     * Creates a new substitution with the given bindings.
+     *
+     * @param bindings The type arguments to substitute, keyed by the type variables they are bound to.
+     */
+    public TypeSubstitution(Map<TypeVar, ? extends TypeInformal> bindings) {
+        this.bindings = new LinkedHashMap<>(bindings);
+        this.names = new HashMap<>();
+        this.bindings.forEach((k, v) -> this.names.put(k.getName(), v));
+        this.cache = new IdentityHashMap<>();
+    }
+
+    /**
+     * Creates a new substitution which binds each of the given type variables to the type argument at the same index,
+     * such as the type parameters of a class to the type arguments of a {@link TypeFill} of that class.
+     *
+     * @param variables The type variables.
+     * @param arguments The type arguments.
+     * @return The substitution.
+     * @throws IllegalArgumentException If there are not exactly as many type arguments as type variables.
+     */
+    public static TypeSubstitution of(List<TypeVar> variables, List<? extends TypeInformal> arguments) {
+        if (variables.size() != arguments.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " type arguments, but got " + arguments.size());
+        }
+
+        Map<TypeVar, TypeInformal> bindings = new LinkedHashMap<>();
+        for (int i = 0; i < variables.size(); i++) {
+            bindings.put(variables.get(i), arguments.get(i));
+        }
+        return new TypeSubstitution(bindings);
+    }
+
+    /**
+     * @return The bindings of this substitution, keyed by type variable.
+     */
+    public Map<TypeVar, TypeInformal> getBindings() {
+        return this.bindings;
+    }
+
+    /**
+     * Gets the type argument bound to the type variable with the given name.
+     *
+     * @param name The name of the type variable.
+     * @return The type argument, or null if the type variable is not bound.
+     */
+    public TypeInformal get(String name) {
+        return this.names.get(name);
+    }
+
+    /**
+     * Substitutes the bound type variables in the given type. A wildcard produced at the top level is replaced by its
+     * upper bound, unless the given type is a wildcard itself.
+     *
+     * @param type The type.
+     * @return The substituted type, which is the given type itself if it contains no bound type variables.
+     */
+    public TypeInformal substitute(TypeInformal type) {
+        TypeInformal result = this.apply(type);
+        return result.isWild() && !type.isWild() ? TypeSubstitution.upper((TypeWild) result) : result;
+    }
+
+    /**
+     * Substitutes the bound type variables in the given class type.
+     *
+     * @param type The class type.
+     * @return The substituted class type, which is the given class type itself if it contains no bound type variables,
+     * and is frozen if the given class type is frozen.
+     */
+    public TypeFill substitute(TypeFill type) {
+        if (type.getFill().isEmpty() && !type.isInner()) {
+            return type;
+        } else if (!type.isFrozen()) {
+            return this.fill(type);
+        }
+
+        TypeFill result = this.cache.get(type);
+        if (result == null) {
+            //The result is shared by every occurrence of the type, so it must not be modifiable
+            result = this.fill(type).freeze();
+            this.cache.put(type, result);
+        }
+        return result;
+    }
+
+    /**
+     * Substitutes the bound type variables in the bounds of the given type variable.
+     *
+     * @param var The type variable.
+     * @return The substituted type variable, which is the given type variable itself if its bounds contain no bound
+     * type variables.
+     */
+    public TypeVar substitute(TypeVar var) {
+        TypeInformal classBound = var.getClassBound() == null ? null : this.substitute(var.getClassBound());
+        List<TypeInformal> interBound = CompactList.map(var.getInterBound(), this::substitute);
+        if (classBound == var.getClassBound() && interBound == var.getInterBound()) {
+            return var;
+        }
+        return new TypeVar(var.getName(), classBound, interBound);
+    }
+
+    /**
+     * Instantiates the given method signature. The generics of the method which are bound by this substitution are
+     * removed, and the bound type variables are substituted in the remaining generics, the parameters, the return type
+     * and the exceptions. A generic of the method which has the same name as a bound type variable, but is not itself
+     * bound, shadows that binding within the method.
+     *
+     * @param signature The method signature.
+     * @return The instantiated method signature, which is the given method signature itself if it contains no bound
+     * type variables.
+     */
+    public MethodSignature substitute(MethodSignature signature) {
+        List<String> shadowed = new ArrayList<>();
+        List<TypeVar> generics = new ArrayList<>();
+        for (TypeVar var : signature.getGenerics()) {
+            if (!this.bindings.containsKey(var)) {
+                generics.add(var);
+                if (this.names.containsKey(var.getName())) {
+                    shadowed.add(var.getName());
+                }
+            }
+        }
+
+        TypeSubstitution substitution = this;
+        if (!shadowed.isEmpty()) {
+            Map<TypeVar, TypeInformal> bindings = new LinkedHashMap<>(this.bindings);
+            bindings.keySet().removeIf(var -> shadowed.contains(var.getName()));
+            substitution = new TypeSubstitution(bindings);
+        }
+
+        List<TypeVar> substituted = CompactList.map(generics, substitution::substitute);
+        List<TypeInformal> paras = CompactList.map(signature.getParameters(), substitution::substitute);
+        TypeInformal ret = signature.getReturn() == null ? null : substitution.substitute(signature.getReturn());
+        List<TypeInformal> exceptions = CompactList.map(signature.getExceptions(), substitution::substitute);
+        if (generics.size() == signature.getGenerics().size() && substituted == generics && paras == signature.getParameters()
+                && ret == signature.getReturn() && exceptions == signature.getExceptions()) {
+            return signature;
+        }
+        return new MethodSignature(substituted, paras, ret, exceptions);
+    }
+
+    private TypeInformal apply(TypeInformal type) {
+        switch (type.kind()) {
+            case VAR_REF: {
+                TypeInformal binding = this.names.get(((TypeVarRef) type).getName());
+                return binding == null ? type : binding;
+            }
+            case FILL:
+            case INNER:
+                return this.substitute((TypeFill) type);
+            case ARRAY: {
+                TypeArray array = (TypeArray) type;
+                TypeInformal element = this.substitute(array.getType());
+                return element == array.getType() ? array : new TypeArray(element);
+            }
+            case WILD:
+                return this.wild((TypeWild) type);
+            default:
+                return type;
+        }
+    }
+
+    private TypeFill fill(TypeFill type) {
+        TypeFill outer = type.isInner() ? this.substitute(((TypeInner) type).getOuter()) : null;
+        List<TypeInformal> fill = CompactList.map(type.getFill(), this::apply);
+        if (type.isInner()) {
+            return outer == ((TypeInner) type).getOuter() && fill == type.getFill() ? type : new TypeInner(type.getType(), outer, fill);
+        }
+        return fill == type.getFill() ? type : new TypeFill(type.getType(), fill);
+    }
+
+    private TypeInformal wild(TypeWild wild) {
+        TypeInformal upper = wild.getUpper() == null ? null : this.apply(wild.getUpper());
+        TypeInformal lower = wild.getLower() == null ? null : this.apply(wild.getLower());
+        if (upper == wild.getUpper() && lower == wild.getLower()) {
+            return wild;
+        } else if (upper != null && upper.isWild()) {
+            //? extends (? extends T) is ? extends T, and ? extends * or ? extends (? super T) have no upper bound
+            TypeWild nested = (TypeWild) upper;
+            return nested.getLower() == null ? nested : new TypeWild(null, null);
+        } else if (lower != null && lower.isWild()) {
+            //? super (? super T) is ? super T, and ? super * or ? super (? extends T) have no lower bound
+            TypeWild nested = (TypeWild) lower;
+            return nested.getLower() != null ? nested : new TypeWild(null, null);
+        }
+        return new TypeWild(upper, lower);
+    }
+
+    private static TypeInformal upper(TypeWild wild) {
+        return wild.getUpper() == null ? OBJECT : wild.getUpper();
+    }
+
+}
@@ -0,0 +1,485 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.io;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+import org.objectweb.asm.Type;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.gmail.socraticphoenix.asmsig.io.BinarySignatureWriter.*;
+
+/**
+ * Reads signatures written by a {@link BinarySignatureWriter}. Signatures are read one at a time, so a stream of any
+ * size can be read without holding all of it in memory, apart from the string, type and back-reference tables. Since
+ * back-referenced signature parts are shared between the signatures which contain them, every signature produced by
+ * this reader is frozen (see {@link TypeSignaturePart#freeze()}). Signature parts are read without recursion, so
+ * signatures of any depth can be read. This class is not thread safe.
+ */
+public class BinarySignatureReader implements Closeable {
+    private InputStream in;
+    private SymbolTable symbols;
+    private List<String> strings;
+    private List<Type> types;
+    private List<TypeSignaturePart> parts;
+    private Frame[] frames;
+    private int depth;
+    private int next;
+
+    /**
+     * Creates a new binary signature reader, which uses the {@link SymbolTable#shared() shared} symbol table, and reads
+     * the format header from the given stream.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If the stream throws an IOException, or does not start with a supported header.
+     */
+    public BinarySignatureReader(InputStream in) throws IOException {
+        this(in, SymbolTable.shared());
+    }
+
+    /**
+     * Creates a new binary signature reader, which uses the given symbol table, and reads the format header from the
+     * given stream.
+     *
+     * @param in The stream to read from.
+     * @param symbols The symbol table to resolve types and names through.
+     * @throws IOException If the stream throws an IOException, or does not start with a supported header.
+     */
+    public BinarySignatureReader(InputStream in, SymbolTable symbols) throws IOException {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in);
+        this.symbols = symbols;
+        this.strings = new ArrayList<>();
+        this.types = new ArrayList<>();
+        this.parts = new ArrayList<>();
+        this.frames = new Frame[4];
+        this.depth = 0;
+        this.next = -1;
+
+        int magic = 0;
+        for (int i = 0; i < 4; i++) {
+            magic = magic << 8 | this.readByte();
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a binary signature stream");
+        }
+        int version = this.readVarint();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary signature stream version " + version + ", expected " + VERSION);
+        }
+    }
+
+    /**
+     * @return True if there is another signature in the stream.
+     * @throws IOException If the stream throws an IOException.
+     */
+    public boolean hasNext() throws IOException {
+        if (this.next == -1) {
+            this.next = this.in.read();
+        }
+        return this.next != -1;
+    }
+
+    /**
+     * Reads the next signature, which may be a {@link ClassSignature}, a {@link MethodSignature} or a
+     * {@link TypeInformal}.
+     *
+     * @return The next signature, or null if the end of the stream has been reached.
+     * @throws IOException If the stream throws an IOException, or is malformed.
+     */
+    public Object read() throws IOException {
+        if (!this.hasNext()) {
+            return null;
+        }
+
+        int kind = this.next;
+        this.next = -1;
+        switch (kind) {
+            case CLASS: {
+                Type type = this.readTypeReference();
+                List<TypeVar> generics = this.readParts();
+                TypeFill superclass = this.readPart(TypeFill.class);
+                List<TypeFill> interfaces = this.readParts();
+                return new ClassSignature(new TypeParameterized(type, generics).freeze(), superclass, interfaces).freeze();
+            }
+            case METHOD: {
+                List<TypeVar> generics = this.readParts();
+                List<TypeInformal> paras = this.readParts();
+                TypeInformal ret = this.readPart(TypeInformal.class);
+                return new MethodSignature(generics, paras, ret, this.readParts()).freeze();
+            }
+            case TYPE:
+                return this.readPart(TypeInformal.class);
+            default:
+                throw new IOException("Malformed binary signature stream: unknown signature kind " + kind);
+        }
+    }
+
+    /**
+     * Reads the next signature, which must be a class signature.
+     *
+     * @return The class signature.
+     * @throws IOException If the stream throws an IOException, is malformed, or the next signature is not a class
+     *                     signature.
+     */
+    public ClassSignature readClass() throws IOException {
+        return this.read(ClassSignature.class);
+    }
+
+    /**
+     * Reads the next signature, which must be a method signature.
+     *
+     * @return The method signature.
+     * @throws IOException If the stream throws an IOException, is malformed, or the next signature is not a method
+     *                     signature.
+     */
+    public MethodSignature readMethod() throws IOException {
+        return this.read(MethodSignature.class);
+    }
+
+    /**
+     * Reads the next signature, which must be a type signature.
+     *
+     * @return The type signature.
+     * @throws IOException If the stream throws an IOException, is malformed, or the next signature is not a type
+     *                     signature.
+     */
+    public TypeInformal readType() throws IOException {
+        return this.read(TypeInformal.class);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    private <T> T read(Class<T> kind) throws IOException {
+        Object signature = this.read();
+        if (signature == null) {
+            throw new EOFException();
+        } else if (!kind.isInstance(signature)) {
+            throw new IOException("Expected a " + kind.getSimpleName() + ", but found a " + signature.getClass().getSimpleName());
+        }
+        return kind.cast(signature);
+    }
+
+    private <T extends TypeSignaturePart> List<T> readParts() throws IOException {
+        int count = this.readLength();
+        Object[] parts = new Object[count];
+        for (int i = 0; i < count; i++) {
+            parts[i] = this.readPart(TypeSignaturePart.class);
+        }
+        return CompactList.wrap(parts);
+    }
+
+    private <T> T readPart(Class<T> kind) throws IOException {
+        return BinarySignatureReader.check(this.readPart(), kind);
+    }
+
+    private TypeSignaturePart readPart() throws IOException {
+        //Composite parts are read with an explicit stack of frames, each collecting the children of one part, rather than
+        //by recursion, so that deeply nested signature parts cannot overflow the stack of the calling thread
+        int base = this.depth;
+        while (true) {
+            int tag = this.readByte();
+            TypeSignaturePart part = null;
+            boolean complete = false;
+            switch (tag) {
+                case FILL:
+                case INNER:
+                case ARRAY:
+                case WILD:
+                case VAR:
+                    this.open(tag);
+                    break;
+                default:
+                    part = this.readLeaf(tag);
+                    complete = true;
+                    break;
+            }
+
+            //Hands the part to the innermost open frame, and closes every frame which has all of its children
+            while (this.depth > base) {
+                Frame frame = this.frames[this.depth - 1];
+                if (complete) {
+                    this.add(frame, part);
+                }
+                if (this.needsChild(frame)) {
+                    break;
+                }
+                part = this.close(frame);
+                complete = true;
+            }
+            if (this.depth == base) {
+                return part;
+            }
+        }
+    }
+
+    private TypeSignaturePart readLeaf(int tag) throws IOException {
+        switch (tag) {
+            case NULL:
+                return null;
+            case BACK_REFERENCE: {
+                int reference = this.readVarint();
+                if (reference >= this.parts.size()) {
+                    throw new IOException("Malformed binary signature stream: unknown back-reference " + reference);
+                }
+                return this.parts.get(reference);
+            }
+            case PRIMITIVE: {
+                Type type = SymbolTable.primitive((char) this.readByte());
+                if (type == null) {
+                    throw new IOException("Malformed binary signature stream: unknown primitive type");
+                }
+                return new TypeFill(type).freeze();
+            }
+            case CLASS_TYPE:
+                return new TypeFill(this.readTypeReference()).freeze();
+            case VAR_REF:
+                return new TypeVarRef(this.readString()).freeze();
+            default:
+                throw new IOException("Malformed binary signature stream: unknown signature part tag " + tag);
+        }
+    }
+
+    private void open(int tag) throws IOException {
+        if (this.depth == this.frames.length) {
+            this.frames = Arrays.copyOf(this.frames, Math.max(4, this.depth * 2));
+        }
+        Frame frame = this.frames[this.depth];
+        if (frame == null) {
+            frame = this.frames[this.depth] = new Frame();
+        }
+        this.depth++;
+
+        //Everything which comes before the first child of the part is read as soon as the part is opened
+        frame.tag = tag;
+        frame.children = null;
+        frame.received = 0;
+        switch (tag) {
+            case FILL:
+                frame.type = this.readTypeReference();
+                frame.children = new Object[this.readLength()];
+                break;
+            case INNER:
+                frame.type = this.readTypeReference();
+                break;
+            case WILD:
+                frame.flags = this.readByte();
+                break;
+            case VAR:
+                frame.name = this.readString();
+                break;
+        }
+    }
+
+    private boolean needsChild(Frame frame) throws IOException {
+        switch (frame.tag) {
+            case FILL:
+                return frame.received < frame.children.length;
+            case INNER:
+            case VAR:
+                //The outer class type or class bound comes first, and is followed by the count of the remaining children
+                if (frame.received == 0) {
+                    return true;
+                } else if (frame.children == null) {
+                    frame.children = new Object[this.readLength()];
+                }
+                return frame.received - 1 < frame.children.length;
+            case ARRAY:
+                return frame.received == 0;
+            default:
+                return frame.received < Integer.bitCount(frame.flags & (UPPER | LOWER));
+        }
+    }
+
+    private void add(Frame frame, TypeSignaturePart part) throws IOException {
+        switch (frame.tag) {
+            case FILL:
+                frame.children[frame.received] = part;
+                break;
+            case INNER:
+                if (frame.received == 0) {
+                    frame.first = BinarySignatureReader.check(part, TypeFill.class);
+                } else {
+                    frame.children[frame.received - 1] = part;
+                }
+                break;
+            case VAR:
+                if (frame.received == 0) {
+                    frame.first = BinarySignatureReader.check(part, TypeInformal.class);
+                } else {
+                    frame.children[frame.received - 1] = part;
+                }
+                break;
+            case ARRAY:
+                frame.first = BinarySignatureReader.check(part, TypeInformal.class);
+                break;
+            default:
+                //A wildcard type's upper bound comes before its lower bound, and either may be absent
+                if (frame.received == 0 && (frame.flags & UPPER) != 0) {
+                    frame.first = BinarySignatureReader.check(part, TypeInformal.class);
+                } else {
+                    frame.second = BinarySignatureReader.check(part, TypeInformal.class);
+                }
+                break;
+        }
+        frame.received++;
+    }
+
+    private TypeSignaturePart close(Frame frame) {
+        TypeSignaturePart part;
+        switch (frame.tag) {
+            case FILL:
+                part = new TypeFill(frame.type, CompactList.wrap(frame.children));
+                break;
+            case INNER:
+                part = new TypeInner(frame.type, (TypeFill) frame.first, CompactList.wrap(frame.children));
+                break;
+            case ARRAY:
+                part = new TypeArray((TypeInformal) frame.first);
+                break;
+            case WILD:
+                part = new TypeWild((TypeInformal) frame.first, (TypeInformal) frame.second);
+                break;
+            default:
+                part = new TypeVar(frame.name, (TypeInformal) frame.first, CompactList.wrap(frame.children));
+                break;
+        }
+        frame.type = null;
+        frame.name = null;
+        frame.first = null;
+        frame.second = null;
+        frame.children = null;
+        this.depth--;
+        return this.register(part);
+    }
+
+    private static <T> T check(TypeSignaturePart part, Class<T> kind) throws IOException {
+        if (part != null && !kind.isInstance(part)) {
+            throw new IOException("Malformed binary signature stream: expected a " + kind.getSimpleName() + ", but found a " + part.getClass().getSimpleName());
+        }
+        return kind.cast(part);
+    }
+
+    private TypeSignaturePart register(TypeSignaturePart part) {
+        TypeSignaturePart frozen = part.freeze();
+        this.parts.add(frozen);
+        return frozen;
+    }
+
+    private Type readTypeReference() throws IOException {
+        int reference = this.readVarint();
+        if (reference == 0) {
+            Type type = this.symbols.objectType(this.readString());
+            this.types.add(type);
+            return type;
+        } else if (reference > this.types.size()) {
+            throw new IOException("Malformed binary signature stream: unknown type " + (reference - 1));
+        }
+        return this.types.get(reference - 1);
+    }
+
+    private String readString() throws IOException {
+        int reference = this.readVarint();
+        if (reference == 0) {
+            byte[] bytes = new byte[this.readLength()];
+            for (int i = 0; i < bytes.length; ) {
+                int read = this.in.read(bytes, i, bytes.length - i);
+                if (read == -1) {
+                    throw new EOFException();
+                }
+                i += read;
+            }
+            String string = this.symbols.name(new String(bytes, StandardCharsets.UTF_8));
+            this.strings.add(string);
+            return string;
+        } else if (reference > this.strings.size()) {
+            throw new IOException("Malformed binary signature stream: unknown string " + (reference - 1));
+        }
+        return this.strings.get(reference - 1);
+    }
+
+    private int readLength() throws IOException {
+        //Nothing in a class file is longer than 65535 bytes, so longer lengths can only come from a damaged stream
+        int length = this.readVarint();
+        if (length < 0 || length > 0xFFFF) {
+            throw new IOException("Malformed binary signature stream: invalid length " + length);
+        }
+        return length;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = this.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed binary signature stream: varint is too long");
+    }
+
+    private int readByte() throws IOException {
+        int b = this.in.read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static class Frame {
+        //A composite part whose children are being read: its tag, whatever precedes its children, its first children
+        //(the outer class type, component type, upper bound or class bound, then the lower bound), the rest of its
+        //children once their count is known, and the number of children read so far
+        private int tag;
+        private Type type;
+        private String name;
+        private int flags;
+        private TypeSignaturePart first;
+        private TypeSignaturePart second;
+        private Object[] children;
+        private int received;
+    }
+
+}
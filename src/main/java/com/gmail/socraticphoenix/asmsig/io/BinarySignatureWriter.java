@@ -0,0 +1,330 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.io;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeKind;
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+import org.objectweb.asm.Type;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes signatures to a stream in a compact, versioned binary format, which can be read back with a
+ * {@link BinarySignatureReader}. All counts and indices are written as unsigned varints. Strings and {@link Type}s are
+ * written in full the first time they appear and referenced by index afterwards, and any composite signature part
+ * which has already been written (for example, a {@code Map<String, T>} appearing in many methods) is written as a
+ * back-reference to its first occurrence. These tables span the whole stream, so the more signatures are written to a
+ * single stream, the smaller each one becomes.
+ * <p>
+ * Signature parts are compared by equality, so signatures must not be modified while the writer is in use. Frozen
+ * signatures (see {@link TypeSignaturePart#freeze()}) are the cheapest to write. Signature parts are written without
+ * recursion, so signatures of any depth can be written. This class is not thread safe.
+ */
+public class BinarySignatureWriter implements Closeable, Flushable {
+    static final int MAGIC = 0x41534947;
+    static final int VERSION = 1;
+
+    static final int CLASS = 1;
+    static final int METHOD = 2;
+    static final int TYPE = 3;
+
+    static final int NULL = 0;
+    static final int BACK_REFERENCE = 1;
+    static final int PRIMITIVE = 2;
+    static final int CLASS_TYPE = 3;
+    static final int FILL = 4;
+    static final int INNER = 5;
+    static final int ARRAY = 6;
+    static final int WILD = 7;
+    static final int VAR_REF = 8;
+    static final int VAR = 9;
+
+    static final int UPPER = 1;
+    static final int LOWER = 2;
+
+    private static final Object COMPLETE = new Object();
+
+    private OutputStream out;
+    private Map<String, Integer> strings;
+    private Map<Type, Integer> types;
+    private Map<TypeSignaturePart, Integer> parts;
+    private Object[] stack;
+    private int top;
+
+    /**
+     * Creates a new binary signature writer, and writes the format header to the given stream.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the stream throws an IOException.
+     */
+    public BinarySignatureWriter(OutputStream out) throws IOException {
+        this.out = out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out);
+        this.strings = new HashMap<>();
+        this.types = new HashMap<>();
+        this.parts = new HashMap<>();
+        this.stack = new Object[16];
+        this.top = 0;
+        for (int i = 24; i >= 0; i -= 8) {
+            this.out.write(MAGIC >>> i);
+        }
+        this.writeVarint(VERSION);
+    }
+
+    /**
+     * Writes the given class signature.
+     *
+     * @param signature The class signature.
+     * @throws IOException If the stream throws an IOException.
+     */
+    public void write(ClassSignature signature) throws IOException {
+        this.out.write(CLASS);
+        this.writeType(signature.getName());
+        this.writeParts(signature.getGenerics());
+        this.writePart(signature.getSuperclass());
+        this.writeParts(signature.getInterfaces());
+    }
+
+    /**
+     * Writes the given method signature.
+     *
+     * @param signature The method signature.
+     * @throws IOException If the stream throws an IOException.
+     */
+    public void write(MethodSignature signature) throws IOException {
+        this.out.write(METHOD);
+        this.writeParts(signature.getGenerics());
+        this.writeParts(signature.getParameters());
+        this.writePart(signature.getReturn());
+        this.writeParts(signature.getExceptions());
+    }
+
+    /**
+     * Writes the given type signature.
+     *
+     * @param signature The type signature.
+     * @throws IOException If the stream throws an IOException.
+     */
+    public void write(TypeInformal signature) throws IOException {
+        this.out.write(TYPE);
+        this.writePart(signature);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+    private void writeParts(List<? extends TypeSignaturePart> parts) throws IOException {
+        this.writeVarint(parts.size());
+        for (int i = 0; i < parts.size(); i++) {
+            this.writePart(parts.get(i));
+        }
+    }
+
+    private void writePart(TypeSignaturePart root) throws IOException {
+        //Frozen parts cache their hash codes, so looking up every composite part of a deeply nested signature is linear
+        //rather than quadratic in its size
+        if (root != null && !root.isFrozen()) {
+            root = root.freeze();
+        }
+
+        //Parts are written with an explicit stack rather than by recursion, so that deeply nested signature parts cannot
+        //overflow the stack of the calling thread. Each entry is a part to write, a list of parts to write after its
+        //size, or the marker above a composite part, which is reached once all of the part's children are written
+        int base = this.top;
+        this.push(root);
+        while (this.top > base) {
+            Object item = this.pop();
+            if (item == COMPLETE) {
+                //Parts are numbered once they are complete, in the same order the reader completes them
+                this.parts.put((TypeSignaturePart) this.pop(), this.parts.size());
+            } else if (item instanceof List) {
+                List<?> parts = (List<?>) item;
+                this.writeVarint(parts.size());
+                for (int i = parts.size() - 1; i >= 0; i--) {
+                    this.push(parts.get(i));
+                }
+            } else {
+                this.writeNode((TypeSignaturePart) item);
+            }
+        }
+    }
+
+    private void writeNode(TypeSignaturePart part) throws IOException {
+        //Writes the part itself, and pushes its children in reverse order, so that they are written in order
+        if (part == null) {
+            this.out.write(NULL);
+            return;
+        }
+
+        TypeKind kind = part.kind();
+        if (kind == TypeKind.FILL && ((TypeFill) part).getFill().isEmpty()) {
+            Type type = ((TypeFill) part).getType();
+            if (Signatures.isPrimitive(type)) {
+                this.out.write(PRIMITIVE);
+                this.out.write(type.getDescriptor().charAt(0));
+            } else {
+                this.out.write(CLASS_TYPE);
+                this.writeType(type);
+            }
+            return;
+        } else if (kind == TypeKind.VAR_REF) {
+            this.out.write(VAR_REF);
+            this.writeString(((TypeVarRef) part).getName());
+            return;
+        }
+
+        Integer reference = this.parts.get(part);
+        if (reference != null) {
+            this.out.write(BACK_REFERENCE);
+            this.writeVarint(reference);
+            return;
+        }
+
+        switch (kind) {
+            case FILL: {
+                TypeFill fill = (TypeFill) part;
+                this.out.write(FILL);
+                this.writeType(fill.getType());
+                this.open(part);
+                this.push(fill.getFill());
+                break;
+            }
+            case INNER: {
+                TypeInner inner = (TypeInner) part;
+                this.out.write(INNER);
+                this.writeType(inner.getType());
+                this.open(part);
+                this.push(inner.getFill());
+                this.push(inner.getOuter());
+                break;
+            }
+            case ARRAY:
+                this.out.write(ARRAY);
+                this.open(part);
+                this.push(((TypeArray) part).getType());
+                break;
+            case WILD: {
+                TypeWild wild = (TypeWild) part;
+                this.out.write(WILD);
+                this.out.write((wild.getUpper() != null ? UPPER : 0) | (wild.getLower() != null ? LOWER : 0));
+                this.open(part);
+                if (wild.getLower() != null) {
+                    this.push(wild.getLower());
+                }
+                if (wild.getUpper() != null) {
+                    this.push(wild.getUpper());
+                }
+                break;
+            }
+            case VAR: {
+                TypeVar var = (TypeVar) part;
+                this.out.write(VAR);
+                this.writeString(var.getName());
+                this.open(part);
+                this.push(var.getInterBound());
+                this.push(var.getClassBound());
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown signature part: " + part.getClass().getName());
+        }
+    }
+
+    private void open(TypeSignaturePart part) {
+        this.push(part);
+        this.push(COMPLETE);
+    }
+
+    private void push(Object item) {
+        if (this.top == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, Math.max(16, this.top * 2));
+        }
+        this.stack[this.top++] = item;
+    }
+
+    private Object pop() {
+        Object item = this.stack[--this.top];
+        this.stack[this.top] = null;
+        return item;
+    }
+
+    private void writeType(Type type) throws IOException {
+        Integer reference = this.types.get(type);
+        if (reference != null) {
+            this.writeVarint(reference + 1);
+        } else {
+            if (type.getSort() == Type.METHOD) {
+                throw new IllegalArgumentException("Method types may not appear in signatures: " + type);
+            }
+            this.writeVarint(0);
+            this.writeString(type.getInternalName());
+            this.types.put(type, this.types.size());
+        }
+    }
+
+    private void writeString(String string) throws IOException {
+        Integer reference = this.strings.get(string);
+        if (reference != null) {
+            this.writeVarint(reference + 1);
+        } else {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            this.writeVarint(0);
+            this.writeVarint(bytes.length);
+            this.out.write(bytes);
+            this.strings.put(string, this.strings.size());
+        }
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            this.out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        this.out.write(value);
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.io;
+
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This class holds utility methods for emitting signatures in, and decoding strings from, the modified UTF-8 encoding
+ * used by the constant pool of a class file. The signatures are encoded straight from the signature objects, without
+ * building a String, and the exact encoded length can be computed up front so that buffers can be sized before
+ * encoding.
+ */
+public class ModifiedUtf8 {
+
+    /**
+     * Computes the exact length, in bytes, of the modified UTF-8 encoding of the given signature part.
+     *
+     * @param part The signature part.
+     * @return The encoded length.
+     */
+    public static int length(TypeSignaturePart part) {
+        return ModifiedUtf8.length(part::write);
+    }
+
+    /**
+     * Computes the exact length, in bytes, of the modified UTF-8 encoding of the given method signature.
+     *
+     * @param signature The method signature.
+     * @return The encoded length.
+     */
+    public static int length(MethodSignature signature) {
+        return ModifiedUtf8.length(signature::write);
+    }
+
+    /**
+     * Computes the exact length, in bytes, of the modified UTF-8 encoding of the given class signature.
+     *
+     * @param signature The class signature.
+     * @return The encoded length.
+     */
+    public static int length(ClassSignature signature) {
+        return ModifiedUtf8.length(signature::write);
+    }
+
+    /**
+     * Computes the exact length, in bytes, of the modified UTF-8 encoding of the given characters.
+     *
+     * @param chars The characters.
+     * @return The encoded length.
+     */
+    public static int length(CharSequence chars) {
+        int length = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            length += ModifiedUtf8.length(chars.charAt(i));
+        }
+        return length;
+    }
+
+    /**
+     * Encodes the given signature part into the given array, starting at the given offset. The array must have room
+     * for at least {@link ModifiedUtf8#length(TypeSignaturePart)} bytes after the offset.
+     *
+     * @param part The signature part.
+     * @param bytes The array to encode into.
+     * @param offset The offset to start encoding at.
+     * @return The offset after the last encoded byte.
+     */
+    public static int encode(TypeSignaturePart part, byte[] bytes, int offset) {
+        return ModifiedUtf8.encode(part::write, bytes, offset);
+    }
+
+    /**
+     * Encodes the given method signature into the given array, starting at the given offset. The array must have room
+     * for at least {@link ModifiedUtf8#length(MethodSignature)} bytes after the offset.
+     *
+     * @param signature The method signature.
+     * @param bytes The array to encode into.
+     * @param offset The offset to start encoding at.
+     * @return The offset after the last encoded byte.
+     */
+    public static int encode(MethodSignature signature, byte[] bytes, int offset) {
+        return ModifiedUtf8.encode(signature::write, bytes, offset);
+    }
+
+    /**
+     * Encodes the given class signature into the given array, starting at the given offset. The array must have room
+     * for at least {@link ModifiedUtf8#length(ClassSignature)} bytes after the offset.
+     *
+     * @param signature The class signature.
+     * @param bytes The array to encode into.
+     * @param offset The offset to start encoding at.
+     * @return The offset after the last encoded byte.
+     */
+    public static int encode(ClassSignature signature, byte[] bytes, int offset) {
+        return ModifiedUtf8.encode(signature::write, bytes, offset);
+    }
+
+    /**
+     * Encodes the given signature part into the given buffer, at the buffer's current position.
+     *
+     * @param part The signature part.
+     * @param buffer The buffer to encode into.
+     * @throws java.nio.BufferOverflowException If the buffer does not have enough remaining space.
+     */
+    public static void encode(TypeSignaturePart part, ByteBuffer buffer) {
+        ModifiedUtf8.encode(part::write, buffer);
+    }
+
+    /**
+     * Encodes the given method signature into the given buffer, at the buffer's current position.
+     *
+     * @param signature The method signature.
+     * @param buffer The buffer to encode into.
+     * @throws java.nio.BufferOverflowException If the buffer does not have enough remaining space.
+     */
+    public static void encode(MethodSignature signature, ByteBuffer buffer) {
+        ModifiedUtf8.encode(signature::write, buffer);
+    }
+
+    /**
+     * Encodes the given class signature into the given buffer, at the buffer's current position.
+     *
+     * @param signature The class signature.
+     * @param buffer The buffer to encode into.
+     * @throws java.nio.BufferOverflowException If the buffer does not have enough remaining space.
+     */
+    public static void encode(ClassSignature signature, ByteBuffer buffer) {
+        ModifiedUtf8.encode(signature::write, buffer);
+    }
+
+    /**
+     * Decodes the given number of modified UTF-8 bytes, starting at the given absolute index of the given buffer. The
+     * position of the buffer is not changed.
+     *
+     * @param buffer The buffer.
+     * @param index The index of the first byte.
+     * @param length The number of bytes to decode.
+     * @return The decoded string.
+     * @throws IllegalArgumentException If the bytes are not valid modified UTF-8.
+     */
+    public static String decode(ByteBuffer buffer, int index, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int end = index + length;
+        while (index < end) {
+            int b = buffer.get(index++) & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0 && index < end) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | buffer.get(index++) & 0x3F);
+            } else if ((b & 0xF0) == 0xE0 && index + 1 < end) {
+                chars[count++] = (char) ((b & 0x0F) << 12 | (buffer.get(index++) & 0x3F) << 6 | buffer.get(index++) & 0x3F);
+            } else {
+                throw new IllegalArgumentException("Malformed modified UTF-8 at index " + (index - 1));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static int length(Writable writable) {
+        Counter counter = new Counter();
+        ModifiedUtf8.write(writable, counter);
+        return counter.length;
+    }
+
+    private static int encode(Writable writable, byte[] bytes, int offset) {
+        ByteArrayOutput output = new ByteArrayOutput(bytes, offset);
+        ModifiedUtf8.write(writable, output);
+        return output.offset;
+    }
+
+    private static void encode(Writable writable, ByteBuffer buffer) {
+        ModifiedUtf8.write(writable, new ByteBufferOutput(buffer));
+    }
+
+    private static void write(Writable writable, Appendable out) {
+        try {
+            writable.write(out);
+        } catch (IOException e) {
+            //None of the outputs in this class throw an IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int length(char c) {
+        if (c >= 0x0001 && c <= 0x007F) {
+            return 1;
+        } else if (c <= 0x07FF) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
+
+    private interface Writable {
+
+        void write(Appendable out) throws IOException;
+
+    }
+
+    private static abstract class Output implements Appendable {
+
+        abstract void put(byte b);
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return this.append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            for (int i = start; i < end; i++) {
+                this.append(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            if (c >= 0x0001 && c <= 0x007F) {
+                this.put((byte) c);
+            } else if (c <= 0x07FF) {
+                this.put((byte) (0xC0 | (c >> 6)));
+                this.put((byte) (0x80 | (c & 0x3F)));
+            } else {
+                this.put((byte) (0xE0 | (c >> 12)));
+                this.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                this.put((byte) (0x80 | (c & 0x3F)));
+            }
+            return this;
+        }
+
+    }
+
+    private static class ByteArrayOutput extends Output {
+        private byte[] bytes;
+        private int offset;
+
+        public ByteArrayOutput(byte[] bytes, int offset) {
+            this.bytes = bytes;
+            this.offset = offset;
+        }
+
+        @Override
+        void put(byte b) {
+            this.bytes[this.offset++] = b;
+        }
+
+    }
+
+    private static class ByteBufferOutput extends Output {
+        private ByteBuffer buffer;
+
+        public ByteBufferOutput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        void put(byte b) {
+            this.buffer.put(b);
+        }
+
+    }
+
+    private static class Counter implements Appendable {
+        private int length;
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return this.append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            for (int i = start; i < end; i++) {
+                this.length += ModifiedUtf8.length(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            this.length += ModifiedUtf8.length(c);
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counts recorded for one {@link SignatureOperation}. Every count is striped (see {@link LongAdder}), so threads
+ * which perform the same operation concurrently do not contend on it. Counts read while operations are being
+ * recorded are not an atomic snapshot, but each count is exact once recording has stopped.
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+    private static final int BUCKETS = 64;
+
+    private SignatureOperation operation;
+
+    private LongAdder calls;
+    private LongAdder failures;
+    private LongAdder length;
+    private LongAdder nodes;
+    private LongAdder totalNanos;
+    private LongAccumulator maxNanos;
+    private LongAdder[] histogram;
+
+    OperationMetrics(SignatureOperation operation) {
+        this.operation = operation;
+        this.calls = new LongAdder();
+        this.failures = new LongAdder();
+        this.length = new LongAdder();
+        this.nodes = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new LongAccumulator(Math::max, 0);
+        this.histogram = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            this.histogram[i] = new LongAdder();
+        }
+    }
+
+    void record(int length, int nodes, long nanos, boolean failed) {
+        //Clocks may step backwards, which must not corrupt the totals
+        nanos = Math.max(nanos, 0);
+        this.calls.increment();
+        if (failed) {
+            this.failures.increment();
+        }
+        this.length.add(length);
+        this.nodes.add(nodes);
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulate(nanos);
+        this.histogram[BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();
+    }
+
+    /**
+     * @return The operation these counts are recorded for.
+     */
+    public SignatureOperation getOperation() {
+        return this.operation;
+    }
+
+    @Override
+    public long getCalls() {
+        return this.calls.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return this.failures.sum();
+    }
+
+    @Override
+    public long getLength() {
+        return this.length.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return this.nodes.sum();
+    }
+
+    @Override
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    @Override
+    public double getMeanNanos() {
+        long calls = this.getCalls();
+        return calls == 0 ? 0 : (double) this.getTotalNanos() / calls;
+    }
+
+    @Override
+    public long[] getNanosHistogram() {
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = this.histogram[i].sum();
+        }
+        return histogram;
+    }
+
+    @Override
+    public void reset() {
+        this.calls.reset();
+        this.failures.reset();
+        this.length.reset();
+        this.nodes.reset();
+        this.totalNanos.reset();
+        this.maxNanos.reset();
+        for (LongAdder bucket : this.histogram) {
+            bucket.reset();
+        }
+    }
+
+}
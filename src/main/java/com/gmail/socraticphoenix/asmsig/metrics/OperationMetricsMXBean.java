@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.metrics;
+
+/**
+ * The JMX management interface of the {@link OperationMetrics} of one {@link SignatureOperation}. See
+ * {@link SignatureMetrics#registerMBeans()}.
+ */
+public interface OperationMetricsMXBean {
+
+    /**
+     * @return The number of times the operation was performed, including failures.
+     */
+    long getCalls();
+
+    /**
+     * @return The number of times the operation threw an exception.
+     */
+    long getFailures();
+
+    /**
+     * @return The total length of the operation, in bytes, see {@link SignatureMetricsListener}.
+     */
+    long getLength();
+
+    /**
+     * @return The total number of signature parts counted by the operation, see {@link SignatureMetricsListener}.
+     */
+    long getNodes();
+
+    /**
+     * @return The total time taken by the operation, in nanoseconds.
+     */
+    long getTotalNanos();
+
+    /**
+     * @return The longest time taken by the operation, in nanoseconds.
+     */
+    long getMaxNanos();
+
+    /**
+     * @return The mean time taken by the operation, in nanoseconds, or 0 if it has not been performed.
+     */
+    double getMeanNanos();
+
+    /**
+     * Returns the histogram of the time taken by the operation. Element {@code i} of the histogram is the number of
+     * times the operation took at least {@code 2^(i - 1)} and less than {@code 2^i} nanoseconds; element 0 counts the
+     * operations which took no measurable time.
+     *
+     * @return The histogram of the time taken by the operation.
+     */
+    long[] getNanosHistogram();
+
+    /**
+     * Resets every count of the operation to 0.
+     */
+    void reset();
+
+}
@@ -0,0 +1,329 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.metrics;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import org.objectweb.asm.Type;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Opt-in instrumentation of parsing, writing and mapping signatures. While disabled, which is the default, the
+ * instrumented methods only read a single flag, and nothing is timed, counted or allocated. While enabled, every call
+ * to {@link com.gmail.socraticphoenix.asmsig.Signatures#parseMethod(String)},
+ * {@link com.gmail.socraticphoenix.asmsig.Signatures#parseClass(String, String)},
+ * {@link com.gmail.socraticphoenix.asmsig.Signatures#parseType(String)}, and to {@code write(Appendable)} and
+ * {@code map} of {@link MethodSignature} and {@link ClassSignature}, is timed and counted in the
+ * {@link OperationMetrics} of its {@link SignatureOperation}, and passed to every registered
+ * {@link SignatureMetricsListener}. Lazy signatures write their raw signature, and are not recorded. The counts can be
+ * exported over JMX through {@link SignatureMetrics#registerMBeans()}.
+ * <p>
+ * Besides its time, every operation records a length, in bytes as the signature is encoded in a class file, and a
+ * number of signature parts (see {@link Measurement}). A parse records the length of the parsed signature and the
+ * number of signature parts built by the parser. A write records the length of its output, but no signature parts,
+ * since counting them would mean walking the whole signature a second time. A map records the number of types passed
+ * to the mapper, and the length of their internal names. Measuring a length reads every character once more, and this
+ * cost is part of the recorded time.
+ */
+public class SignatureMetrics {
+    private static final String DOMAIN = "com.gmail.socraticphoenix.asmsig";
+
+    private static volatile boolean enabled;
+    private static Map<SignatureOperation, OperationMetrics> metrics;
+    private static List<SignatureMetricsListener> listeners;
+
+    static {
+        metrics = new EnumMap<>(SignatureOperation.class);
+        for (SignatureOperation operation : SignatureOperation.values()) {
+            metrics.put(operation, new OperationMetrics(operation));
+        }
+        listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * @return True if operations are being recorded, false otherwise.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops recording operations. Operations which are in progress when recording is started or stopped may
+     * or may not be recorded.
+     *
+     * @param enabled True if operations should be recorded, false otherwise.
+     */
+    public static void setEnabled(boolean enabled) {
+        SignatureMetrics.enabled = enabled;
+    }
+
+    /**
+     * Registers a listener, which will receive every operation recorded from now on.
+     *
+     * @param listener The listener.
+     */
+    public static void addListener(SignatureMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener The listener.
+     */
+    public static void removeListener(SignatureMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param operation The operation.
+     * @return The counts recorded for the given operation.
+     */
+    public static OperationMetrics get(SignatureOperation operation) {
+        return metrics.get(operation);
+    }
+
+    /**
+     * @return The counts recorded for every operation.
+     */
+    public static Collection<OperationMetrics> getAll() {
+        return metrics.values();
+    }
+
+    /**
+     * Resets the counts recorded for every operation to 0.
+     */
+    public static void reset() {
+        for (OperationMetrics operation : metrics.values()) {
+            operation.reset();
+        }
+    }
+
+    /**
+     * Registers the counts recorded for each operation with the platform MBean server, under the name
+     * {@code com.gmail.socraticphoenix.asmsig:type=SignatureMetrics,operation=<OPERATION>}. Registering them again has
+     * no effect. Note that this does not enable recording, see {@link SignatureMetrics#setEnabled(boolean)}.
+     *
+     * @throws IllegalStateException If the MBeans could not be registered.
+     */
+    public static synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (OperationMetrics operation : metrics.values()) {
+                ObjectName name = SignatureMetrics.name(operation.getOperation());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(operation, name);
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register signature metrics", e);
+        }
+    }
+
+    /**
+     * Unregisters the MBeans registered by {@link SignatureMetrics#registerMBeans()}, if they are registered.
+     *
+     * @throws IllegalStateException If the MBeans could not be unregistered.
+     */
+    public static synchronized void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (SignatureOperation operation : SignatureOperation.values()) {
+                ObjectName name = SignatureMetrics.name(operation);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister signature metrics", e);
+        }
+    }
+
+    /**
+     * Performs and records the given operation. Instrumented methods should check {@link SignatureMetrics#isEnabled()}
+     * first, and only call this method if it is true, so that nothing is allocated while recording is disabled. The
+     * action reports the length and the number of signature parts of the operation to the given {@link Measurement}.
+     *
+     * @param operation The operation.
+     * @param action The action performing the operation.
+     * @param <T> The type of the result of the operation.
+     * @param <E> The type of the exception thrown by the operation.
+     * @return The result of the action.
+     * @throws E If the action throws an exception, which is recorded as a failure.
+     */
+    public static <T, E extends Exception> T record(SignatureOperation operation, Action<T, E> action) throws E {
+        Measurement measurement = new Measurement();
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = action.perform(measurement);
+        } catch (Throwable e) {
+            SignatureMetrics.record(operation, measurement.length, 0, System.nanoTime() - start, e);
+            throw e;
+        }
+        long nanos = System.nanoTime() - start;
+        SignatureMetrics.record(operation, measurement.length, measurement.nodes, nanos, null);
+        return result;
+    }
+
+    private static void record(SignatureOperation operation, int length, int nodes, long nanos, Throwable failure) {
+        metrics.get(operation).record(length, nodes, nanos, failure != null);
+        for (SignatureMetricsListener listener : listeners) {
+            listener.onOperation(operation, length, nodes, nanos, failure);
+        }
+    }
+
+    private static int length(char c) {
+        //Signatures are stored in class files in modified UTF-8, which encodes the null character in two bytes
+        return c != 0 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+    }
+
+    private static ObjectName name(SignatureOperation operation) throws JMException {
+        return new ObjectName(DOMAIN + ":type=SignatureMetrics,operation=" + operation.name());
+    }
+
+    /**
+     * An operation recorded by {@link SignatureMetrics#record(SignatureOperation, Action)}.
+     *
+     * @param <T> The type of the result of the operation.
+     * @param <E> The type of the exception thrown by the operation.
+     */
+    public interface Action<T, E extends Exception> {
+
+        /**
+         * Performs the operation.
+         *
+         * @param measurement The measurement to report the length and the number of signature parts of the operation
+         * to.
+         * @return The result of the operation.
+         * @throws E If the operation fails.
+         */
+        T perform(Measurement measurement) throws E;
+
+    }
+
+    /**
+     * The length and the number of signature parts of a single recorded operation. Lengths are measured in bytes of
+     * modified UTF-8, the encoding of signatures in class files. Measurements are only created while recording is
+     * enabled, and are not thread safe.
+     */
+    public static class Measurement {
+        private int length;
+        private int nodes;
+
+        private Measurement() {
+        }
+
+        /**
+         * Adds the length of the given text, such as a parsed signature, to this measurement.
+         *
+         * @param text The text.
+         */
+        public void addLength(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                this.length += SignatureMetrics.length(text.charAt(i));
+            }
+        }
+
+        /**
+         * Adds the given number of signature parts to this measurement.
+         *
+         * @param nodes The number of signature parts.
+         */
+        public void addNodes(int nodes) {
+            this.nodes += nodes;
+        }
+
+        /**
+         * Wraps the given output, so that the length of everything appended to the output is added to this
+         * measurement.
+         *
+         * @param out The output.
+         * @return The wrapped output.
+         */
+        public Appendable count(Appendable out) {
+            return new CountingAppendable(out, this);
+        }
+
+        /**
+         * Wraps the given mapper, so that every type passed to the mapper is added to this measurement as a signature
+         * part, and the length of its internal name, or of its descriptor if it is primitive, is added to the length of
+         * this measurement.
+         *
+         * @param mapper The mapper.
+         * @return The wrapped mapper.
+         */
+        public Function<Type, Type> count(Function<Type, Type> mapper) {
+            return type -> {
+                this.nodes++;
+                this.addLength(Signatures.isPrimitive(type) ? type.getDescriptor() : type.getInternalName());
+                return mapper.apply(type);
+            };
+        }
+
+    }
+
+    private static class CountingAppendable implements Appendable {
+        private Appendable out;
+        private Measurement measurement;
+
+        public CountingAppendable(Appendable out, Measurement measurement) {
+            this.out = out;
+            this.measurement = measurement;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            return this.append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            this.out.append(csq, start, end);
+            for (int i = start; i < end; i++) {
+                this.measurement.length += SignatureMetrics.length(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            this.out.append(c);
+            this.measurement.length += SignatureMetrics.length(c);
+            return this;
+        }
+
+    }
+
+}
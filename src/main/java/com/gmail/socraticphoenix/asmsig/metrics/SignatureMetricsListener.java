@@ -0,0 +1,43 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.metrics;
+
+/**
+ * Receives every operation recorded by {@link SignatureMetrics} while it is enabled. Listeners are called on the thread
+ * which performed the operation, right after it completes, so they should be cheap and must be thread safe.
+ */
+public interface SignatureMetricsListener {
+
+    /**
+     * Called after an operation completes, or fails.
+     *
+     * @param operation The operation.
+     * @param length The length of the operation in bytes, as the signature is encoded in a class file: of the parsed
+     *               signature, of the written output, or of the internal names passed to the mapper.
+     * @param nodes The number of signature parts built by a parse, or of types passed to the mapper by a map; 0 for a
+     *              write, or if the operation failed.
+     * @param nanos The time taken by the operation, in nanoseconds.
+     * @param failure The exception thrown by the operation, or null if it completed normally.
+     */
+    void onOperation(SignatureOperation operation, int length, int nodes, long nanos, Throwable failure);
+
+}
@@ -0,0 +1,51 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.metrics;
+
+/**
+ * The operations which are recorded by {@link SignatureMetrics}.
+ */
+public enum SignatureOperation {
+    /**
+     * Parsing a method signature, see {@link com.gmail.socraticphoenix.asmsig.Signatures#parseMethod(String)}.
+     */
+    PARSE_METHOD,
+    /**
+     * Parsing a class signature, see {@link com.gmail.socraticphoenix.asmsig.Signatures#parseClass(String, String)}.
+     */
+    PARSE_CLASS,
+    /**
+     * Parsing a type signature, see {@link com.gmail.socraticphoenix.asmsig.Signatures#parseType(String)}.
+     */
+    PARSE_TYPE,
+    /**
+     * Writing a method or class signature, see
+     * {@link com.gmail.socraticphoenix.asmsig.signature.MethodSignature#write(Appendable)}.
+     */
+    WRITE,
+    /**
+     * Mapping the types of a method or class signature, see
+     * {@link com.gmail.socraticphoenix.asmsig.signature.MethodSignature#map(java.util.function.Function)}.
+     */
+    MAP
+
+}
@@ -0,0 +1,513 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.packed;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A read-only view of a single signature part within a {@link PackedSignature}. A cursor answers the same questions as
+ * the corresponding {@link TypeSignaturePart} (for example, {@link PackedCursor#getFill(int)} corresponds to
+ * {@link TypeFill#getFill()}), but reads the answers directly from the packed array. Cursors are cheap to create, and
+ * never point at a missing part; accessors for parts which are absent (such as the lower bound of a wildcard type
+ * without one) return null instead.
+ */
+public class PackedCursor {
+    /**
+     * The tag of a missing signature part. Cursors never point at a part with this tag.
+     */
+    public static final int NULL = 0;
+    /**
+     * The tag of a {@link TypeFill} of a primitive or void type.
+     */
+    public static final int PRIMITIVE = 1;
+    /**
+     * The tag of a {@link TypeFill} of an object type, without any filled type parameters.
+     */
+    public static final int CLASS_TYPE = 2;
+    /**
+     * The tag of a {@link TypeFill} of an object type, with filled type parameters.
+     */
+    public static final int FILL = 3;
+    /**
+     * The tag of a {@link TypeInner}.
+     */
+    public static final int INNER = 4;
+    /**
+     * The tag of a (possibly multi-dimensional) {@link TypeArray}.
+     */
+    public static final int ARRAY = 5;
+    /**
+     * The tag of a {@link TypeWild}.
+     */
+    public static final int WILD = 6;
+    /**
+     * The tag of a {@link TypeVarRef}.
+     */
+    public static final int VAR_REF = 7;
+    /**
+     * The tag of a {@link TypeVar}.
+     */
+    public static final int VAR = 8;
+
+    private static final int UPPER = 1;
+    private static final int LOWER = 2;
+    private static final int MAX_DEPTH = 96;
+
+    private int[] data;
+    private StringPool pool;
+    private int position;
+
+    PackedCursor(int[] data, StringPool pool, int position) {
+        this.data = data;
+        this.pool = pool;
+        this.position = position;
+    }
+
+    static PackedCursor at(int[] data, StringPool pool, int position) {
+        return (data[position] & 0xF) == NULL ? null : new PackedCursor(data, pool, position);
+    }
+
+    static int skip(int[] data, int position) {
+        return PackedCursor.skip(data, position, 1);
+    }
+
+    static int skip(int[] data, int position, int count) {
+        //Every part is followed by its children, and its header says how many there are, so parts are skipped by counting
+        //the parts still to be skipped, rather than by recursing into each one
+        int remaining = count;
+        while (remaining > 0) {
+            remaining += PackedCursor.children(data, position) - 1;
+            position += PackedCursor.width(data[position]);
+        }
+        return position;
+    }
+
+    /**
+     * @return The tag of the part this cursor points at, one of the tag constants of this class.
+     */
+    public int getTag() {
+        return this.header() & 0xF;
+    }
+
+    /**
+     * @return The type of the filled or inner type this cursor points at. As with {@link TypeInner#getType()}, the type
+     * of an inner type is only its simple name.
+     */
+    public Type getType() {
+        int tag = this.getTag();
+        if (tag == PRIMITIVE) {
+            return SymbolTable.primitive((char) (this.header() >>> 4));
+        }
+        this.check(tag == CLASS_TYPE || tag == FILL || tag == INNER, "a filled type");
+        return SymbolTable.shared().objectType(this.pool.get(this.header() >>> 4));
+    }
+
+    /**
+     * @return The name of the type variable or type variable reference this cursor points at, or the internal name of
+     * the filled or inner type this cursor points at.
+     */
+    public String getName() {
+        int tag = this.getTag();
+        this.check(tag == VAR || tag == VAR_REF || tag == CLASS_TYPE || tag == FILL || tag == INNER, "a named part");
+        return this.pool.get(this.header() >>> 4);
+    }
+
+    /**
+     * @return The number of filled type parameters of the filled or inner type this cursor points at.
+     */
+    public int getFillCount() {
+        int tag = this.getTag();
+        this.check(tag == PRIMITIVE || tag == CLASS_TYPE || tag == FILL || tag == INNER, "a filled type");
+        return tag == FILL || tag == INNER ? this.data[this.position + 1] : 0;
+    }
+
+    /**
+     * Gets a filled type parameter of the filled or inner type this cursor points at.
+     *
+     * @param index The index of the filled type parameter.
+     * @return A cursor pointing at the filled type parameter.
+     */
+    public PackedCursor getFill(int index) {
+        int start = this.getTag() == INNER ? PackedCursor.skip(this.data, this.position + 2) : this.position + 2;
+        return this.child(start, index, this.getFillCount());
+    }
+
+    /**
+     * @return A cursor pointing at the outer type of the inner type this cursor points at.
+     */
+    public PackedCursor getOuter() {
+        this.check(this.getTag() == INNER, "an inner type");
+        return PackedCursor.at(this.data, this.pool, this.position + 2);
+    }
+
+    /**
+     * @return The number of dimensions of the array type this cursor points at.
+     */
+    public int getDimensions() {
+        this.check(this.getTag() == ARRAY, "an array type");
+        return this.header() >>> 4;
+    }
+
+    /**
+     * @return A cursor pointing at the innermost element of the array type this cursor points at. Unlike
+     * {@link TypeArray#getType()}, the element is never another array type.
+     */
+    public PackedCursor getElement() {
+        this.check(this.getTag() == ARRAY, "an array type");
+        return PackedCursor.at(this.data, this.pool, this.position + 1);
+    }
+
+    /**
+     * @return A cursor pointing at the upper bound of the wildcard type this cursor points at, or null if it has no
+     * upper bound.
+     */
+    public PackedCursor getUpper() {
+        this.check(this.getTag() == WILD, "a wildcard type");
+        return (this.header() >>> 4 & UPPER) == 0 ? null : PackedCursor.at(this.data, this.pool, this.position + 1);
+    }
+
+    /**
+     * @return A cursor pointing at the lower bound of the wildcard type this cursor points at, or null if it has no
+     * lower bound.
+     */
+    public PackedCursor getLower() {
+        this.check(this.getTag() == WILD, "a wildcard type");
+        int flags = this.header() >>> 4;
+        if ((flags & LOWER) == 0) {
+            return null;
+        }
+        int start = (flags & UPPER) == 0 ? this.position + 1 : PackedCursor.skip(this.data, this.position + 1);
+        return PackedCursor.at(this.data, this.pool, start);
+    }
+
+    /**
+     * @return A cursor pointing at the class bound of the type variable this cursor points at.
+     */
+    public PackedCursor getClassBound() {
+        this.check(this.getTag() == VAR, "a type variable");
+        return PackedCursor.at(this.data, this.pool, this.position + 2);
+    }
+
+    /**
+     * @return The number of interface bounds of the type variable this cursor points at.
+     */
+    public int getInterBoundCount() {
+        this.check(this.getTag() == VAR, "a type variable");
+        return this.data[this.position + 1];
+    }
+
+    /**
+     * Gets an interface bound of the type variable this cursor points at.
+     *
+     * @param index The index of the interface bound.
+     * @return A cursor pointing at the interface bound.
+     */
+    public PackedCursor getInterBound(int index) {
+        return this.child(PackedCursor.skip(this.data, this.position + 2), index, this.getInterBoundCount());
+    }
+
+    /**
+     * Converts the part this cursor points at back into a (mutable) signature object.
+     *
+     * @return The signature object.
+     */
+    public TypeSignaturePart unpack() {
+        return PackedCursor.unpack(this.data, this.pool, this.position);
+    }
+
+    /**
+     * @return The formatted signature part, as it would appear in bytecode.
+     */
+    public String write() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            this.write(builder);
+        } catch (IOException e) {
+            //StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends the formatted signature part, as it would appear in bytecode, to the given output, without converting it
+     * into a signature object.
+     *
+     * @param out The output to append to.
+     * @throws IOException If the output throws an IOException.
+     */
+    public void write(Appendable out) throws IOException {
+        PackedCursor.write(this.data, this.pool, this.position, out);
+    }
+
+    static TypeSignaturePart unpack(int[] data, StringPool pool, int position) {
+        return (TypeSignaturePart) PackedCursor.unpackAll(data, pool, position, 1)[0];
+    }
+
+    static <T extends TypeSignaturePart> List<T> unpack(int[] data, StringPool pool, int position, int count) {
+        return CompactList.wrap(PackedCursor.unpackAll(data, pool, position, count));
+    }
+
+    private static Object[] unpackAll(int[] data, StringPool pool, int position, int count) {
+        //Every part is followed by its children, so the parts are built in reverse order, each from the already built
+        //children on top of a stack, rather than by recursing into each one
+        int[] positions = new int[Math.max(8, count)];
+        int size = 0;
+        int remaining = count;
+        while (remaining > 0) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+            remaining += PackedCursor.children(data, position) - 1;
+            position += PackedCursor.width(data[position]);
+        }
+
+        Object[] stack = new Object[size];
+        int top = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            int children = PackedCursor.children(data, positions[i]);
+            top -= children;
+            stack[top] = PackedCursor.build(data, pool, positions[i], stack, top, children);
+            top++;
+        }
+
+        //The parts themselves are left on the stack in reverse order too
+        Object[] parts = new Object[count];
+        for (int i = 0; i < count; i++) {
+            parts[i] = stack[count - 1 - i];
+        }
+        return parts;
+    }
+
+    private static TypeSignaturePart build(int[] data, StringPool pool, int position, Object[] stack, int top, int children) {
+        int header = data[position];
+        switch (header & 0xF) {
+            case NULL:
+                return null;
+            case PRIMITIVE:
+                return new TypeFill(SymbolTable.primitive((char) (header >>> 4)));
+            case CLASS_TYPE:
+                return new TypeFill(PackedCursor.type(pool, header));
+            case FILL:
+                return new TypeFill(PackedCursor.type(pool, header), PackedCursor.children(stack, top, children, 0));
+            case INNER: {
+                TypeFill outer = (TypeFill) PackedCursor.child(stack, top, children, 0);
+                return new TypeInner(PackedCursor.type(pool, header), outer, PackedCursor.children(stack, top, children, 1));
+            }
+            case ARRAY:
+                return TypeArray.create((TypeInformal) PackedCursor.child(stack, top, children, 0), header >>> 4);
+            case WILD: {
+                int flags = header >>> 4;
+                TypeInformal upper = (flags & UPPER) == 0 ? null : (TypeInformal) PackedCursor.child(stack, top, children, 0);
+                TypeInformal lower = (flags & LOWER) == 0 ? null : (TypeInformal) PackedCursor.child(stack, top, children, children - 1);
+                return new TypeWild(upper, lower);
+            }
+            case VAR_REF:
+                return new TypeVarRef(SymbolTable.shared().name(pool.get(header >>> 4)));
+            default: {
+                TypeInformal classBound = (TypeInformal) PackedCursor.child(stack, top, children, 0);
+                return new TypeVar(SymbolTable.shared().name(pool.get(header >>> 4)), classBound, PackedCursor.children(stack, top, children, 1));
+            }
+        }
+    }
+
+    private static Object child(Object[] stack, int top, int children, int index) {
+        //The children of a part were built in reverse order, so the first child is on top of the stack
+        return stack[top + children - 1 - index];
+    }
+
+    private static <T> List<T> children(Object[] stack, int top, int children, int from) {
+        Object[] parts = new Object[children - from];
+        for (int i = from; i < children; i++) {
+            parts[i - from] = PackedCursor.child(stack, top, children, i);
+        }
+        return CompactList.wrap(parts);
+    }
+
+    private static int children(int[] data, int position) {
+        int header = data[position];
+        switch (header & 0xF) {
+            case NULL:
+            case PRIMITIVE:
+            case CLASS_TYPE:
+            case VAR_REF:
+                return 0;
+            case FILL:
+                return data[position + 1];
+            case INNER:
+            case VAR:
+                //The outer class type or class bound, followed by the type arguments or interface bounds
+                return 1 + data[position + 1];
+            case ARRAY:
+                return 1;
+            case WILD:
+                return Integer.bitCount(header >>> 4);
+            default:
+                throw new IllegalStateException("Malformed packed signature: unknown tag " + (header & 0xF) + " at index " + position);
+        }
+    }
+
+    private static int width(int header) {
+        //The headers of parts with a variable number of children are followed by the count
+        int tag = header & 0xF;
+        return tag == FILL || tag == INNER || tag == VAR ? 2 : 1;
+    }
+
+    static void write(int[] data, StringPool pool, int position, Appendable out) throws IOException {
+        PackedCursor.write(data, pool, position, out, 0);
+    }
+
+    private static void write(int[] data, StringPool pool, int position, Appendable out, int depth) throws IOException {
+        if (depth >= MAX_DEPTH) {
+            //Deeper parts are unpacked without recursion, and written by the object model, which is itself stack safe
+            TypeSignaturePart part = PackedCursor.unpack(data, pool, position);
+            if (part != null) {
+                part.write(out);
+            }
+            return;
+        }
+
+        int header = data[position];
+        switch (header & 0xF) {
+            case NULL:
+                break;
+            case PRIMITIVE:
+                out.append((char) (header >>> 4));
+                break;
+            case CLASS_TYPE:
+            case FILL:
+            case INNER:
+                PackedCursor.writeBody(data, pool, position, out, depth);
+                out.append(';');
+                break;
+            case ARRAY:
+                for (int i = 0; i < header >>> 4; i++) {
+                    out.append('[');
+                }
+                PackedCursor.write(data, pool, position + 1, out, depth + 1);
+                break;
+            case WILD: {
+                int flags = header >>> 4;
+                if ((flags & UPPER) != 0) {
+                    out.append('+');
+                    PackedCursor.write(data, pool, position + 1, out, depth + 1);
+                } else if ((flags & LOWER) != 0) {
+                    out.append('-');
+                    PackedCursor.write(data, pool, position + 1, out, depth + 1);
+                } else {
+                    out.append('*');
+                }
+                break;
+            }
+            case VAR_REF:
+                out.append('T').append(pool.get(header >>> 4)).append(';');
+                break;
+            case VAR: {
+                out.append(pool.get(header >>> 4)).append(':');
+                PackedCursor.write(data, pool, position + 2, out, depth + 1);
+                int start = PackedCursor.skip(data, position + 2);
+                for (int i = 0; i < data[position + 1]; i++) {
+                    out.append(':');
+                    PackedCursor.write(data, pool, start, out, depth + 1);
+                    start = PackedCursor.skip(data, start);
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Malformed packed signature: unknown tag " + (header & 0xF) + " at index " + position);
+        }
+    }
+
+    private static void writeBody(int[] data, StringPool pool, int position, Appendable out, int depth) throws IOException {
+        int header = data[position];
+        int tag = header & 0xF;
+        int start = position + 2;
+        if (tag == INNER) {
+            if (depth >= MAX_DEPTH) {
+                //The body of a class type is everything but its closing semicolon
+                StringBuilder outer = new StringBuilder();
+                PackedCursor.unpack(data, pool, position + 2).write(outer);
+                out.append(outer, 0, outer.length() - 1);
+            } else {
+                PackedCursor.writeBody(data, pool, position + 2, out, depth + 1);
+            }
+            out.append('.').append(pool.get(header >>> 4));
+            start = PackedCursor.skip(data, position + 2);
+        } else {
+            String name = pool.get(header >>> 4);
+            if (name.charAt(0) == '[') {
+                //Array types only appear here if a filled type was created with one, so defer to the object model
+                Signatures.writeStart(SymbolTable.shared().objectType(name), out);
+            } else {
+                out.append('L').append(name);
+            }
+        }
+
+        if (tag != CLASS_TYPE && data[position + 1] != 0) {
+            out.append('<');
+            for (int i = 0; i < data[position + 1]; i++) {
+                PackedCursor.write(data, pool, start, out, depth + 1);
+                start = PackedCursor.skip(data, start);
+            }
+            out.append('>');
+        }
+    }
+
+    private static Type type(StringPool pool, int header) {
+        return SymbolTable.shared().objectType(pool.get(header >>> 4));
+    }
+
+    private PackedCursor child(int start, int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return PackedCursor.at(this.data, this.pool, PackedCursor.skip(this.data, start, index));
+    }
+
+    private int header() {
+        return this.data[this.position];
+    }
+
+    private void check(boolean condition, String expected) {
+        if (!condition) {
+            throw new IllegalStateException("Cursor does not point at " + expected + " (tag " + this.getTag() + ")");
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.packed;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+import org.objectweb.asm.Type;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Appends signature objects to a growable int array, in the packed format described by {@link PackedSignature}.
+ */
+class PackedEncoder {
+    private StringPool pool;
+    private int[] data;
+    private int size;
+    private Object[] stack;
+    private int top;
+
+    PackedEncoder(StringPool pool, int capacity) {
+        this.pool = pool;
+        this.data = new int[Math.max(capacity, 8)];
+        this.size = 0;
+        this.stack = new Object[16];
+        this.top = 0;
+    }
+
+    int[] getData() {
+        return this.data;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(this.data, this.size);
+    }
+
+    void truncate(int size) {
+        //Called after a failed encoding, which may have left parts on the stack
+        this.size = size;
+        Arrays.fill(this.stack, 0, this.top, null);
+        this.top = 0;
+    }
+
+    void trim() {
+        this.data = this.toArray();
+    }
+
+    void method(MethodSignature signature) {
+        //Most methods have neither generics nor exceptions, so their counts are only stored if either is present
+        if (signature.getGenerics().isEmpty() && signature.getExceptions().isEmpty()) {
+            this.put(PackedSignature.METHOD | signature.getParameters().size() << 5);
+        } else {
+            this.put(PackedSignature.METHOD | PackedSignature.EXTENDED | signature.getParameters().size() << 5);
+            this.put(signature.getGenerics().size() | signature.getExceptions().size() << 16);
+        }
+        this.parts(signature.getGenerics());
+        this.parts(signature.getParameters());
+        this.part(signature.getReturn());
+        this.parts(signature.getExceptions());
+    }
+
+    void type(ClassSignature signature) {
+        List<TypeVar> generics = signature.getGenerics();
+        this.put(PackedSignature.CLASS | this.name(signature.getName()) << 4);
+        this.put(generics.size() | signature.getInterfaces().size() << 16);
+        this.parts(generics);
+        this.part(signature.getSuperclass());
+        this.parts(signature.getInterfaces());
+    }
+
+    void part(TypeSignaturePart root) {
+        //Parts are encoded with an explicit stack rather than by recursion, so that deeply nested signature parts cannot
+        //overflow the stack of the calling thread; each entry is a part to encode, or a list of parts to encode in order
+        int base = this.top;
+        this.push(root);
+        while (this.top > base) {
+            Object item = this.stack[--this.top];
+            this.stack[this.top] = null;
+            if (item instanceof List) {
+                List<?> parts = (List<?>) item;
+                for (int i = parts.size() - 1; i >= 0; i--) {
+                    this.push(parts.get(i));
+                }
+            } else {
+                this.node((TypeSignaturePart) item);
+            }
+        }
+    }
+
+    private void node(TypeSignaturePart part) {
+        //Encodes the part itself, and pushes its children in reverse order, so that they are encoded in order
+        if (part == null) {
+            this.put(PackedCursor.NULL);
+            return;
+        }
+
+        switch (part.kind()) {
+            case FILL: {
+                TypeFill fill = (TypeFill) part;
+                Type type = fill.getType();
+                if (Signatures.isPrimitive(type)) {
+                    this.put(PackedCursor.PRIMITIVE | type.getDescriptor().charAt(0) << 4);
+                } else if (fill.getFill().isEmpty()) {
+                    this.put(PackedCursor.CLASS_TYPE | this.name(type) << 4);
+                } else {
+                    this.put(PackedCursor.FILL | this.name(type) << 4);
+                    this.put(fill.getFill().size());
+                    this.push(fill.getFill());
+                }
+                break;
+            }
+            case INNER: {
+                TypeInner inner = (TypeInner) part;
+                this.put(PackedCursor.INNER | this.name(inner.getType()) << 4);
+                this.put(inner.getFill().size());
+                this.push(inner.getFill());
+                this.push(inner.getOuter());
+                break;
+            }
+            case ARRAY: {
+                //Nested arrays are folded into a single node with a dimension count
+                TypeInformal element = (TypeInformal) part;
+                int dimensions = 0;
+                while (element.isArray()) {
+                    element = ((TypeArray) element).getType();
+                    dimensions++;
+                }
+                this.put(PackedCursor.ARRAY | dimensions << 4);
+                this.push(element);
+                break;
+            }
+            case WILD: {
+                TypeWild wild = (TypeWild) part;
+                this.put(PackedCursor.WILD | (wild.getUpper() != null ? 1 : 0) << 4 | (wild.getLower() != null ? 2 : 0) << 4);
+                if (wild.getLower() != null) {
+                    this.push(wild.getLower());
+                }
+                if (wild.getUpper() != null) {
+                    this.push(wild.getUpper());
+                }
+                break;
+            }
+            case VAR_REF:
+                this.put(PackedCursor.VAR_REF | this.pool.id(((TypeVarRef) part).getName()) << 4);
+                break;
+            case VAR: {
+                TypeVar var = (TypeVar) part;
+                this.put(PackedCursor.VAR | this.pool.id(var.getName()) << 4);
+                this.put(var.getInterBound().size());
+                this.push(var.getInterBound());
+                this.push(var.getClassBound());
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown signature part: " + part.getClass().getName());
+        }
+    }
+
+    private void parts(List<? extends TypeSignaturePart> parts) {
+        for (int i = 0; i < parts.size(); i++) {
+            this.part(parts.get(i));
+        }
+    }
+
+    private void push(Object item) {
+        if (this.top == this.stack.length) {
+            this.stack = Arrays.copyOf(this.stack, Math.max(16, this.top * 2));
+        }
+        this.stack[this.top++] = item;
+    }
+
+    private int name(Type type) {
+        if (type.getSort() == Type.METHOD) {
+            throw new IllegalArgumentException("Method types may not appear in signatures: " + type);
+        }
+        return this.pool.id(type.getInternalName());
+    }
+
+    private void put(int value) {
+        if (this.size == this.data.length) {
+            this.data = Arrays.copyOf(this.data, Math.max(this.size * 2, 8));
+        }
+        this.data[this.size++] = value;
+    }
+
+}
@@ -0,0 +1,387 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.packed;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * A method, class or type signature stored as a flat array of ints, instead of as a graph of signature objects. Every
+ * signature part is stored in pre-order as a header int, holding a 4 bit tag (see {@link PackedCursor}) and an
+ * operand, followed by any counts and then its children. A method signature without generics or exceptions only stores
+ * its parameter count. Names are stored as indices into a shared
+ * {@link StringPool}. A non-generic class type or a primitive type takes a single int, so a packed signature is many
+ * times smaller than the equivalent signature objects, and scanning it touches a single contiguous array.
+ * <p>
+ * Packed signatures are immutable, and can be converted to and from signature objects without loss, however deeply
+ * their parts are nested. Many packed signatures may share a single array, see {@link PackedSignatureStore}.
+ */
+public class PackedSignature {
+    static final int METHOD = 9;
+    static final int CLASS = 10;
+    static final int EXTENDED = 1 << 4;
+
+    private int[] data;
+    private StringPool pool;
+    private int offset;
+
+    PackedSignature(int[] data, StringPool pool, int offset) {
+        this.data = data;
+        this.pool = pool;
+        this.offset = offset;
+    }
+
+    /**
+     * Packs the given method signature.
+     *
+     * @param signature The method signature.
+     * @param pool The pool to store names in.
+     * @return The packed method signature.
+     */
+    public static PackedSignature pack(MethodSignature signature, StringPool pool) {
+        PackedEncoder encoder = new PackedEncoder(pool, 16);
+        encoder.method(signature);
+        return new PackedSignature(encoder.toArray(), pool, 0);
+    }
+
+    /**
+     * Packs the given class signature.
+     *
+     * @param signature The class signature.
+     * @param pool The pool to store names in.
+     * @return The packed class signature.
+     */
+    public static PackedSignature pack(ClassSignature signature, StringPool pool) {
+        PackedEncoder encoder = new PackedEncoder(pool, 16);
+        encoder.type(signature);
+        return new PackedSignature(encoder.toArray(), pool, 0);
+    }
+
+    /**
+     * Packs the given type signature.
+     *
+     * @param signature The type signature.
+     * @param pool The pool to store names in.
+     * @return The packed type signature.
+     */
+    public static PackedSignature pack(TypeInformal signature, StringPool pool) {
+        PackedEncoder encoder = new PackedEncoder(pool, 8);
+        encoder.part(signature);
+        return new PackedSignature(encoder.toArray(), pool, 0);
+    }
+
+    /**
+     * @return True if this is a packed method signature.
+     */
+    public boolean isMethod() {
+        return this.tag() == METHOD;
+    }
+
+    /**
+     * @return True if this is a packed class signature.
+     */
+    public boolean isClass() {
+        return this.tag() == CLASS;
+    }
+
+    /**
+     * @return True if this is a packed type signature.
+     */
+    public boolean isType() {
+        return !this.isMethod() && !this.isClass();
+    }
+
+    /**
+     * @return The number of formal type parameters of this method or class signature.
+     */
+    public int getGenericCount() {
+        this.checkSignature();
+        return this.hasCounts() ? this.data[this.offset + 1] & 0xFFFF : 0;
+    }
+
+    /**
+     * Gets a formal type parameter of this method or class signature. See {@link MethodSignature#getGenerics()} and
+     * {@link TypeParameterized#getParameters()}.
+     *
+     * @param index The index of the formal type parameter.
+     * @return A cursor pointing at the formal type parameter.
+     */
+    public PackedCursor getGeneric(int index) {
+        return this.child(this.body(), index, this.getGenericCount());
+    }
+
+    /**
+     * @return The number of parameters of this method signature.
+     */
+    public int getParameterCount() {
+        this.check(METHOD, "a method signature");
+        return this.data[this.offset] >>> 5;
+    }
+
+    /**
+     * Gets a parameter of this method signature. See {@link MethodSignature#getParameters()}.
+     *
+     * @param index The index of the parameter.
+     * @return A cursor pointing at the parameter.
+     */
+    public PackedCursor getParameter(int index) {
+        return this.child(this.skipGenerics(), index, this.getParameterCount());
+    }
+
+    /**
+     * @return A cursor pointing at the return type of this method signature. See {@link MethodSignature#getReturn()}.
+     */
+    public PackedCursor getReturn() {
+        return PackedCursor.at(this.data, this.pool, PackedCursor.skip(this.data, this.skipGenerics(), this.getParameterCount()));
+    }
+
+    /**
+     * @return The number of exceptions of this method signature.
+     */
+    public int getExceptionCount() {
+        this.check(METHOD, "a method signature");
+        return this.hasCounts() ? this.data[this.offset + 1] >>> 16 : 0;
+    }
+
+    /**
+     * Gets an exception of this method signature. See {@link MethodSignature#getExceptions()}.
+     *
+     * @param index The index of the exception.
+     * @return A cursor pointing at the exception.
+     */
+    public PackedCursor getException(int index) {
+        int start = PackedCursor.skip(this.data, this.skipGenerics(), this.getParameterCount() + 1);
+        return this.child(start, index, this.getExceptionCount());
+    }
+
+    /**
+     * @return The internal name of the class this class signature belongs to.
+     */
+    public String getName() {
+        this.check(CLASS, "a class signature");
+        return this.pool.get(this.data[this.offset] >>> 4);
+    }
+
+    /**
+     * @return The type of the class this class signature belongs to. See {@link ClassSignature#getType()}.
+     */
+    public Type getType() {
+        return SymbolTable.shared().objectType(this.getName());
+    }
+
+    /**
+     * @return A cursor pointing at the superclass of this class signature. See {@link ClassSignature#getSuperclass()}.
+     */
+    public PackedCursor getSuperclass() {
+        this.check(CLASS, "a class signature");
+        return PackedCursor.at(this.data, this.pool, this.skipGenerics());
+    }
+
+    /**
+     * @return The number of interfaces of this class signature.
+     */
+    public int getInterfaceCount() {
+        this.check(CLASS, "a class signature");
+        return this.data[this.offset + 1] >>> 16;
+    }
+
+    /**
+     * Gets an interface of this class signature. See {@link ClassSignature#getInterfaces()}.
+     *
+     * @param index The index of the interface.
+     * @return A cursor pointing at the interface.
+     */
+    public PackedCursor getInterface(int index) {
+        return this.child(PackedCursor.skip(this.data, this.skipGenerics()), index, this.getInterfaceCount());
+    }
+
+    /**
+     * @return A cursor pointing at the root of this type signature.
+     */
+    public PackedCursor getRoot() {
+        if (!this.isType()) {
+            throw new IllegalStateException("Packed signature is not a type signature");
+        }
+        return PackedCursor.at(this.data, this.pool, this.offset);
+    }
+
+    /**
+     * @return The number of ints this packed signature occupies.
+     */
+    public int getLength() {
+        if (this.isType()) {
+            return PackedCursor.skip(this.data, this.offset) - this.offset;
+        }
+        int count = this.isMethod() ? this.getParameterCount() + 1 + this.getExceptionCount() : 1 + this.getInterfaceCount();
+        return PackedCursor.skip(this.data, this.skipGenerics(), count) - this.offset;
+    }
+
+    /**
+     * Converts this packed method signature back into a (mutable) {@link MethodSignature}.
+     *
+     * @return The method signature.
+     */
+    public MethodSignature unpackMethod() {
+        this.check(METHOD, "a method signature");
+        int position = this.body();
+        List<TypeVar> generics = PackedCursor.unpack(this.data, this.pool, position, this.getGenericCount());
+        position = PackedCursor.skip(this.data, position, this.getGenericCount());
+        List<TypeInformal> paras = PackedCursor.unpack(this.data, this.pool, position, this.getParameterCount());
+        position = PackedCursor.skip(this.data, position, this.getParameterCount());
+        TypeInformal ret = (TypeInformal) PackedCursor.unpack(this.data, this.pool, position);
+        position = PackedCursor.skip(this.data, position);
+        return new MethodSignature(generics, paras, ret, PackedCursor.unpack(this.data, this.pool, position, this.getExceptionCount()));
+    }
+
+    /**
+     * Converts this packed class signature back into a (mutable) {@link ClassSignature}.
+     *
+     * @return The class signature.
+     */
+    public ClassSignature unpackClass() {
+        this.check(CLASS, "a class signature");
+        List<TypeVar> generics = PackedCursor.unpack(this.data, this.pool, this.body(), this.getGenericCount());
+        int position = this.skipGenerics();
+        TypeFill superclass = (TypeFill) PackedCursor.unpack(this.data, this.pool, position);
+        position = PackedCursor.skip(this.data, position);
+        return new ClassSignature(new TypeParameterized(this.getType(), generics), superclass, PackedCursor.unpack(this.data, this.pool, position, this.getInterfaceCount()));
+    }
+
+    /**
+     * Converts this packed type signature back into a (mutable) {@link TypeInformal}.
+     *
+     * @return The type signature.
+     */
+    public TypeInformal unpackType() {
+        return (TypeInformal) this.getRoot().unpack();
+    }
+
+    /**
+     * @return The formatted signature, as it would appear in bytecode.
+     */
+    public String write() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            this.write(builder);
+        } catch (IOException e) {
+            //StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends the formatted signature, as it would appear in bytecode, to the given output, without converting it into
+     * signature objects.
+     *
+     * @param out The output to append to.
+     * @throws IOException If the output throws an IOException.
+     */
+    public void write(Appendable out) throws IOException {
+        if (this.isType()) {
+            PackedCursor.write(this.data, this.pool, this.offset, out);
+            return;
+        }
+
+        int position = this.body();
+        if (this.getGenericCount() != 0) {
+            out.append('<');
+            for (int i = 0; i < this.getGenericCount(); i++) {
+                PackedCursor.write(this.data, this.pool, position, out);
+                position = PackedCursor.skip(this.data, position);
+            }
+            out.append('>');
+        }
+
+        if (this.isMethod()) {
+            out.append('(');
+            for (int i = 0; i < this.getParameterCount(); i++) {
+                PackedCursor.write(this.data, this.pool, position, out);
+                position = PackedCursor.skip(this.data, position);
+            }
+            out.append(')');
+            PackedCursor.write(this.data, this.pool, position, out);
+            position = PackedCursor.skip(this.data, position);
+            for (int i = 0; i < this.getExceptionCount(); i++) {
+                out.append('^');
+                PackedCursor.write(this.data, this.pool, position, out);
+                position = PackedCursor.skip(this.data, position);
+            }
+        } else {
+            for (int i = 0; i <= this.getInterfaceCount(); i++) {
+                PackedCursor.write(this.data, this.pool, position, out);
+                position = PackedCursor.skip(this.data, position);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.write();
+    }
+
+    private boolean hasCounts() {
+        return this.isClass() || (this.data[this.offset] & EXTENDED) != 0;
+    }
+
+    private int body() {
+        return this.hasCounts() ? this.offset + 2 : this.offset + 1;
+    }
+
+    private int skipGenerics() {
+        return PackedCursor.skip(this.data, this.body(), this.getGenericCount());
+    }
+
+    private PackedCursor child(int start, int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return PackedCursor.at(this.data, this.pool, PackedCursor.skip(this.data, start, index));
+    }
+
+    private int tag() {
+        return this.data[this.offset] & 0xF;
+    }
+
+    private void checkSignature() {
+        if (this.isType()) {
+            throw new IllegalStateException("Packed signature is not a method or class signature");
+        }
+    }
+
+    private void check(int tag, String expected) {
+        if (this.tag() != tag) {
+            throw new IllegalStateException("Packed signature is not " + expected);
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.packed;
+
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+
+import java.util.Arrays;
+
+/**
+ * An append-only collection of packed signatures, which are all stored in a single int array and share a single
+ * {@link StringPool}. Apart from the array itself, each signature only costs a single int offset, which makes this
+ * class suitable for holding the signatures of an entire classpath. Signatures are identified by the index returned
+ * when they are added. Adding signatures is not thread safe, but {@link PackedSignature}s obtained from this store stay
+ * valid while more signatures are added.
+ */
+public class PackedSignatureStore {
+    private StringPool pool;
+    private PackedEncoder encoder;
+    private int[] offsets;
+    private int size;
+
+    /**
+     * Creates a new, empty packed signature store with its own string pool.
+     */
+    public PackedSignatureStore() {
+        this(new StringPool());
+    }
+
+    /**
+     * Creates a new, empty packed signature store which stores names in the given string pool.
+     *
+     * @param pool The string pool.
+     */
+    public PackedSignatureStore(StringPool pool) {
+        this.pool = pool;
+        this.encoder = new PackedEncoder(pool, 1024);
+        this.offsets = new int[128];
+        this.size = 0;
+    }
+
+    /**
+     * Packs and adds the given method signature.
+     *
+     * @param signature The method signature.
+     * @return The index of the packed signature.
+     */
+    public int add(MethodSignature signature) {
+        int start = this.encoder.size();
+        try {
+            this.encoder.method(signature);
+        } catch (RuntimeException e) {
+            this.encoder.truncate(start);
+            throw e;
+        }
+        return this.commit(start);
+    }
+
+    /**
+     * Packs and adds the given class signature.
+     *
+     * @param signature The class signature.
+     * @return The index of the packed signature.
+     */
+    public int add(ClassSignature signature) {
+        int start = this.encoder.size();
+        try {
+            this.encoder.type(signature);
+        } catch (RuntimeException e) {
+            this.encoder.truncate(start);
+            throw e;
+        }
+        return this.commit(start);
+    }
+
+    /**
+     * Packs and adds the given type signature.
+     *
+     * @param signature The type signature.
+     * @return The index of the packed signature.
+     */
+    public int add(TypeInformal signature) {
+        int start = this.encoder.size();
+        try {
+            this.encoder.part(signature);
+        } catch (RuntimeException e) {
+            this.encoder.truncate(start);
+            throw e;
+        }
+        return this.commit(start);
+    }
+
+    /**
+     * Gets the packed signature with the given index.
+     *
+     * @param index The index.
+     * @return The packed signature.
+     */
+    public PackedSignature get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        }
+        return new PackedSignature(this.encoder.getData(), this.pool, this.offsets[index]);
+    }
+
+    /**
+     * @return The number of signatures in this store.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The total number of ints used by the signatures in this store.
+     */
+    public int getLength() {
+        return this.encoder.size();
+    }
+
+    /**
+     * @return The string pool of this store.
+     */
+    public StringPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Releases any spare capacity held by this store. This is intended to be called once all signatures have been
+     * added.
+     */
+    public void trim() {
+        this.encoder.trim();
+        this.offsets = Arrays.copyOf(this.offsets, this.size);
+    }
+
+    private int commit(int start) {
+        if (this.size == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, Math.max(this.size * 2, 16));
+        }
+        this.offsets[this.size] = start;
+        return this.size++;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.packed;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A pool of strings, such as internal names and type variable names, which are referenced by index from packed
+ * signatures (see {@link PackedSignature}). Each distinct string is stored once, and keeps its index for the lifetime of
+ * the pool. This class is thread safe; adding strings is synchronized, but looking strings up by index never locks.
+ */
+public class StringPool {
+    private Map<String, Integer> ids;
+    //The array is replaced when it grows, and the size is only published after the string has been stored
+    private volatile String[] strings;
+    private volatile int size;
+
+    /**
+     * Creates a new, empty string pool.
+     */
+    public StringPool() {
+        this.ids = new HashMap<>();
+        this.strings = new String[64];
+        this.size = 0;
+    }
+
+    /**
+     * Gets the index of the given string, adding it to this pool if it is not yet present.
+     *
+     * @param string The string.
+     * @return The index of the string.
+     */
+    public synchronized int id(String string) {
+        Integer id = this.ids.get(string);
+        if (id == null) {
+            int size = this.size;
+            String[] strings = this.strings;
+            if (size == strings.length) {
+                strings = Arrays.copyOf(strings, size * 2);
+                this.strings = strings;
+            }
+            strings[size] = string;
+            id = size;
+            this.ids.put(string, id);
+            this.size = size + 1;
+        }
+        return id;
+    }
+
+    /**
+     * Gets the string with the given index.
+     *
+     * @param id The index.
+     * @return The string.
+     * @throws IndexOutOfBoundsException If no string with the given index exists in this pool.
+     */
+    public String get(int id) {
+        //The size is read first, so every string below it is visible in the array read after it
+        int size = this.size;
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No string with index " + id + " in pool of size " + size);
+        }
+        return this.strings[id];
+    }
+
+    /**
+     * @return The number of strings in this pool.
+     */
+    public int size() {
+        return this.size;
+    }
+
+}
@@ -0,0 +1,483 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.parser;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInner;
+import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+import org.objectweb.asm.Type;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single-pass parser for class, method and type signatures. The parser reads the signature string exactly once and
+ * builds the signature objects directly, without going through ASM's {@code SignatureReader} and a chain of visitors.
+ * Nested type arguments are tracked on an explicit stack rather than by recursion, so signatures nested arbitrarily
+ * deep are parsed without overflowing the stack of the calling thread. Types and type variable names are resolved through a {@link SymbolTable}, so parsed
+ * signatures share canonical instances of them. The children of every node are stored in exactly sized, unmodifiable
+ * lists (see {@link CompactList}), and empty children share a single empty list. The parser is lenient by default; a
+ * strict parser first validates the signature with a {@link SignatureValidator}. Each parser instance parses exactly
+ * one signature, and is not thread safe.
+ */
+public class SignatureParser {
+    private static final char EOF = '\uffff';
+    private static final Object[] EMPTY = new Object[0];
+    private static final Frame[] NO_FRAMES = new Frame[0];
+
+    private SymbolTable symbols;
+    private String signature;
+    private int length;
+    private int index;
+    private Object[] stack;
+    private int top;
+    private Frame[] frames;
+    private int depth;
+    private boolean strict;
+    private int nodes;
+
+    /**
+     * Creates a new parser for the given signature, which uses the {@link SymbolTable#shared() shared} symbol table.
+     *
+     * @param signature The signature to parse.
+     */
+    public SignatureParser(String signature) {
+        this(signature, SymbolTable.shared());
+    }
+
+    /**
+     * Creates a new parser for the given signature, which uses the given symbol table.
+     *
+     * @param signature The signature to parse.
+     * @param symbols The symbol table to resolve types and names through.
+     */
+    public SignatureParser(String signature, SymbolTable symbols) {
+        this(signature, symbols, false);
+    }
+
+    /**
+     * Creates a new parser for the given signature, which uses the given symbol table. A strict parser validates the
+     * signature with a {@link SignatureValidator} before parsing it, so that signatures which do not conform to the
+     * grammar of the JVM specification are rejected rather than parsed leniently.
+     *
+     * @param signature The signature to parse.
+     * @param symbols The symbol table to resolve types and names through.
+     * @param strict True if the signature should be validated before it is parsed.
+     */
+    public SignatureParser(String signature, SymbolTable symbols, boolean strict) {
+        this.strict = strict;
+        this.symbols = symbols;
+        this.signature = signature;
+        this.length = signature.length();
+        this.index = 0;
+        this.stack = EMPTY;
+        this.top = 0;
+        this.frames = NO_FRAMES;
+        this.depth = 0;
+    }
+
+    /**
+     * Parses the signature as a class signature.
+     *
+     * @param type The type of the class the signature belongs to.
+     * @return The parsed class signature.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public ClassSignature parseClass(Type type) {
+        if (this.strict) {
+            SignatureValidator validator = new SignatureValidator(this.signature);
+            this.validate(validator, validator.validateClass());
+        }
+
+        List<TypeVar> parameters = Collections.emptyList();
+        if (this.peek() == '<') {
+            this.index++;
+            parameters = this.readTypeVars();
+        }
+
+        TypeParameterized parameterized = new TypeParameterized(type, parameters);
+        this.nodes++;
+        TypeFill superclass = this.readClassType();
+        int start = this.top;
+        while (this.index < this.length) {
+            this.push(this.readClassType());
+        }
+        return new ClassSignature(parameterized, superclass, this.pop(start));
+    }
+
+    /**
+     * Parses the signature as a method signature.
+     *
+     * @return The parsed method signature.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public MethodSignature parseMethod() {
+        if (this.strict) {
+            SignatureValidator validator = new SignatureValidator(this.signature);
+            this.validate(validator, validator.validateMethod());
+        }
+
+        List<TypeVar> generics = Collections.emptyList();
+        if (this.peek() == '<') {
+            this.index++;
+            generics = this.readTypeVars();
+        }
+
+        this.expect('(', "'('");
+        int start = this.top;
+        while (this.peek() != ')') {
+            this.push(this.readType());
+        }
+        this.index++;
+        List<TypeInformal> paras = this.pop(start);
+        TypeInformal ret = this.readType();
+
+        start = this.top;
+        while (this.peek() == '^') {
+            this.index++;
+            this.push(this.readType());
+        }
+        return new MethodSignature(generics, paras, ret, this.pop(start));
+    }
+
+    /**
+     * Parses the signature as a type signature.
+     *
+     * @return The parsed type.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public TypeInformal parseType() {
+        if (this.strict) {
+            SignatureValidator validator = new SignatureValidator(this.signature);
+            this.validate(validator, validator.validateType());
+        }
+        return this.readType();
+    }
+
+    /**
+     * Parses the type which starts at the given index of the signature, such as a single parameter of a method
+     * signature. Parsing stops at the end of the type; the rest of the signature is neither parsed nor validated, even
+     * by a strict parser.
+     *
+     * @param index The index the type starts at.
+     * @return The parsed type.
+     * @throws IllegalArgumentException If the type is malformed.
+     */
+    public TypeInformal parseType(int index) {
+        this.index = index;
+        return this.readType();
+    }
+
+    /**
+     * Parses the class type which starts at the given index of the signature, such as the superclass of a class
+     * signature. Parsing stops at the end of the class type; the rest of the signature is neither parsed nor validated,
+     * even by a strict parser.
+     *
+     * @param index The index the class type starts at.
+     * @return The parsed class type.
+     * @throws IllegalArgumentException If the class type is malformed.
+     */
+    public TypeFill parseClassType(int index) {
+        this.index = index;
+        return this.readClassType();
+    }
+
+    /**
+     * Parses the formal type parameter which starts at the given index of the signature, that is, at the first
+     * character of its name. Parsing stops at the end of the formal type parameter; the rest of the signature is
+     * neither parsed nor validated, even by a strict parser.
+     *
+     * @param index The index the formal type parameter starts at.
+     * @return The parsed formal type parameter.
+     * @throws IllegalArgumentException If the formal type parameter is malformed.
+     */
+    public TypeVar parseTypeVar(int index) {
+        this.index = index;
+        return this.readTypeVar();
+    }
+
+    /**
+     * @return The number of signature parts built by this parser so far, counting every dimension of an array type
+     * and the type of a class signature as a signature part.
+     */
+    public int getNodeCount() {
+        return this.nodes;
+    }
+
+    private List<TypeVar> readTypeVars() {
+        int start = this.top;
+        do {
+            this.push(this.readTypeVar());
+        } while (this.peek() != '>');
+        this.index++;
+        return this.pop(start);
+    }
+
+    private TypeVar readTypeVar() {
+        String name = this.readIdentifier(':');
+        this.index++;
+
+        TypeInformal classBound = null;
+        char c = this.peek();
+        if (c == 'L' || c == '[' || c == 'T') {
+            classBound = this.readType();
+        }
+
+        int start = this.top;
+        while (this.peek() == ':') {
+            this.index++;
+            this.push(this.readType());
+        }
+        List<TypeInformal> interBound = this.pop(start);
+        this.nodes++;
+        return new TypeVar(name, classBound, interBound);
+    }
+
+    private TypeInformal readType() {
+        //Class types with type arguments are parsed with an explicit stack of frames, rather than by recursion, so that
+        //deeply nested type arguments cannot overflow the stack of the calling thread
+        int base = this.depth;
+        TypeInformal type = this.readTypeStart();
+        while (true) {
+            if (type == null) {
+                //The innermost open class type is waiting for its next type argument
+                Frame frame = this.frames[this.depth - 1];
+                char c = this.peek();
+                if (c == '*') {
+                    this.index++;
+                    this.nodes++;
+                    type = new TypeWild(null, null);
+                } else {
+                    if (c == '+' || c == '-') {
+                        this.index++;
+                        this.nodes++;
+                        frame.wildcard = c;
+                    }
+                    type = this.readTypeStart();
+                }
+            } else if (this.depth == base) {
+                return type;
+            } else {
+                //The type is complete, and is a type argument of the innermost open class type
+                Frame frame = this.frames[this.depth - 1];
+                if (frame.wildcard != 0) {
+                    type = frame.wildcard == '+' ? new TypeWild(type, null) : new TypeWild(null, type);
+                    frame.wildcard = 0;
+                }
+                this.push(type);
+
+                if (this.peek() == '>') {
+                    this.index++;
+                    type = this.readSegments(frame, this.pop(frame.start));
+                } else {
+                    type = null;
+                }
+            }
+        }
+    }
+
+    private TypeInformal readTypeStart() {
+        //Reads a whole type, unless it is a class type with type arguments, in which case a frame is opened for it and
+        //null is returned
+        int dimensions = 0;
+        while (this.peek() == '[') {
+            this.index++;
+            dimensions++;
+        }
+
+        TypeInformal type;
+        char c = this.peek();
+        switch (c) {
+            case 'L':
+                this.index++;
+                return this.readSegments(this.open(dimensions, this.symbols.objectType(this.readName())), null);
+            case 'T':
+                this.index++;
+                type = new TypeVarRef(this.readIdentifier(';'));
+                this.index++;
+                this.nodes++;
+                break;
+            default:
+                type = new TypeFill(this.readBaseType(c));
+                this.index++;
+                this.nodes++;
+                break;
+        }
+        this.nodes += dimensions;
+
+        return dimensions == 0 ? type : TypeArray.create(type, dimensions);
+    }
+
+    private TypeFill readClassType() {
+        if (this.peek() != 'L') {
+            throw this.error(this.index, "'L'");
+        }
+        return (TypeFill) this.readType();
+    }
+
+    private TypeInformal readSegments(Frame frame, List<TypeInformal> fill) {
+        //Reads the rest of the class type of the given frame, up to and including its closing semicolon, and closes the
+        //frame; a null fill means the type arguments of the current segment have not been read yet. If a segment has
+        //type arguments, the frame is left open for them, and null is returned
+        while (true) {
+            char c = this.next();
+            if (fill == null) {
+                if (c == '<') {
+                    frame.start = this.top;
+                    return null;
+                }
+                fill = Collections.emptyList();
+            }
+
+            TypeFill result = frame.outer == null ? new TypeFill(frame.type, fill) : new TypeInner(frame.type, frame.outer, fill);
+            this.nodes++;
+            if (c == ';') {
+                int dimensions = frame.dimensions;
+                frame.type = null;
+                frame.outer = null;
+                this.depth--;
+                this.nodes += dimensions;
+                return dimensions == 0 ? result : TypeArray.create(result, dimensions);
+            } else if (c == '.') {
+                frame.type = this.symbols.objectType(this.readName());
+                frame.outer = result;
+                fill = null;
+            } else {
+                throw this.error(this.index - 1, fill.isEmpty() ? "'<', '.' or ';'" : "'.' or ';'");
+            }
+        }
+    }
+
+    private Frame open(int dimensions, Type type) {
+        if (this.depth == this.frames.length) {
+            this.frames = Arrays.copyOf(this.frames, Math.max(4, this.depth * 2));
+        }
+        Frame frame = this.frames[this.depth];
+        if (frame == null) {
+            frame = this.frames[this.depth] = new Frame();
+        }
+        this.depth++;
+        frame.dimensions = dimensions;
+        frame.type = type;
+        frame.outer = null;
+        frame.wildcard = 0;
+        return frame;
+    }
+
+    private Type readBaseType(char c) {
+        Type type = SymbolTable.primitive(c);
+        if (type == null) {
+            throw this.error(this.index, "a type");
+        }
+        return type;
+    }
+
+    private String readName() {
+        int start = this.index;
+        while (this.index < this.length) {
+            char c = this.signature.charAt(this.index);
+            if (c == '<' || c == '.' || c == ';') {
+                break;
+            }
+            this.index++;
+        }
+
+        if (start == this.index) {
+            throw this.error(start, "a class name");
+        }
+        return this.signature.substring(start, this.index);
+    }
+
+    private String readIdentifier(char end) {
+        int i = this.signature.indexOf(end, this.index);
+        if (i <= this.index) {
+            throw this.error(this.index, "an identifier followed by '" + end + "'");
+        }
+        String identifier = this.symbols.name(this.signature.substring(this.index, i));
+        this.index = i;
+        return identifier;
+    }
+
+    private void push(Object part) {
+        if (this.top == this.stack.length) {
+            //The stack is only allocated once a child is pushed, as parsing a single primitive or plain class type does not need one
+            this.stack = Arrays.copyOf(this.stack, Math.max(16, this.top * 2));
+        }
+        this.stack[this.top++] = part;
+    }
+
+    private <T> List<T> pop(int start) {
+        //Children are collected on a shared stack, and copied into an exactly sized array once they are all known
+        List<T> parts = CompactList.wrap(Arrays.copyOfRange(this.stack, start, this.top));
+        Arrays.fill(this.stack, start, this.top, null);
+        this.top = start;
+        return parts;
+    }
+
+    private void expect(char c, String expected) {
+        if (this.peek() != c) {
+            throw this.error(this.index, expected);
+        }
+        this.index++;
+    }
+
+    private char peek() {
+        return this.index < this.length ? this.signature.charAt(this.index) : EOF;
+    }
+
+    private char next() {
+        char c = this.peek();
+        this.index++;
+        return c;
+    }
+
+    private void validate(SignatureValidator validator, boolean valid) {
+        if (!valid) {
+            throw new IllegalArgumentException(validator.getMessage());
+        }
+    }
+
+    private IllegalArgumentException error(int index, String expected) {
+        return new IllegalArgumentException("Malformed signature \"" + this.signature + "\": expected " + expected + " at index " + index);
+    }
+
+    private static class Frame {
+        //An open class type: the array dimensions around it, the name and outer class type of its current segment, where
+        //the type arguments of that segment start on the stack, and the wildcard prefix of the argument being read
+        private int dimensions;
+        private Type type;
+        private TypeFill outer;
+        private int start;
+        private char wildcard;
+    }
+
+}
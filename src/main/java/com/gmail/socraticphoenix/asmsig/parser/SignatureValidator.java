@@ -0,0 +1,447 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.parser;
+
+import java.util.Arrays;
+
+/**
+ * A streaming validator for the class, method and field signature grammars of the JVM specification (JVMS 4.7.9.1).
+ * The validator reads the signature exactly once, in linear time, and builds no objects; it does not throw on
+ * malformed signatures, but records the index of the first error and a description of what was expected there, so bulk
+ * scanners can reject malformed signatures cheaply. It is stricter than {@link SignatureParser}: identifiers must be
+ * nonempty and must not contain any of {@code . ; [ / < > :} (except for the {@code /} separating the segments of a
+ * package), arrays may have at most 255 dimensions, and nothing may follow the end of the signature. The validator can
+ * also index a signature while validating it, recording the index each top level component starts at, so that the
+ * components can later be parsed one at a time (see {@link SignatureParser#parseType(int)}). Each validator validates
+ * exactly one signature, and is not thread safe.
+ */
+public class SignatureValidator {
+    private static final char EOF = '\uffff';
+    private static final int MAX_DIMENSIONS = 255;
+
+    private String signature;
+    private int length;
+    private int index;
+    private int errorIndex;
+    private String expected;
+    private int[] marks;
+    private int marked;
+    private int[] sections;
+
+    /**
+     * Creates a new validator for the given signature.
+     *
+     * @param signature The signature to validate.
+     */
+    public SignatureValidator(String signature) {
+        this.signature = signature;
+        this.length = signature.length();
+        this.index = 0;
+        this.errorIndex = -1;
+    }
+
+    /**
+     * Checks if the given signature is a valid class signature.
+     *
+     * @param signature The signature.
+     * @return True if the signature is valid, false otherwise.
+     */
+    public static boolean isValidClass(String signature) {
+        return new SignatureValidator(signature).validateClass();
+    }
+
+    /**
+     * Checks if the given signature is a valid method signature.
+     *
+     * @param signature The signature.
+     * @return True if the signature is valid, false otherwise.
+     */
+    public static boolean isValidMethod(String signature) {
+        return new SignatureValidator(signature).validateMethod();
+    }
+
+    /**
+     * Checks if the given signature is a valid field signature.
+     *
+     * @param signature The signature.
+     * @return True if the signature is valid, false otherwise.
+     */
+    public static boolean isValidField(String signature) {
+        return new SignatureValidator(signature).validateField();
+    }
+
+    /**
+     * Validates the signature as a class signature.
+     *
+     * @return True if the signature is valid, false otherwise.
+     */
+    public boolean validateClass() {
+        if (this.peek() == '<' && !this.typeParameters()) {
+            return false;
+        }
+        this.section(0);
+        this.mark();
+        if (!this.classType()) {
+            return false;
+        }
+        while (this.index < this.length) {
+            this.mark();
+            if (!this.classType()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates the signature as a method signature.
+     *
+     * @return True if the signature is valid, false otherwise.
+     */
+    public boolean validateMethod() {
+        if (this.peek() == '<' && !this.typeParameters()) {
+            return false;
+        }
+        this.section(0);
+        if (!this.expect('(', "'('")) {
+            return false;
+        }
+        while (this.peek() != ')') {
+            this.mark();
+            if (this.peek() == EOF) {
+                return this.fail(this.index, "a type or ')'");
+            } else if (!this.javaType()) {
+                return false;
+            }
+        }
+        this.index++;
+        this.section(1);
+
+        this.mark();
+        if (this.peek() == 'V') {
+            this.index++;
+        } else if (!this.javaType()) {
+            return false;
+        }
+
+        while (this.peek() == '^') {
+            this.index++;
+            this.mark();
+            char c = this.peek();
+            if (c != 'L' && c != 'T') {
+                return this.fail(this.index, "a class type or type variable");
+            } else if (c == 'L' ? !this.classType() : !this.typeVariable()) {
+                return false;
+            }
+        }
+        return this.end();
+    }
+
+    /**
+     * Validates the signature as a field signature, which must be a reference type.
+     *
+     * @return True if the signature is valid, false otherwise.
+     */
+    public boolean validateField() {
+        return this.referenceType() && this.end();
+    }
+
+    /**
+     * Validates the signature as a type signature, which may be a reference type or a primitive type. This is the
+     * grammar accepted by {@link SignatureParser#parseType()}.
+     *
+     * @return True if the signature is valid, false otherwise.
+     */
+    public boolean validateType() {
+        return this.javaType() && this.end();
+    }
+
+    /**
+     * Validates the signature as a class signature, and indexes its top level components. The returned index holds the
+     * number of formal type parameters and the number of interfaces, followed by the index each formal type parameter,
+     * the superclass and each interface starts at, in order.
+     *
+     * @return The index of the signature, or null if the signature is invalid.
+     */
+    public int[] indexClass() {
+        this.startIndexing();
+        if (!this.validateClass()) {
+            return null;
+        }
+        return this.finishIndexing(this.sections[0], this.marked - this.sections[0] - 1);
+    }
+
+    /**
+     * Validates the signature as a method signature, and indexes its top level components. The returned index holds
+     * the number of formal type parameters, the number of parameters and the number of exceptions, followed by the
+     * index each formal type parameter, each parameter, the return type and each exception starts at, in order.
+     *
+     * @return The index of the signature, or null if the signature is invalid.
+     */
+    public int[] indexMethod() {
+        this.startIndexing();
+        if (!this.validateMethod()) {
+            return null;
+        }
+        return this.finishIndexing(this.sections[0], this.sections[1] - this.sections[0], this.marked - this.sections[1] - 1);
+    }
+
+    /**
+     * @return The index of the first error, or -1 if no error has been found.
+     */
+    public int getErrorIndex() {
+        return this.errorIndex;
+    }
+
+    /**
+     * @return A description of what was expected at the index of the first error, or null if no error has been found.
+     */
+    public String getExpected() {
+        return this.expected;
+    }
+
+    /**
+     * @return A message describing the first error, in the same format as the exceptions thrown by
+     * {@link SignatureParser}, or null if no error has been found.
+     */
+    public String getMessage() {
+        return this.errorIndex < 0 ? null : "Malformed signature \"" + this.signature + "\": expected " + this.expected + " at index " + this.errorIndex;
+    }
+
+    private boolean typeParameters() {
+        this.index++;
+        do {
+            this.mark();
+            if (!this.identifier() || !this.expect(':', "':'")) {
+                return false;
+            }
+            char c = this.peek();
+            if ((c == 'L' || c == '[' || c == 'T') && !this.referenceType()) {
+                return false;
+            }
+            while (this.peek() == ':') {
+                this.index++;
+                if (!this.referenceType()) {
+                    return false;
+                }
+            }
+        } while (this.peek() != '>');
+        this.index++;
+        return true;
+    }
+
+    private boolean javaType() {
+        char c = this.peek();
+        if (isBase(c)) {
+            this.index++;
+            return true;
+        } else if (c != 'L' && c != 'T' && c != '[') {
+            return this.fail(this.index, "a type");
+        }
+        return this.referenceType();
+    }
+
+    private boolean referenceType() {
+        //Type arguments are tracked with a nesting depth rather than by recursion, so that deeply nested type arguments
+        //cannot overflow the stack of the calling thread
+        int depth = 0;
+        while (true) {
+            int start = this.index;
+            while (this.peek() == '[') {
+                this.index++;
+            }
+            if (this.index - start > MAX_DIMENSIONS) {
+                return this.fail(start, "at most " + MAX_DIMENSIONS + " array dimensions");
+            }
+
+            //Whether the rest of a class type, after its name or type arguments, is still to be read
+            boolean segments;
+            char c = this.peek();
+            if (c == 'L') {
+                if (!this.className()) {
+                    return false;
+                }
+                segments = true;
+            } else if (c == 'T') {
+                if (!this.typeVariable()) {
+                    return false;
+                }
+                segments = false;
+            } else if (this.index > start && isBase(c)) {
+                this.index++;
+                segments = false;
+            } else {
+                return this.fail(this.index, this.index > start ? "a type" : "a reference type");
+            }
+
+            //Whether the current segment of the class type has already had its type arguments
+            boolean closed = false;
+            while (true) {
+                if (segments) {
+                    c = this.peek();
+                    if (c == ';') {
+                        this.index++;
+                        segments = false;
+                        continue;
+                    } else if (c == '.') {
+                        this.index++;
+                        closed = false;
+                        if (!this.identifier()) {
+                            return false;
+                        }
+                        continue;
+                    } else if (c != '<' || closed) {
+                        return this.fail(this.index, "'<', '.' or ';'");
+                    }
+                    this.index++;
+                    depth++;
+                } else if (depth == 0) {
+                    return true;
+                } else if (this.peek() == '>') {
+                    this.index++;
+                    depth--;
+                    segments = true;
+                    closed = true;
+                    continue;
+                }
+
+                //The next type argument of the innermost class type
+                c = this.peek();
+                if (c == '*') {
+                    this.index++;
+                    segments = false;
+                    continue;
+                } else if (c == '+' || c == '-') {
+                    this.index++;
+                }
+                break;
+            }
+        }
+    }
+
+    private boolean classType() {
+        return this.peek() == 'L' ? this.referenceType() : this.fail(this.index, "'L'");
+    }
+
+    private boolean className() {
+        this.index++;
+
+        //The package specifier and the outermost simple name, separated by slashes
+        if (!this.identifier()) {
+            return false;
+        }
+        while (this.peek() == '/') {
+            this.index++;
+            if (!this.identifier()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean typeVariable() {
+        this.index++;
+        return this.identifier() && this.expect(';', "';'");
+    }
+
+    private boolean identifier() {
+        int start = this.index;
+        while (this.index < this.length) {
+            char c = this.signature.charAt(this.index);
+            if (c == '.' || c == ';' || c == '[' || c == '/' || c == '<' || c == '>' || c == ':') {
+                break;
+            }
+            this.index++;
+        }
+        return this.index > start || this.fail(start, "an identifier");
+    }
+
+    private void startIndexing() {
+        this.marks = new int[8];
+        this.marked = 0;
+        this.sections = new int[2];
+    }
+
+    private int[] finishIndexing(int... counts) {
+        int[] index = new int[counts.length + this.marked];
+        System.arraycopy(counts, 0, index, 0, counts.length);
+        System.arraycopy(this.marks, 0, index, counts.length, this.marked);
+        return index;
+    }
+
+    private void mark() {
+        //Only top level components are marked, nested types are validated by the private methods without marking
+        if (this.marks != null) {
+            if (this.marked == this.marks.length) {
+                this.marks = Arrays.copyOf(this.marks, this.marked * 2);
+            }
+            this.marks[this.marked++] = this.index;
+        }
+    }
+
+    private void section(int section) {
+        if (this.sections != null) {
+            this.sections[section] = this.marked;
+        }
+    }
+
+    private boolean expect(char c, String expected) {
+        if (this.peek() != c) {
+            return this.fail(this.index, expected);
+        }
+        this.index++;
+        return true;
+    }
+
+    private boolean end() {
+        return this.index == this.length || this.fail(this.index, "the end of the signature");
+    }
+
+    private char peek() {
+        return this.index < this.length ? this.signature.charAt(this.index) : EOF;
+    }
+
+    private boolean fail(int index, String expected) {
+        if (this.errorIndex < 0) {
+            this.errorIndex = index;
+            this.expected = expected;
+        }
+        return false;
+    }
+
+    private static boolean isBase(char c) {
+        switch (c) {
+            case 'B':
+            case 'C':
+            case 'D':
+            case 'F':
+            case 'I':
+            case 'J':
+            case 'S':
+            case 'Z':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+}
@@ -0,0 +1,495 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.remap;
+
+import com.gmail.socraticphoenix.asmsig.io.ModifiedUtf8;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.ClassRemapper;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Remaps every class of a jar according to a table of internal class names, and writes the result to a new jar. Class
+ * names, descriptors and signatures are remapped with a {@link MappingRemapper}, so inner class segments of signatures
+ * are looked up by their binary names, such as {@code a/Outer$Inner}, consistently with the entry names, descriptors
+ * and InnerClasses attributes. Remapped signatures and descriptors are memoized for the lifetime of the jar remapper, so a
+ * signature shared by many classes, or many jars, is only remapped once.
+ * <p>
+ * Entries are processed in parallel on a {@link ForkJoinPool}, and written in their original order. The constant pool
+ * of every class is checked for names in the table before the class is remapped, and entries which are left unchanged,
+ * such as resources and classes which do not reference any remapped name, are copied into the output jar as their raw
+ * compressed bytes, without being inflated or deflated again. At most a fixed number of entries are held in memory at
+ * any time. Only the classes are remapped; resources, such as manifests and service files, are copied as they are.
+ * ZIP64 archives are not supported.
+ */
+public class JarRemapper {
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_HEADER = 0x06054b50;
+    private static final int ENCRYPTED = 0x1;
+    private static final int DATA_DESCRIPTOR = 0x8;
+    private static final int UTF8 = 0x800;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private Map<String, String> mapping;
+    private ForkJoinPool pool;
+    private int capacity;
+    private MemoizingRemapper remapper;
+
+    /**
+     * Creates a new jar remapper which remaps on the common fork-join pool.
+     *
+     * @param mapping The table of internal class names to remap, mapped to their new internal names.
+     */
+    public JarRemapper(Map<String, String> mapping) {
+        this(mapping, ForkJoinPool.commonPool(), 256);
+    }
+
+    /**
+     * Creates a new jar remapper.
+     *
+     * @param mapping The table of internal class names to remap, mapped to their new internal names.
+     * @param pool The pool to remap entries on.
+     * @param capacity The maximum number of entries which may be held in memory at any time.
+     */
+    public JarRemapper(Map<String, String> mapping, ForkJoinPool pool, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.mapping = mapping;
+        this.pool = pool;
+        this.capacity = capacity;
+        this.remapper = new MemoizingRemapper(type -> {
+            String name = mapping.get(type.getInternalName());
+            return name == null ? type : Type.getObjectType(name);
+        });
+    }
+
+    /**
+     * @return The remapper used to remap classes, which memoizes remapped signatures and descriptors.
+     */
+    public MappingRemapper getRemapper() {
+        return this.remapper;
+    }
+
+    /**
+     * Remaps the given jar into the given output jar. A class entry is renamed if the class it contains is renamed.
+     * This method blocks until every entry has been written, and fails with the first exception encountered.
+     *
+     * @param input The jar to remap.
+     * @param output The path to write the remapped jar to.
+     * @throws IOException If the input jar could not be read, or the output jar could not be written.
+     * @throws IllegalArgumentException If a class file is malformed.
+     */
+    public void remap(Path input, Path output) throws IOException {
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ);
+             OutputStream stream = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+            Archive archive = JarRemapper.readCentralDirectory(channel);
+            Output out = new Output(stream);
+            ArrayDeque<Future<Entry>> pending = new ArrayDeque<>();
+            try {
+                for (Entry entry : archive.entries) {
+                    pending.add(this.pool.submit(() -> this.process(channel, entry)));
+                    if (pending.size() >= this.capacity) {
+                        out.writeLocal(JarRemapper.await(pending.poll()));
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    out.writeLocal(JarRemapper.await(pending.poll()));
+                }
+            } finally {
+                pending.forEach(f -> f.cancel(false));
+            }
+            out.writeCentralDirectory(archive);
+        }
+    }
+
+    private Entry process(FileChannel channel, Entry entry) throws IOException {
+        ByteBuffer header = JarRemapper.read(channel, entry.offset, 30);
+        if (header.getInt(0) != LOCAL_HEADER) {
+            throw new IOException("Malformed zip file: bad local header for " + entry.getName());
+        }
+        long start = entry.offset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        entry.data = JarRemapper.read(channel, start, (int) entry.compressedSize).array();
+
+        String name = entry.getName();
+        if (!name.endsWith(".class") || (entry.flags & ENCRYPTED) != 0 || (entry.method != STORED && entry.method != DEFLATED)) {
+            return entry;
+        }
+
+        try {
+            byte[] bytes = entry.method == STORED ? entry.data : JarRemapper.inflate(entry.data, entry.size);
+            ClassReader reader = new ClassReader(bytes);
+            if (!this.references(reader, bytes)) {
+                return entry;
+            }
+
+            ClassWriter writer = new ClassWriter(0);
+            reader.accept(new ClassRemapper(writer, this.remapper), 0);
+            String className = reader.getClassName();
+            if (name.endsWith(className + ".class")) {
+                name = name.substring(0, name.length() - className.length() - 6) + this.remapper.map(className) + ".class";
+            }
+            entry.deflate(name, writer.toByteArray());
+            return entry;
+        } catch (DataFormatException | RuntimeException e) {
+            throw new IllegalArgumentException("Failed to remap " + name, e);
+        }
+    }
+
+    private boolean references(ClassReader reader, byte[] bytes) {
+        //Scans every UTF-8 constant for anything that may be a remapped name; false positives are only remapped in vain
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            if (offset != 0 && bytes[offset - 1] == 1) {
+                String utf = ModifiedUtf8.decode(buffer, offset + 2, reader.readUnsignedShort(offset));
+                int start = 0;
+                for (int j = 0; j <= utf.length(); j++) {
+                    char c = j < utf.length() ? utf.charAt(j) : ';';
+                    if (c == ';' || c == '<' || c == '>' || c == '.' || c == '[') {
+                        if (j > start && this.references(utf, start, j)) {
+                            return true;
+                        }
+                        start = j + 1;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean references(String utf, int start, int end) {
+        if (this.mapping.containsKey(utf.substring(start, end))) {
+            return true;
+        }
+        for (int i = utf.indexOf('L', start); i >= 0 && i < end - 1; i = utf.indexOf('L', i + 1)) {
+            if (this.mapping.containsKey(utf.substring(i + 1, end))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Archive readCentralDirectory(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int tail = (int) Math.min(size, 22 + 0xFFFF);
+        ByteBuffer buffer = JarRemapper.read(channel, size - tail, tail);
+        int end = -1;
+        for (int i = tail - 22; i >= 0; i--) {
+            if (buffer.getInt(i) == END_HEADER) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new IOException("Malformed zip file: no end of central directory record");
+        }
+
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long directorySize = buffer.getInt(end + 12) & 0xFFFFFFFFL;
+        long directoryOffset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            throw new IOException("ZIP64 archives are not supported");
+        }
+
+        Archive archive = new Archive();
+        archive.comment = new byte[buffer.getShort(end + 20) & 0xFFFF];
+        ((ByteBuffer) buffer.position(end + 22)).get(archive.comment);
+
+        ByteBuffer directory = JarRemapper.read(channel, directoryOffset, (int) directorySize);
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (directory.getInt(position) != CENTRAL_HEADER) {
+                throw new IOException("Malformed zip file: bad central directory entry");
+            }
+            Entry entry = new Entry();
+            entry.versionMadeBy = directory.getShort(position + 4);
+            entry.versionNeeded = directory.getShort(position + 6);
+            entry.flags = directory.getShort(position + 8) & ~DATA_DESCRIPTOR;
+            entry.method = directory.getShort(position + 10) & 0xFFFF;
+            entry.time = directory.getInt(position + 12);
+            entry.crc = directory.getInt(position + 16);
+            entry.compressedSize = directory.getInt(position + 20) & 0xFFFFFFFFL;
+            entry.size = directory.getInt(position + 24) & 0xFFFFFFFFL;
+            entry.internalAttributes = directory.getShort(position + 36);
+            entry.externalAttributes = directory.getInt(position + 38);
+            entry.offset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+            if (entry.compressedSize == 0xFFFFFFFFL || entry.size == 0xFFFFFFFFL || entry.offset == 0xFFFFFFFFL) {
+                throw new IOException("ZIP64 archives are not supported");
+            }
+
+            entry.name = new byte[directory.getShort(position + 28) & 0xFFFF];
+            entry.extra = new byte[directory.getShort(position + 30) & 0xFFFF];
+            entry.comment = new byte[directory.getShort(position + 32) & 0xFFFF];
+            directory.position(position + 46);
+            directory.get(entry.name).get(entry.extra).get(entry.comment);
+            position = directory.position();
+            archive.entries.add(entry);
+        }
+        return archive;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of zip file");
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    private static byte[] inflate(byte[] data, long size) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            byte[] bytes = new byte[(int) size];
+            int length = 0;
+            while (length < bytes.length && !inflater.finished()) {
+                int read = inflater.inflate(bytes, length, bytes.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != bytes.length) {
+                throw new DataFormatException("Inflated size does not match the size in the central directory");
+            }
+            return bytes;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Entry await(Future<Entry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while remapping");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static class Archive {
+        private List<Entry> entries = new ArrayList<>();
+        private byte[] comment;
+
+    }
+
+    private static class Entry {
+        private short versionMadeBy;
+        private short versionNeeded;
+        private int flags;
+        private int method;
+        private int time;
+        private int crc;
+        private long compressedSize;
+        private long size;
+        private short internalAttributes;
+        private int externalAttributes;
+        private long offset;
+        private byte[] name;
+        private byte[] extra;
+        private byte[] comment;
+        private byte[] data;
+
+        private String getName() {
+            return new String(this.name, (this.flags & UTF8) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+        }
+
+        private void deflate(String name, byte[] bytes) {
+            if (!name.equals(this.getName())) {
+                this.name = name.getBytes(StandardCharsets.UTF_8);
+                this.flags |= UTF8;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(bytes);
+                deflater.finish();
+                byte[] data = new byte[bytes.length + bytes.length / 1000 + 64];
+                int length = 0;
+                while (!deflater.finished()) {
+                    if (length == data.length) {
+                        data = Arrays.copyOf(data, data.length * 2);
+                    }
+                    length += deflater.deflate(data, length, data.length - length);
+                }
+                this.data = Arrays.copyOf(data, length);
+            } finally {
+                deflater.end();
+            }
+
+            this.method = DEFLATED;
+            this.versionNeeded = (short) Math.max(this.versionNeeded, 20);
+            this.crc = (int) crc.getValue();
+            this.compressedSize = this.data.length;
+            this.size = bytes.length;
+        }
+
+    }
+
+    private static class Output {
+        private OutputStream out;
+        private long position;
+        private ByteBuffer buffer;
+
+        private Output(OutputStream out) {
+            this.out = out;
+            this.buffer = ByteBuffer.allocate(46).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private void writeLocal(Entry entry) throws IOException {
+            long offset = this.position;
+            this.buffer.clear();
+            this.buffer.putInt(LOCAL_HEADER).putShort(entry.versionNeeded).putShort((short) entry.flags).putShort((short) entry.method)
+                    .putInt(entry.time).putInt(entry.crc).putInt((int) entry.compressedSize).putInt((int) entry.size)
+                    .putShort((short) entry.name.length).putShort((short) 0);
+            this.write(this.buffer.array(), this.buffer.position());
+            this.write(entry.name, entry.name.length);
+            this.write(entry.data, entry.data.length);
+            entry.data = null;
+            entry.offset = offset;
+        }
+
+        private void writeCentralDirectory(Archive archive) throws IOException {
+            long start = this.position;
+            for (Entry entry : archive.entries) {
+                this.buffer.clear();
+                this.buffer.putInt(CENTRAL_HEADER).putShort(entry.versionMadeBy).putShort(entry.versionNeeded).putShort((short) entry.flags)
+                        .putShort((short) entry.method).putInt(entry.time).putInt(entry.crc).putInt((int) entry.compressedSize)
+                        .putInt((int) entry.size).putShort((short) entry.name.length).putShort((short) entry.extra.length)
+                        .putShort((short) entry.comment.length).putShort((short) 0).putShort(entry.internalAttributes)
+                        .putInt(entry.externalAttributes).putInt((int) entry.offset);
+                this.write(this.buffer.array(), this.buffer.position());
+                this.write(entry.name, entry.name.length);
+                this.write(entry.extra, entry.extra.length);
+                this.write(entry.comment, entry.comment.length);
+            }
+
+            long size = this.position - start;
+            this.buffer.clear();
+            this.buffer.putInt(END_HEADER).putShort((short) 0).putShort((short) 0).putShort((short) archive.entries.size())
+                    .putShort((short) archive.entries.size()).putInt((int) size).putInt((int) start).putShort((short) archive.comment.length);
+            this.write(this.buffer.array(), this.buffer.position());
+            this.write(archive.comment, archive.comment.length);
+        }
+
+        private void write(byte[] bytes, int length) throws IOException {
+            if (this.position + length > 0xFFFFFFFFL) {
+                throw new IOException("ZIP64 archives are not supported");
+            }
+            this.out.write(bytes, 0, length);
+            this.position += length;
+        }
+
+    }
+
+    private static class MemoizingRemapper extends MappingRemapper {
+        private Map<String, String> signatures;
+        private Map<String, String> descriptors;
+
+        private MemoizingRemapper(Function<Type, Type> mapper) {
+            super(mapper);
+            this.signatures = new ConcurrentHashMap<>();
+            this.descriptors = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public String mapSignature(String signature, boolean typeSignature) {
+            if (signature == null) {
+                return null;
+            }
+
+            String mapped = this.signatures.get(signature);
+            if (mapped == null) {
+                mapped = super.mapSignature(signature, typeSignature);
+                this.signatures.put(signature, mapped);
+            }
+            return mapped;
+        }
+
+        @Override
+        public String mapDesc(String desc) {
+            String mapped = this.descriptors.get(desc);
+            if (mapped == null) {
+                mapped = super.mapDesc(desc);
+                this.descriptors.put(desc, mapped);
+            }
+            return mapped;
+        }
+
+        @Override
+        public String mapMethodDesc(String desc) {
+            String mapped = this.descriptors.get(desc);
+            if (mapped == null) {
+                mapped = super.mapMethodDesc(desc);
+                this.descriptors.put(desc, mapped);
+            }
+            return mapped;
+        }
+
+    }
+
+}
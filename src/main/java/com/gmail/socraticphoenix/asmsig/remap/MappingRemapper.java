@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.remap;
+
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.Remapper;
+
+import java.util.function.Function;
+
+/**
+ * A {@link Remapper} which remaps signatures with a {@link SignatureRemapper}, so that signatures are remapped in a
+ * single pass over the signature string, without going through ASM's signature reader and writer. Class names are
+ * either remapped with a mapper, or, in subclasses, by overriding {@link MappingRemapper#map(String)}; signatures are
+ * remapped consistently with the class names in both cases. Inner class segments of signatures are mapped by their
+ * binary names, such as {@code a/Outer$Inner}, as ASM's own remapper does (see
+ * {@link SignatureRemapper#SignatureRemapper(Function, boolean)}), so that remapped signatures name the same classes as
+ * the remapped descriptors and InnerClasses attributes of a class file.
+ */
+public class MappingRemapper extends Remapper {
+    private Function<Type, Type> mapper;
+    private SignatureRemapper signatures;
+
+    /**
+     * Creates a new remapper with the given mapper.
+     *
+     * @param mapper The mapper to apply to class types.
+     */
+    public MappingRemapper(Function<Type, Type> mapper) {
+        this.mapper = mapper;
+        this.signatures = new SignatureRemapper(mapper, true);
+    }
+
+    /**
+     * Creates a new remapper for subclasses which remap class names by overriding {@link MappingRemapper#map(String)}.
+     */
+    protected MappingRemapper() {
+        this.signatures = new SignatureRemapper(type -> {
+            String name = this.map(type.getInternalName());
+            return name.equals(type.getInternalName()) ? type : Type.getObjectType(name);
+        }, true);
+    }
+
+    @Override
+    public String map(String internalName) {
+        if (this.mapper == null) {
+            return internalName;
+        }
+
+        Type type = Type.getObjectType(internalName);
+        Type mapped = this.mapper.apply(type);
+        return mapped.equals(type) ? internalName : mapped.getInternalName();
+    }
+
+    @Override
+    public String mapSignature(String signature, boolean typeSignature) {
+        return this.signatures.remap(signature);
+    }
+
+}
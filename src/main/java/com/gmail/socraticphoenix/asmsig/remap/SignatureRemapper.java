@@ -0,0 +1,311 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.remap;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * Remaps class, method and type signatures from string to string, without building any signature objects. The
+ * signature is scanned exactly once, and the mapper is only called for the names of class types; the unchanged spans
+ * between them are copied as they are, and the original string is returned if no name changes. The output is the same
+ * as that of parsing the signature, calling {@code map} and writing the result: the outermost name of a class type is
+ * mapped as an object type with its full internal name, and every inner {@code .Name} segment is mapped as an object
+ * type with just its simple name, like {@link com.gmail.socraticphoenix.asmsig.type.TypeInner}. Unlike {@code map},
+ * primitive types are never passed to the mapper.
+ * <p>
+ * Class files name inner classes by their binary names, such as {@code a/Outer$Inner}, in their descriptors and
+ * InnerClasses attributes, so a remapper for class files can instead look up inner segments by their binary names (see
+ * {@link SignatureRemapper#SignatureRemapper(Function, boolean)}), as ASM's own
+ * {@link org.objectweb.asm.commons.Remapper#mapSignature(String, boolean)} does. Instances of this class are thread safe
+ * if the mapper is.
+ */
+public class SignatureRemapper {
+    private static final char EOF = '\uffff';
+
+    private Function<Type, Type> mapper;
+    private boolean binaryNames;
+
+    /**
+     * Creates a new signature remapper with the given mapper, which maps inner class segments by their simple names.
+     *
+     * @param mapper The mapper to apply to class types.
+     */
+    public SignatureRemapper(Function<Type, Type> mapper) {
+        this(mapper, false);
+    }
+
+    /**
+     * Creates a new signature remapper with the given mapper. If binary names are used, each inner {@code .Name} segment
+     * is mapped as an object type with its binary name, that is the unmapped name of its outer class type followed by
+     * {@code $} and the segment, and the segment is replaced by the part of the mapped binary name after the mapped name
+     * of the outer class type and {@code $}, or after its last {@code $} if the mapped binary name does not start with
+     * them. Otherwise, inner segments are mapped by their simple names.
+     *
+     * @param mapper The mapper to apply to class types.
+     * @param binaryNames True if inner class segments should be mapped by their binary names.
+     */
+    public SignatureRemapper(Function<Type, Type> mapper, boolean binaryNames) {
+        this.mapper = mapper;
+        this.binaryNames = binaryNames;
+    }
+
+    /**
+     * Remaps the given class, method or type signature.
+     *
+     * @param signature The signature, may be null.
+     * @return The remapped signature, which is the given string itself if no class type changed, or null if the
+     * signature is null.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public String remap(String signature) {
+        if (signature == null) {
+            return null;
+        }
+
+        Remapping remapping = new Remapping(signature);
+        try {
+            remapping.readSignature();
+        } catch (IOException e) {
+            //StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
+        }
+        return remapping.result();
+    }
+
+    private class Remapping {
+        private String signature;
+        private int length;
+        private int index;
+        private StringBuilder out;
+        private int copied;
+
+        public Remapping(String signature) {
+            this.signature = signature;
+            this.length = signature.length();
+        }
+
+        void readSignature() throws IOException {
+            if (this.peek() == '<') {
+                this.index++;
+                this.readTypeVars();
+            }
+
+            if (this.peek() == '(') {
+                this.index++;
+                while (this.peek() != ')') {
+                    this.readType();
+                }
+                this.index++;
+                this.readType();
+                while (this.peek() == '^') {
+                    this.index++;
+                    this.readType();
+                }
+                this.expectEnd();
+            } else {
+                do {
+                    this.readType();
+                } while (this.index < this.length);
+            }
+        }
+
+        String result() {
+            if (this.out == null) {
+                return this.signature;
+            }
+            return this.out.append(this.signature, this.copied, this.length).toString();
+        }
+
+        private void readTypeVars() throws IOException {
+            do {
+                this.skipIdentifier(':');
+                this.index++;
+                char c = this.peek();
+                if (c == 'L' || c == '[' || c == 'T') {
+                    this.readType();
+                }
+                while (this.peek() == ':') {
+                    this.index++;
+                    this.readType();
+                }
+            } while (this.peek() != '>');
+            this.index++;
+        }
+
+        private void readType() throws IOException {
+            while (this.peek() == '[') {
+                this.index++;
+            }
+
+            char c = this.peek();
+            if (c == 'L') {
+                this.readClassType();
+            } else if (c == 'T') {
+                this.index++;
+                this.skipIdentifier(';');
+                this.index++;
+            } else if (SymbolTable.primitive(c) != null) {
+                this.index++;
+            } else {
+                throw this.error(this.index, "a type");
+            }
+        }
+
+        private void readClassType() throws IOException {
+            int start = this.index;
+            this.index++;
+            String name = this.readName();
+            Type type = this.map(start, name, true);
+            //The unmapped and mapped binary names of the class type read so far
+            String mappedName = type == null ? name : type.getInternalName();
+            while (true) {
+                char c = this.next();
+                if (c == '<') {
+                    this.readTypeArguments();
+                    c = this.next();
+                }
+
+                if (c == ';') {
+                    if (type != null && Signatures.isPrimitive(type)) {
+                        //A class type mapped to a primitive type is written without its terminator
+                        this.replace(this.index - 1, this.index);
+                    }
+                    return;
+                } else if (c == '.') {
+                    int segmentStart = this.index - 1;
+                    String segment = this.readName();
+                    if (SignatureRemapper.this.binaryNames) {
+                        name = name + '$' + segment;
+                        mappedName = this.mapBinary(segmentStart, name, mappedName, segment);
+                        type = null;
+                    } else {
+                        type = this.map(segmentStart, segment, false);
+                    }
+                } else {
+                    throw this.error(this.index - 1, "'<', '.' or ';'");
+                }
+            }
+        }
+
+        private String readName() {
+            int nameStart = this.index;
+            while (this.index < this.length) {
+                char c = this.signature.charAt(this.index);
+                if (c == '<' || c == '.' || c == ';') {
+                    break;
+                }
+                this.index++;
+            }
+
+            if (nameStart == this.index) {
+                throw this.error(nameStart, "a class name");
+            }
+            return this.signature.substring(nameStart, this.index);
+        }
+
+        private String mapBinary(int start, String name, String mappedOuter, String segment) {
+            String mapped = SignatureRemapper.this.mapper.apply(Type.getObjectType(name)).getInternalName();
+            String mappedSegment = mapped.length() > mappedOuter.length() && mapped.startsWith(mappedOuter) && mapped.charAt(mappedOuter.length()) == '$'
+                    ? mapped.substring(mappedOuter.length() + 1) : mapped.substring(mapped.lastIndexOf('$') + 1);
+            if (!mappedSegment.equals(segment)) {
+                this.replace(start, this.index).append('.').append(mappedSegment);
+            }
+            return mapped;
+        }
+
+        private Type map(int start, String name, boolean outer) throws IOException {
+            Type type = Type.getObjectType(name);
+            Type mapped = SignatureRemapper.this.mapper.apply(type);
+            if (mapped.equals(type)) {
+                return null;
+            }
+
+            StringBuilder out = this.replace(start, this.index);
+            if (outer) {
+                Signatures.writeStart(mapped, out);
+            } else {
+                out.append('.').append(mapped.getInternalName());
+            }
+            return mapped;
+        }
+
+        private void readTypeArguments() throws IOException {
+            do {
+                char c = this.peek();
+                if (c == '*') {
+                    this.index++;
+                } else {
+                    if (c == '+' || c == '-') {
+                        this.index++;
+                    }
+                    this.readType();
+                }
+            } while (this.peek() != '>');
+            this.index++;
+        }
+
+        private StringBuilder replace(int start, int end) {
+            if (this.out == null) {
+                this.out = new StringBuilder(this.length + 16);
+            }
+            this.out.append(this.signature, this.copied, start);
+            this.copied = end;
+            return this.out;
+        }
+
+        private void skipIdentifier(char end) {
+            int i = this.signature.indexOf(end, this.index);
+            if (i <= this.index) {
+                throw this.error(this.index, "an identifier followed by '" + end + "'");
+            }
+            this.index = i;
+        }
+
+        private void expectEnd() {
+            if (this.index != this.length) {
+                throw this.error(this.index, "the end of the signature");
+            }
+        }
+
+        private char peek() {
+            return this.index < this.length ? this.signature.charAt(this.index) : SignatureRemapper.EOF;
+        }
+
+        private char next() {
+            char c = this.peek();
+            this.index++;
+            return c;
+        }
+
+        private IllegalArgumentException error(int index, String expected) {
+            return new IllegalArgumentException("Malformed signature \"" + this.signature + "\": expected " + expected + " at index " + index);
+        }
+
+    }
+
+}
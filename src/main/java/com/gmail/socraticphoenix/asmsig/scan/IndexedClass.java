@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.scan;
+
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The signatures of a single class and its members, as stored in a {@link SignatureIndex}. Methods and fields are keyed
+ * by their name and descriptor. Indexed classes are immutable.
+ */
+public class IndexedClass {
+    private String name;
+    private ClassSignature signature;
+    private Map<String, MethodSignature> methods;
+    private Map<String, TypeInformal> fields;
+    private int rank;
+
+    /**
+     * Creates a new indexed class. The member maps must be keyed by {@link IndexedClass#key(String, String)}.
+     *
+     * @param name The internal name of the class.
+     * @param signature The class signature.
+     * @param methods The method signatures of the class.
+     * @param fields The field types of the class.
+     */
+    public IndexedClass(String name, ClassSignature signature, Map<String, MethodSignature> methods, Map<String, TypeInformal> fields) {
+        this(name, signature, methods, fields, Integer.MAX_VALUE);
+    }
+
+    IndexedClass(String name, ClassSignature signature, Map<String, MethodSignature> methods, Map<String, TypeInformal> fields, int rank) {
+        this.name = name;
+        this.signature = signature;
+        this.methods = Collections.unmodifiableMap(methods);
+        this.fields = Collections.unmodifiableMap(fields);
+        this.rank = rank;
+    }
+
+    /**
+     * Creates the key of a member with the given name and descriptor.
+     *
+     * @param name The name of the member.
+     * @param desc The descriptor of the member.
+     * @return The key of the member.
+     */
+    public static String key(String name, String desc) {
+        //';' may not appear in member names, so the key is unambiguous
+        return name + ';' + desc;
+    }
+
+    /**
+     * @return The internal name of this class.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return The class signature of this class.
+     */
+    public ClassSignature getSignature() {
+        return this.signature;
+    }
+
+    /**
+     * Gets the signature of the method with the given name and descriptor.
+     *
+     * @param name The name of the method.
+     * @param desc The descriptor of the method.
+     * @return The method signature, or null if no such method exists.
+     */
+    public MethodSignature getMethod(String name, String desc) {
+        return this.methods.get(IndexedClass.key(name, desc));
+    }
+
+    /**
+     * Gets the type of the field with the given name and descriptor.
+     *
+     * @param name The name of the field.
+     * @param desc The descriptor of the field.
+     * @return The field type, or null if no such field exists.
+     */
+    public TypeInformal getField(String name, String desc) {
+        return this.fields.get(IndexedClass.key(name, desc));
+    }
+
+    /**
+     * @return An unmodifiable view of the method signatures of this class, keyed by {@link IndexedClass#key(String, String)}.
+     */
+    public Map<String, MethodSignature> getMethods() {
+        return this.methods;
+    }
+
+    /**
+     * @return An unmodifiable view of the field types of this class, keyed by {@link IndexedClass#key(String, String)}.
+     */
+    public Map<String, TypeInformal> getFields() {
+        return this.fields;
+    }
+
+    int getRank() {
+        return this.rank;
+    }
+
+}
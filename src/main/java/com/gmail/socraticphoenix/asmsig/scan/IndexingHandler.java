@@ -0,0 +1,80 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.scan;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.cache.SignatureCache;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A signature handler which parses the frozen signatures reported by a {@link SignatureExtractor}, and adds them to a
+ * {@link SignatureIndex} once the class has been read. Classes without any signatures are not added.
+ */
+class IndexingHandler implements SignatureHandler {
+    private SignatureIndex index;
+    private SignatureCache cache;
+    private int rank;
+
+    private String name;
+    private ClassSignature signature;
+    private Map<String, MethodSignature> methods;
+    private Map<String, TypeInformal> fields;
+
+    IndexingHandler(SignatureIndex index, SignatureCache cache, int rank) {
+        this.index = index;
+        this.cache = cache;
+        this.rank = rank;
+        this.methods = new HashMap<>();
+        this.fields = new HashMap<>();
+    }
+
+    @Override
+    public void visitField(String owner, String name, String desc, String signature) {
+        this.name = owner;
+        this.fields.put(IndexedClass.key(name, desc), this.cache != null ? this.cache.parseType(signature) : Signatures.parseType(signature).freeze());
+    }
+
+    @Override
+    public void visitMethod(String owner, String name, String desc, String signature) {
+        this.name = owner;
+        this.methods.put(IndexedClass.key(name, desc), this.cache != null ? this.cache.parseMethod(signature) : Signatures.parseMethod(signature).freeze());
+    }
+
+    @Override
+    public void visitClass(String name, String signature) {
+        this.name = name;
+        this.signature = this.cache != null ? this.cache.parseClass(name, signature) : Signatures.parseClass(name, signature).freeze();
+    }
+
+    @Override
+    public void visitEnd() {
+        if (this.name != null) {
+            this.index.add(new IndexedClass(this.name, this.signature, this.methods, this.fields, this.rank));
+        }
+    }
+
+}
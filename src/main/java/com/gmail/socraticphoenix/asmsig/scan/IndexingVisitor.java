@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.scan;
+
+import com.gmail.socraticphoenix.asmsig.builder.ClassSignatureBuilder;
+import com.gmail.socraticphoenix.asmsig.builder.MethodSignatureBuilder;
+import com.gmail.socraticphoenix.asmsig.builder.TypeSignatureBuilder;
+import com.gmail.socraticphoenix.asmsig.cache.SignatureCache;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A class visitor which collects the frozen signatures of a class and its members, and adds them to a
+ * {@link SignatureIndex} once the class has been visited.
+ */
+class IndexingVisitor extends ClassVisitor implements Opcodes {
+    private SignatureIndex index;
+    private SignatureCache cache;
+    private int rank;
+
+    private String name;
+    private ClassSignature signature;
+    private Map<String, MethodSignature> methods;
+    private Map<String, TypeInformal> fields;
+
+    IndexingVisitor(SignatureIndex index, SignatureCache cache, int rank) {
+        super(ASM5);
+        this.index = index;
+        this.cache = cache;
+        this.rank = rank;
+        this.methods = new HashMap<>();
+        this.fields = new HashMap<>();
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        this.name = name;
+        this.signature = new ClassSignatureBuilder(this.cache).submitSignature(name, signature).submitSuper(superName).submitInterfaces(interfaces).get().freeze();
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+        this.fields.put(IndexedClass.key(name, desc), new TypeSignatureBuilder(this.cache).submitSignature(signature).submitDesc(desc).get().freeze());
+        return null;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+        this.methods.put(IndexedClass.key(name, desc), new MethodSignatureBuilder(this.cache).submitSignature(signature).submitDesc(desc).submitExceptions(exceptions).get().freeze());
+        return null;
+    }
+
+    @Override
+    public void visitEnd() {
+        this.index.add(new IndexedClass(this.name, this.signature, this.methods, this.fields, this.rank));
+    }
+
+}
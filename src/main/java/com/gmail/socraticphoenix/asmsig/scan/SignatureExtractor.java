@@ -0,0 +1,215 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.scan;
+
+import com.gmail.socraticphoenix.asmsig.io.ModifiedUtf8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Extracts the {@code Signature} attributes of a class and its members directly from the bytes of a class file,
+ * without going through {@code ClassReader}. Only the offsets of the constant pool entries are recorded; constant pool
+ * entries are only decoded into strings when they belong to a class or member which carries a signature, and every
+ * other attribute is skipped without being read. This makes signature-only scans much cheaper than a full
+ * {@code ClassReader.accept} pass, especially for classes without any generic signatures.
+ */
+public class SignatureExtractor {
+    private static final byte[] SIGNATURE = {'S', 'i', 'g', 'n', 'a', 't', 'u', 'r', 'e'};
+
+    private ByteBuffer buffer;
+    private int[] offsets;
+    private String owner;
+
+    private SignatureExtractor(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Memory-maps the given class file and extracts its signatures.
+     *
+     * @param file The class file.
+     * @param handler The handler to report the signatures to.
+     * @throws IOException If the file could not be read.
+     * @throws IllegalArgumentException If the file is not a valid class file.
+     */
+    public static void extract(Path file, SignatureHandler handler) throws IOException {
+        SignatureExtractor.extract(SignatureExtractor.map(file), handler);
+    }
+
+    /**
+     * Extracts the signatures of the class file between the position and the limit of the given buffer, such as a
+     * memory-mapped file or the inflated bytes of a zip entry. The position of the buffer is not changed.
+     *
+     * @param buffer The buffer holding the class file.
+     * @param handler The handler to report the signatures to.
+     * @throws IllegalArgumentException If the buffer does not hold a valid class file.
+     */
+    public static void extract(ByteBuffer buffer, SignatureHandler handler) {
+        try {
+            new SignatureExtractor(buffer.slice()).read(handler);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed class file", e);
+        }
+    }
+
+    static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private void read(SignatureHandler handler) {
+        if (this.buffer.getInt(0) != 0xCAFEBABE) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+
+        int index = this.readConstantPool();
+        int thisClass = this.u2(index + 2);
+        index += 6;
+        index += 2 + 2 * this.u2(index);
+
+        int fields = this.u2(index);
+        index += 2;
+        for (int i = 0; i < fields; i++) {
+            int signature = this.findSignature(index + 6);
+            if (signature != 0) {
+                handler.visitField(this.owner(thisClass), this.utf8(this.u2(index + 2)), this.utf8(this.u2(index + 4)), this.utf8(signature));
+            }
+            index = this.skipMember(index);
+        }
+
+        int methods = this.u2(index);
+        index += 2;
+        for (int i = 0; i < methods; i++) {
+            int signature = this.findSignature(index + 6);
+            if (signature != 0) {
+                handler.visitMethod(this.owner(thisClass), this.utf8(this.u2(index + 2)), this.utf8(this.u2(index + 4)), this.utf8(signature));
+            }
+            index = this.skipMember(index);
+        }
+
+        int signature = this.findSignature(index);
+        if (signature != 0) {
+            handler.visitClass(this.owner(thisClass), this.utf8(signature));
+        }
+        handler.visitEnd();
+    }
+
+    private int readConstantPool() {
+        int count = this.u2(8);
+        this.offsets = new int[count];
+        int index = 10;
+        for (int i = 1; i < count; i++) {
+            this.offsets[i] = index;
+            int tag = this.buffer.get(index);
+            switch (tag) {
+                case 1: //Utf8
+                    index += 3 + this.u2(index + 1);
+                    break;
+                case 7: //Class
+                case 8: //String
+                case 16: //MethodType
+                case 19: //Module
+                case 20: //Package
+                    index += 3;
+                    break;
+                case 15: //MethodHandle
+                    index += 4;
+                    break;
+                case 3: //Integer
+                case 4: //Float
+                case 9: //Fieldref
+                case 10: //Methodref
+                case 11: //InterfaceMethodref
+                case 12: //NameAndType
+                case 17: //Dynamic
+                case 18: //InvokeDynamic
+                    index += 5;
+                    break;
+                case 5: //Long
+                case 6: //Double
+                    index += 9;
+                    i++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at index " + index);
+            }
+        }
+        return index;
+    }
+
+    private int findSignature(int index) {
+        int attributes = this.u2(index);
+        index += 2;
+        for (int i = 0; i < attributes; i++) {
+            if (this.isSignature(this.u2(index))) {
+                return this.u2(index + 6);
+            }
+            index += 6 + this.buffer.getInt(index + 2);
+        }
+        return 0;
+    }
+
+    private int skipMember(int index) {
+        int attributes = this.u2(index + 6);
+        index += 8;
+        for (int i = 0; i < attributes; i++) {
+            index += 6 + this.buffer.getInt(index + 2);
+        }
+        return index;
+    }
+
+    private boolean isSignature(int utf8) {
+        int offset = this.offsets[utf8];
+        if (this.u2(offset + 1) != SIGNATURE.length) {
+            return false;
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (this.buffer.get(offset + 3 + i) != SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String owner(int thisClass) {
+        if (this.owner == null) {
+            this.owner = this.utf8(this.u2(this.offsets[thisClass] + 1));
+        }
+        return this.owner;
+    }
+
+    private String utf8(int utf8) {
+        int offset = this.offsets[utf8];
+        return ModifiedUtf8.decode(this.buffer, offset + 3, this.u2(offset + 1));
+    }
+
+    private int u2(int index) {
+        return this.buffer.getShort(index) & 0xFFFF;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.scan;
+
+/**
+ * Receives the raw signatures found by a {@link SignatureExtractor}. Only classes and members which carry a
+ * {@code Signature} attribute are reported. For each class, the fields are reported first, then the methods, then the
+ * class itself, in the order they appear in the class file, followed by a single call to
+ * {@link SignatureHandler#visitEnd()}.
+ */
+public interface SignatureHandler {
+
+    /**
+     * Receives the signature of a field.
+     *
+     * @param owner The internal name of the class declaring the field.
+     * @param name The name of the field.
+     * @param desc The descriptor of the field.
+     * @param signature The type signature of the field.
+     */
+    default void visitField(String owner, String name, String desc, String signature) {
+
+    }
+
+    /**
+     * Receives the signature of a method.
+     *
+     * @param owner The internal name of the class declaring the method.
+     * @param name The name of the method.
+     * @param desc The descriptor of the method.
+     * @param signature The method signature of the method.
+     */
+    default void visitMethod(String owner, String name, String desc, String signature) {
+
+    }
+
+    /**
+     * Receives the signature of a class.
+     *
+     * @param name The internal name of the class.
+     * @param signature The class signature of the class.
+     */
+    default void visitClass(String name, String signature) {
+
+    }
+
+    /**
+     * Called once the whole class file has been read.
+     */
+    default void visitEnd() {
+
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.scan;
+
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
+import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread safe index of class, method and field signatures, keyed by owner, name and descriptor. Indices are usually
+ * produced by a {@link SignatureScanner}. If a class is found in more than one scanned path, the class from the path
+ * which was given first is kept, as it would be on a classpath.
+ */
+public class SignatureIndex {
+    private Map<String, IndexedClass> classes;
+
+    /**
+     * Creates a new, empty signature index.
+     */
+    public SignatureIndex() {
+        this.classes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds the given class to this index. If this index already contains a class with the same name, the class which
+     * was scanned from the earlier path is kept; classes which were not produced by a scanner never replace existing
+     * classes.
+     *
+     * @param cls The class to add.
+     */
+    public void add(IndexedClass cls) {
+        this.classes.merge(cls.getName(), cls, (a, b) -> b.getRank() < a.getRank() ? b : a);
+    }
+
+    /**
+     * Gets the indexed class with the given internal name.
+     *
+     * @param owner The internal name of the class.
+     * @return The indexed class, or null if it is not in this index.
+     */
+    public IndexedClass get(String owner) {
+        return this.classes.get(owner);
+    }
+
+    /**
+     * Gets the class signature of the class with the given internal name.
+     *
+     * @param owner The internal name of the class.
+     * @return The class signature, or null if the class is not in this index.
+     */
+    public ClassSignature getClassSignature(String owner) {
+        IndexedClass cls = this.get(owner);
+        return cls == null ? null : cls.getSignature();
+    }
+
+    /**
+     * Gets the signature of the method with the given owner, name and descriptor.
+     *
+     * @param owner The internal name of the class declaring the method.
+     * @param name The name of the method.
+     * @param desc The descriptor of the method.
+     * @return The method signature, or null if no such method is in this index.
+     */
+    public MethodSignature getMethod(String owner, String name, String desc) {
+        IndexedClass cls = this.get(owner);
+        return cls == null ? null : cls.getMethod(name, desc);
+    }
+
+    /**
+     * Gets the type of the field with the given owner, name and descriptor.
+     *
+     * @param owner The internal name of the class declaring the field.
+     * @param name The name of the field.
+     * @param desc The descriptor of the field.
+     * @return The field type, or null if no such field is in this index.
+     */
+    public TypeInformal getField(String owner, String name, String desc) {
+        IndexedClass cls = this.get(owner);
+        return cls == null ? null : cls.getField(name, desc);
+    }
+
+    /**
+     * @return An unmodifiable view of the internal names of the classes in this index.
+     */
+    public Set<String> getOwners() {
+        return Collections.unmodifiableSet(this.classes.keySet());
+    }
+
+    /**
+     * @return An unmodifiable view of the classes in this index.
+     */
+    public Collection<IndexedClass> getClasses() {
+        return Collections.unmodifiableCollection(this.classes.values());
+    }
+
+    /**
+     * @return The number of classes in this index.
+     */
+    public int size() {
+        return this.classes.size();
+    }
+
+}
@@ -0,0 +1,308 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.scan;
+
+import com.gmail.socraticphoenix.asmsig.cache.SignatureCache;
+import org.objectweb.asm.ClassReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Scans jars and class directories for class, method and field signatures, and collects them into a
+ * {@link SignatureIndex}. Scanning happens in two stages: reader threads read and inflate class files, and hand them
+ * to a {@link ForkJoinPool}, which reads them with {@link ClassReader} (skipping code, debug information and frames)
+ * and parses their signatures. At most a fixed number of class files may be waiting to be parsed at any time, so the
+ * readers are throttled if the parsers fall behind, and memory use stays bounded regardless of the size of the
+ * classpath.
+ * <p>
+ * Signatures are parsed through a {@link SignatureCache}, so identical signatures found in different classes share a
+ * single frozen instance. Every signature in the produced index is frozen.
+ * <p>
+ * A scanner may instead be restricted to generic signatures, in which case class files are read with a
+ * {@link SignatureExtractor} rather than a {@link ClassReader}, and class files in directories are memory-mapped rather
+ * than read. Only the classes and members which carry a {@code Signature} attribute are indexed, and the class
+ * signature of an indexed class is null if only its members carry signatures.
+ */
+public class SignatureScanner {
+    private static final int FLAGS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    private ForkJoinPool pool;
+    private int readers;
+    private int capacity;
+    private SignatureCache cache;
+    private boolean signaturesOnly;
+
+    /**
+     * Creates a new signature scanner which parses on the common fork-join pool, and parses signatures through a new
+     * 64 MiB cache.
+     */
+    public SignatureScanner() {
+        this(ForkJoinPool.commonPool(), Math.max(1, ForkJoinPool.getCommonPoolParallelism() / 4), 1024, new SignatureCache(64L * 1024 * 1024));
+    }
+
+    /**
+     * Creates a new signature scanner.
+     *
+     * @param pool The pool to parse class files on.
+     * @param readers The number of threads which read class files.
+     * @param capacity The maximum number of class files which may be waiting to be parsed.
+     * @param cache The cache to parse signatures through (may be null).
+     */
+    public SignatureScanner(ForkJoinPool pool, int readers, int capacity, SignatureCache cache) {
+        this(pool, readers, capacity, cache, false);
+    }
+
+    /**
+     * Creates a new signature scanner.
+     *
+     * @param pool The pool to parse class files on.
+     * @param readers The number of threads which read class files.
+     * @param capacity The maximum number of class files which may be waiting to be parsed.
+     * @param cache The cache to parse signatures through (may be null).
+     * @param signaturesOnly True if only generic signatures should be indexed.
+     */
+    public SignatureScanner(ForkJoinPool pool, int readers, int capacity, SignatureCache cache, boolean signaturesOnly) {
+        if (readers < 1 || capacity < 1) {
+            throw new IllegalArgumentException("readers and capacity must be positive");
+        }
+        this.pool = pool;
+        this.readers = readers;
+        this.capacity = capacity;
+        this.cache = cache;
+        this.signaturesOnly = signaturesOnly;
+    }
+
+    /**
+     * Scans the given jars and class directories into a new index.
+     *
+     * @param paths The jars and class directories, in classpath order.
+     * @return The index.
+     * @throws IOException If a path could not be read.
+     * @see SignatureScanner#scan(Collection, SignatureIndex)
+     */
+    public SignatureIndex scan(Path... paths) throws IOException {
+        return this.scan(Arrays.asList(paths));
+    }
+
+    /**
+     * Scans the given jars and class directories into a new index.
+     *
+     * @param paths The jars and class directories, in classpath order.
+     * @return The index.
+     * @throws IOException If a path could not be read.
+     * @see SignatureScanner#scan(Collection, SignatureIndex)
+     */
+    public SignatureIndex scan(Collection<Path> paths) throws IOException {
+        SignatureIndex index = new SignatureIndex();
+        this.scan(paths, index);
+        return index;
+    }
+
+    /**
+     * Scans the given jars and class directories into the given index. If a class is found in more than one path, the
+     * class from the earliest path is kept. Multi-release class files (under {@code META-INF/versions}) and module
+     * descriptors are ignored. This method blocks until every class file has been parsed, and fails with the first
+     * exception encountered by any stage.
+     *
+     * @param paths The jars and class directories, in classpath order.
+     * @param index The index to add the classes to.
+     * @throws IOException If a path could not be read.
+     * @throws IllegalArgumentException If a class file or signature is malformed.
+     */
+    public void scan(Collection<Path> paths, SignatureIndex index) throws IOException {
+        Scan scan = new Scan(index, paths);
+        Thread[] threads = new Thread[Math.min(this.readers, Math.max(1, paths.size()))];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(scan::read, "signature-scanner-reader-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            //Every permit is returned once the last parse task has finished
+            scan.permits.acquire(this.capacity);
+            scan.permits.release(this.capacity);
+        } catch (InterruptedException e) {
+            scan.fail(e);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while scanning");
+        }
+
+        Throwable failure = scan.failure.get();
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IOException(failure);
+        }
+    }
+
+    /**
+     * @return True if this scanner only indexes generic signatures, false if it indexes every class and member.
+     */
+    public boolean isSignaturesOnly() {
+        return this.signaturesOnly;
+    }
+
+    private class Scan {
+        private SignatureIndex index;
+        private ConcurrentLinkedQueue<Input> inputs;
+        private Semaphore permits;
+        private AtomicReference<Throwable> failure;
+
+        private Scan(SignatureIndex index, Collection<Path> paths) {
+            this.index = index;
+            this.inputs = new ConcurrentLinkedQueue<>();
+            this.permits = new Semaphore(SignatureScanner.this.capacity);
+            this.failure = new AtomicReference<>();
+
+            int rank = 0;
+            for (Path path : paths) {
+                this.inputs.add(new Input(path, rank++));
+            }
+        }
+
+        private void read() {
+            Input input;
+            while (this.failure.get() == null && (input = this.inputs.poll()) != null) {
+                try {
+                    if (Files.isDirectory(input.path)) {
+                        this.readDirectory(input);
+                    } else {
+                        this.readJar(input);
+                    }
+                } catch (Throwable e) {
+                    this.fail(e);
+                }
+            }
+        }
+
+        private void readDirectory(Input input) throws IOException, InterruptedException {
+            List<Path> files;
+            try (Stream<Path> stream = Files.walk(input.path)) {
+                files = stream.filter(p -> SignatureScanner.isClass(input.path.relativize(p).toString().replace('\\', '/'))).collect(Collectors.toList());
+            }
+
+            Iterator<Path> iterator = files.iterator();
+            while (this.failure.get() == null && iterator.hasNext()) {
+                Path file = iterator.next();
+                this.submit(input, file.toString(), SignatureScanner.this.signaturesOnly ? SignatureExtractor.map(file) : ByteBuffer.wrap(Files.readAllBytes(file)));
+            }
+        }
+
+        private void readJar(Input input) throws IOException, InterruptedException {
+            try (ZipFile zip = new ZipFile(input.path.toFile())) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (this.failure.get() == null && entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && SignatureScanner.isClass(entry.getName())) {
+                        try (InputStream in = zip.getInputStream(entry)) {
+                            this.submit(input, input.path + "!/" + entry.getName(), ByteBuffer.wrap(SignatureScanner.readFully(in, entry.getSize())));
+                        }
+                    }
+                }
+            }
+        }
+
+        private void submit(Input input, String name, ByteBuffer bytes) throws InterruptedException {
+            this.permits.acquire();
+            try {
+                SignatureScanner.this.pool.execute(() -> {
+                    try {
+                        if (SignatureScanner.this.signaturesOnly) {
+                            SignatureExtractor.extract(bytes, new IndexingHandler(this.index, SignatureScanner.this.cache, input.rank));
+                        } else {
+                            new ClassReader(bytes.array()).accept(new IndexingVisitor(this.index, SignatureScanner.this.cache, input.rank), FLAGS);
+                        }
+                    } catch (Throwable e) {
+                        this.fail(new IllegalArgumentException("Failed to scan " + name, e));
+                    } finally {
+                        this.permits.release();
+                    }
+                });
+            } catch (Throwable e) {
+                this.permits.release();
+                throw e;
+            }
+        }
+
+        private void fail(Throwable e) {
+            if (e instanceof UncheckedIOException) {
+                e = e.getCause();
+            }
+            this.failure.compareAndSet(null, e);
+        }
+
+    }
+
+    private static class Input {
+        private Path path;
+        private int rank;
+
+        private Input(Path path, int rank) {
+            this.path = path;
+            this.rank = rank;
+        }
+
+    }
+
+    private static boolean isClass(String name) {
+        return name.endsWith(".class") && !name.endsWith("module-info.class") && !name.startsWith("META-INF/versions/");
+    }
+
+    private static byte[] readFully(InputStream in, long size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 && size < Integer.MAX_VALUE ? (int) size : 4096);
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
@@ -21,11 +21,19 @@
  */
 package com.gmail.socraticphoenix.asmsig.signature;
 
+import com.gmail.socraticphoenix.asmsig.metrics.SignatureMetrics;
+import com.gmail.socraticphoenix.asmsig.metrics.SignatureOperation;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
 import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInterner;
 import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
 import org.objectweb.asm.Type;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
@@ -44,6 +52,8 @@ public class ClassSignature {
     private TypeParameterized type;
     private TypeFill superclass;
     private List<TypeFill> interfaces;
+    private boolean frozen;
+    private int hash;
 
     /**
      * Creates a new class signature with the given type and superclass.
@@ -52,25 +62,97 @@ public class ClassSignature {
      * @param superclass The super class.
      */
     public ClassSignature(TypeParameterized type, TypeFill superclass) {
+        this(type, superclass, Collections.emptyList());
+    }
+
+    /**
+     * Creates a new class signature with the given type, superclass and interfaces.
+     *
+     * @param type The type.
+     * @param superclass The super class.
+     * @param interfaces The interfaces.
+     */
+    public ClassSignature(TypeParameterized type, TypeFill superclass, List<TypeFill> interfaces) {
         this.type = type;
         this.superclass = superclass;
-        this.interfaces = new ArrayList<>();
+        this.interfaces = CompactList.copyOf(interfaces);
     }
 
+    /**
+     * Maps the Types contained by this signature. Unchanged parts are shared rather than copied, see
+     * {@link com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart#map(Function)}.
+     *
+     * @param mapper The mapper to use.
+     * @return A mapped signature, which may share parts with, or be, this signature.
+     */
     public ClassSignature map(Function<Type, Type> mapper) {
-        ClassSignature signature = new ClassSignature(this.type.map(mapper), this.superclass.map(mapper));
-        this.interfaces.forEach(t -> signature.addInterface(t.map(mapper)));
-        return signature;
+        if (SignatureMetrics.isEnabled()) {
+            return SignatureMetrics.record(SignatureOperation.MAP, measurement -> this.mapTypes(measurement.count(mapper)));
+        }
+        return this.mapTypes(mapper);
+    }
+
+    private ClassSignature mapTypes(Function<Type, Type> mapper) {
+        //The name and generics are mapped separately, so that lazy signatures are not forced to build their type
+        Type name = mapper.apply(this.getName());
+        List<TypeVar> generics = CompactList.map(this.getGenerics(), t -> t.map(mapper));
+        TypeFill superclass = this.getSuperclass() != null ? this.getSuperclass().map(mapper) : null;
+        List<TypeFill> interfaces = CompactList.map(this.getInterfaces(), t -> t.map(mapper));
+        boolean sameType = name.equals(this.getName()) && generics == this.getGenerics();
+        if (sameType && superclass == this.getSuperclass() && interfaces == this.getInterfaces()) {
+            return this;
+        }
+        return new ClassSignature(sameType ? this.getType() : new TypeParameterized(name, generics), superclass, interfaces);
     }
 
     /**
      * @return The formatted signature, as it would appear in bytecode.
      */
     public String write() {
-        StringBuilder k = new StringBuilder();
-        k.append(this.type.writeParams()).append(this.superclass.write());
-        this.interfaces.forEach(f -> k.append(f.write()));
-        return k.toString();
+        StringBuilder builder = new StringBuilder();
+        this.write(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Appends the formatted signature, as it would appear in bytecode, to the given builder.
+     *
+     * @param builder The builder to append to.
+     */
+    public void write(StringBuilder builder) {
+        try {
+            this.write((Appendable) builder);
+        } catch (IOException e) {
+            //StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the formatted signature, as it would appear in bytecode, to the given output. The whole signature is
+     * written directly into the output, without building any intermediate strings.
+     *
+     * @param out The output to append to.
+     * @throws IOException If the output throws an IOException.
+     */
+    public void write(Appendable out) throws IOException {
+        if (SignatureMetrics.isEnabled()) {
+            SignatureMetrics.record(SignatureOperation.WRITE, measurement -> {
+                this.writeTo(measurement.count(out));
+                return this;
+            });
+        } else {
+            this.writeTo(out);
+        }
+    }
+
+    private void writeTo(Appendable out) throws IOException {
+        this.getType().writeParams(out);
+        this.getSuperclass().write(out);
+        List<TypeFill> interfaces = this.getInterfaces();
+        for (int i = 0; i < interfaces.size(); i++) {
+            interfaces.get(i).write(out);
+        }
     }
 
     /**
@@ -80,12 +162,28 @@ public class ClassSignature {
         return this.type;
     }
 
+    /**
+     * @return The base type of this class signature, equivalent to {@code signature.getType().getType()}.
+     */
+    public Type getName() {
+        return this.type.getType();
+    }
+
+    /**
+     * @return The formal type parameters of this class signature, equivalent to
+     * {@code signature.getType().getParameters()}.
+     */
+    public List<TypeVar> getGenerics() {
+        return this.type.getParameters();
+    }
+
     /**
      * Sets the base type of this class signature. This method is functionally equivalent to {@code signature.getType().setType(type)}.
      *
      * @param type The new base type.
      */
     public void setType(Type type) {
+        this.checkMutable();
         this.type.setType(type);
     }
 
@@ -95,6 +193,7 @@ public class ClassSignature {
      * @param type The new type.
      */
     public void setType(TypeParameterized type) {
+        this.checkMutable();
         this.type = type;
     }
 
@@ -111,11 +210,13 @@ public class ClassSignature {
      * @param superclass The new superclass.
      */
     public void setSuperclass(TypeFill superclass) {
+        this.checkMutable();
         this.superclass = superclass;
     }
 
     /**
-     * @return The interfaces of this class signature.
+     * @return The interfaces of this class signature. The list may be unmodifiable, use
+     * {@link ClassSignature#addInterface(TypeFill)} to add an interface.
      */
     public List<TypeFill> getInterfaces() {
         return this.interfaces;
@@ -127,22 +228,64 @@ public class ClassSignature {
      * @param inter The interface to add to this class signature.
      */
     public void addInterface(TypeFill inter) {
+        this.checkMutable();
+        if (!(this.interfaces instanceof ArrayList)) {
+            this.interfaces = new ArrayList<>(this.interfaces);
+        }
         this.interfaces.add(inter);
     }
 
+    /**
+     * Creates an immutable, deep snapshot of this class signature. Every signature part of the snapshot is frozen
+     * (see {@link TypeParameterized#freeze()}), and the hash code of the snapshot is computed once. Attempting to
+     * modify a frozen class signature will throw an {@link UnsupportedOperationException}.
+     *
+     * @return The frozen snapshot of this class signature, or this if it is already frozen.
+     */
+    public ClassSignature freeze() {
+        if (this.frozen) {
+            return this;
+        }
+
+        ClassSignature signature = new ClassSignature(this.getType().freeze(), this.getSuperclass().freeze(), TypeInterner.freeze(this.getInterfaces()));
+        signature.frozen = true;
+        signature.hash = signature.computeHash();
+        return signature;
+    }
+
+    /**
+     * @return True if this class signature is frozen, and therefore immutable, false otherwise.
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Frozen signatures may not be modified");
+        }
+    }
+
+    private int computeHash() {
+        //The hash of the type is that of TypeParameterized, without building the type of lazy signatures
+        return Objects.hash(Objects.hash(this.getName(), this.getGenerics()), this.getSuperclass(), this.getInterfaces());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof ClassSignature)) return false;
         ClassSignature signature = (ClassSignature) o;
-        return Objects.equals(type, signature.type) &&
-                Objects.equals(superclass, signature.superclass) &&
-                Objects.equals(interfaces, signature.interfaces);
+        if (this.frozen && signature.frozen && this.hash != signature.hash) return false;
+        return Objects.equals(this.getName(), signature.getName()) &&
+                Objects.equals(this.getGenerics(), signature.getGenerics()) &&
+                Objects.equals(this.getSuperclass(), signature.getSuperclass()) &&
+                Objects.equals(this.getInterfaces(), signature.getInterfaces());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, superclass, interfaces);
+        return this.frozen ? this.hash : this.computeHash();
     }
 
 }
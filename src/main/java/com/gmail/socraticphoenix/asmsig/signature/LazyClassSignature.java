@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.signature;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.parser.SignatureValidator;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A class signature which is parsed on demand. On creation, the raw signature is only validated and indexed (see
+ * {@link SignatureValidator#indexClass()}); the superclass and each interface and formal type parameter is parsed the
+ * first time it is accessed, and memoized. The number of interfaces and formal type parameters is known without parsing
+ * any of them, and {@link #getName()} and {@link #getGenerics()} give access to the type of the class without building
+ * its {@link TypeParameterized} type, which parses every formal type parameter. Mapping, hashing and comparing a lazy
+ * signature do not build its type. Lazy signatures are thread safe, but cannot be modified;
+ * {@link #freeze()} parses every component and returns an ordinary frozen class signature, and
+ * {@link #write(Appendable)} writes the raw signature without parsing anything. A lazy signature is equal to an
+ * ordinary class signature with the same components.
+ */
+public class LazyClassSignature extends ClassSignature {
+    private Type name;
+    private LazyComponents components;
+    private List<TypeVar> generics;
+    private List<TypeFill> interfaces;
+    private volatile TypeParameterized type;
+
+    /**
+     * Creates a new lazy class signature from the given class name and signature, which uses the
+     * {@link SymbolTable#shared() shared} symbol table.
+     *
+     * @param name The name.
+     * @param signature The signature.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public LazyClassSignature(String name, String signature) {
+        this(name, signature, SymbolTable.shared());
+    }
+
+    /**
+     * Creates a new lazy class signature from the given class name and signature, which uses the given symbol table.
+     *
+     * @param name The name.
+     * @param signature The signature.
+     * @param symbols The symbol table to resolve types and names through.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public LazyClassSignature(String name, String signature, SymbolTable symbols) {
+        super(null, null);
+        SignatureValidator validator = new SignatureValidator(signature);
+        int[] index = validator.indexClass();
+        if (index == null) {
+            throw new IllegalArgumentException(validator.getMessage());
+        }
+
+        this.name = symbols.objectType(name);
+        this.components = new LazyComponents(signature, symbols, index, 2);
+        int generics = this.components.count(0);
+        this.generics = this.components.list(0, generics, LazyComponents.TYPE_VAR);
+        this.interfaces = this.components.list(generics + 1, this.components.count(1), LazyComponents.CLASS_TYPE);
+    }
+
+    /**
+     * @return The raw signature this lazy signature was created from.
+     */
+    public String getSignature() {
+        return this.components.getSignature();
+    }
+
+    @Override
+    public Type getName() {
+        return this.name;
+    }
+
+    /**
+     * @return The formal type parameters of this class signature. This is equal to the parameter list of
+     * {@link #getType()}, but accessing it does not parse every formal type parameter.
+     */
+    @Override
+    public List<TypeVar> getGenerics() {
+        return this.generics;
+    }
+
+    @Override
+    public void write(Appendable out) throws IOException {
+        out.append(this.components.getSignature());
+    }
+
+    /**
+     * @return The type of this class signature, which is frozen. Building the type parses every formal type parameter,
+     * since the type holds a copy of them; use {@link #getName()} and {@link #getGenerics()} to avoid this.
+     */
+    @Override
+    public TypeParameterized getType() {
+        TypeParameterized type = this.type;
+        if (type == null) {
+            synchronized (this) {
+                type = this.type;
+                if (type == null) {
+                    type = new TypeParameterized(this.name, this.generics).freeze();
+                    this.type = type;
+                }
+            }
+        }
+        return type;
+    }
+
+    @Override
+    public TypeFill getSuperclass() {
+        return this.components.get(this.generics.size(), LazyComponents.CLASS_TYPE);
+    }
+
+    @Override
+    public List<TypeFill> getInterfaces() {
+        return this.interfaces;
+    }
+
+    @Override
+    public void setType(Type type) {
+        throw new UnsupportedOperationException("Lazy signatures may not be modified");
+    }
+
+    @Override
+    public void setType(TypeParameterized type) {
+        throw new UnsupportedOperationException("Lazy signatures may not be modified");
+    }
+
+    @Override
+    public void setSuperclass(TypeFill superclass) {
+        throw new UnsupportedOperationException("Lazy signatures may not be modified");
+    }
+
+    @Override
+    public void addInterface(TypeFill inter) {
+        throw new UnsupportedOperationException("Lazy signatures may not be modified");
+    }
+
+}
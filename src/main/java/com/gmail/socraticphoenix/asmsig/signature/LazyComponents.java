@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.signature;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.parser.SignatureParser;
+import com.gmail.socraticphoenix.asmsig.parser.SignatureValidator;
+import com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The top level components of a lazily parsed signature. Each component is parsed from the raw signature the first
+ * time it is requested, and the parsed component is frozen (see {@link TypeSignaturePart#freeze()}) and memoized; if
+ * several threads race to parse the same component, exactly one result is kept, so every caller sees the same
+ * immutable instance.
+ */
+class LazyComponents {
+    static final int TYPE = 0;
+    static final int CLASS_TYPE = 1;
+    static final int TYPE_VAR = 2;
+
+    private String signature;
+    private SymbolTable symbols;
+    private int[] index;
+    private int offset;
+    private AtomicReferenceArray<Object> parts;
+
+    /**
+     * Creates the components of the given signature.
+     *
+     * @param signature The raw signature.
+     * @param symbols The symbol table to resolve types and names through.
+     * @param index The index of the signature, see {@link SignatureValidator#indexMethod()}.
+     * @param offset The number of counts which precede the start indices in the index.
+     */
+    LazyComponents(String signature, SymbolTable symbols, int[] index, int offset) {
+        this.signature = signature;
+        this.symbols = symbols;
+        this.index = index;
+        this.offset = offset;
+        this.parts = new AtomicReferenceArray<>(index.length - offset);
+    }
+
+    String getSignature() {
+        return this.signature;
+    }
+
+    int count(int count) {
+        return this.index[count];
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(int component, int kind) {
+        Object part = this.parts.get(component);
+        if (part == null) {
+            SignatureParser parser = new SignatureParser(this.signature, this.symbols);
+            int start = this.index[this.offset + component];
+            TypeSignaturePart parsed = kind == TYPE ? parser.parseType(start) : kind == CLASS_TYPE ? parser.parseClassType(start) : parser.parseTypeVar(start);
+            //Freeze before publishing, so the shared instance can never be modified by a caller
+            part = parsed.freeze();
+            if (!this.parts.compareAndSet(component, null, part)) {
+                part = this.parts.get(component);
+            }
+        }
+        return (T) part;
+    }
+
+    <T> List<T> list(int from, int size, int kind) {
+        return size == 0 ? Collections.emptyList() : new LazyList<>(this, from, size, kind);
+    }
+
+    private static class LazyList<T> extends AbstractList<T> implements RandomAccess {
+        private LazyComponents components;
+        private int from;
+        private int size;
+        private int kind;
+
+        public LazyList(LazyComponents components, int from, int size, int kind) {
+            this.components = components;
+            this.from = from;
+            this.size = size;
+            this.kind = kind;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+            }
+            return this.components.get(this.from + index, this.kind);
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+
+    }
+
+}
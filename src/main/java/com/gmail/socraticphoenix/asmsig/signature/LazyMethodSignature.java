@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.signature;
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.parser.SignatureValidator;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeVar;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A method signature which is parsed on demand. On creation, the raw signature is only validated and indexed (see
+ * {@link SignatureValidator#indexMethod()}); each formal type parameter, parameter, exception and the return type is
+ * parsed the first time it is accessed, and memoized. The number of parameters, formal type parameters and exceptions
+ * is known without parsing any of them. Lazy signatures are thread safe, but cannot be modified; {@link #freeze()}
+ * parses every component and returns an ordinary frozen method signature, and {@link #write(Appendable)} writes the raw
+ * signature without parsing anything. A lazy signature is equal to an ordinary method signature with the same
+ * components.
+ */
+public class LazyMethodSignature extends MethodSignature {
+    private LazyComponents components;
+    private List<TypeVar> generics;
+    private List<TypeInformal> paras;
+    private List<TypeInformal> exceptions;
+
+    /**
+     * Creates a new lazy method signature from the given signature, which uses the {@link SymbolTable#shared() shared}
+     * symbol table.
+     *
+     * @param signature The signature.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public LazyMethodSignature(String signature) {
+        this(signature, SymbolTable.shared());
+    }
+
+    /**
+     * Creates a new lazy method signature from the given signature, which uses the given symbol table.
+     *
+     * @param signature The signature.
+     * @param symbols The symbol table to resolve types and names through.
+     * @throws IllegalArgumentException If the signature is malformed.
+     */
+    public LazyMethodSignature(String signature, SymbolTable symbols) {
+        super(null);
+        SignatureValidator validator = new SignatureValidator(signature);
+        int[] index = validator.indexMethod();
+        if (index == null) {
+            throw new IllegalArgumentException(validator.getMessage());
+        }
+
+        this.components = new LazyComponents(signature, symbols, index, 3);
+        int generics = this.components.count(0);
+        int paras = this.components.count(1);
+        this.generics = this.components.list(0, generics, LazyComponents.TYPE_VAR);
+        this.paras = this.components.list(generics, paras, LazyComponents.TYPE);
+        this.exceptions = this.components.list(generics + paras + 1, this.components.count(2), LazyComponents.TYPE);
+    }
+
+    /**
+     * @return The raw signature this lazy signature was created from.
+     */
+    public String getSignature() {
+        return this.components.getSignature();
+    }
+
+    @Override
+    public void write(Appendable out) throws IOException {
+        out.append(this.components.getSignature());
+    }
+
+    @Override
+    public TypeInformal getReturn() {
+        return this.components.get(this.generics.size() + this.paras.size(), LazyComponents.TYPE);
+    }
+
+    @Override
+    public List<TypeVar> getGenerics() {
+        return this.generics;
+    }
+
+    @Override
+    public List<TypeInformal> getParameters() {
+        return this.paras;
+    }
+
+    @Override
+    public List<TypeInformal> getExceptions() {
+        return this.exceptions;
+    }
+
+    @Override
+    public void setReturn(TypeInformal ret) {
+        throw new UnsupportedOperationException("Lazy signatures may not be modified");
+    }
+
+    @Override
+    public void addGeneric(TypeVar gen) {
+        throw new UnsupportedOperationException("Lazy signatures may not be modified");
+    }
+
+    @Override
+    public void addParameter(TypeInformal para) {
+        throw new UnsupportedOperationException("Lazy signatures may not be modified");
+    }
+
+    @Override
+    public void addException(TypeInformal except) {
+        throw new UnsupportedOperationException("Lazy signatures may not be modified");
+    }
+
+}
@@ -21,11 +21,18 @@
  */
 package com.gmail.socraticphoenix.asmsig.signature;
 
+import com.gmail.socraticphoenix.asmsig.metrics.SignatureMetrics;
+import com.gmail.socraticphoenix.asmsig.metrics.SignatureOperation;
+import com.gmail.socraticphoenix.asmsig.type.CompactList;
 import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeInterner;
 import com.gmail.socraticphoenix.asmsig.type.TypeVar;
 import org.objectweb.asm.Type;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
@@ -44,6 +51,8 @@ public class MethodSignature {
     private List<TypeInformal> paras;
     private TypeInformal ret;
     private List<TypeInformal> exceptions;
+    private boolean frozen;
+    private int hash;
 
     /**
      * Creates a new method signature with the given return type.
@@ -51,18 +60,48 @@ public class MethodSignature {
      * @param ret The return type.
      */
     public MethodSignature(TypeInformal ret) {
+        this(Collections.emptyList(), Collections.emptyList(), ret, Collections.emptyList());
+    }
+
+    /**
+     * Creates a new method signature with the given formal type parameters, parameter types, return type and
+     * exception types.
+     *
+     * @param generics The formal type parameters.
+     * @param paras The parameter types.
+     * @param ret The return type.
+     * @param exceptions The exception types.
+     */
+    public MethodSignature(List<TypeVar> generics, List<TypeInformal> paras, TypeInformal ret, List<TypeInformal> exceptions) {
+        this.generics = CompactList.copyOf(generics);
+        this.paras = CompactList.copyOf(paras);
         this.ret = ret;
-        this.generics = new ArrayList<>();
-        this.paras = new ArrayList<>();
-        this.exceptions = new ArrayList<>();
+        this.exceptions = CompactList.copyOf(exceptions);
     }
 
+    /**
+     * Maps the Types contained by this signature. Unchanged parts are shared rather than copied, see
+     * {@link com.gmail.socraticphoenix.asmsig.type.TypeSignaturePart#map(Function)}.
+     *
+     * @param mapper The mapper to use.
+     * @return A mapped signature, which may share parts with, or be, this signature.
+     */
     public MethodSignature map(Function<Type, Type> mapper) {
-        MethodSignature signature = new MethodSignature(this.ret.map(mapper));
-        this.generics.forEach(t -> signature.addGeneric(t.map(mapper)));
-        this.paras.forEach(t -> signature.addParameter(t.map(mapper)));
-        this.exceptions.forEach(t -> signature.addException(t.map(mapper)));
-        return signature;
+        if (SignatureMetrics.isEnabled()) {
+            return SignatureMetrics.record(SignatureOperation.MAP, measurement -> this.mapTypes(measurement.count(mapper)));
+        }
+        return this.mapTypes(mapper);
+    }
+
+    private MethodSignature mapTypes(Function<Type, Type> mapper) {
+        List<TypeVar> generics = CompactList.map(this.getGenerics(), t -> t.map(mapper));
+        List<TypeInformal> paras = CompactList.map(this.getParameters(), t -> t.map(mapper));
+        TypeInformal ret = this.getReturn() != null ? this.getReturn().map(mapper) : null;
+        List<TypeInformal> exceptions = CompactList.map(this.getExceptions(), t -> t.map(mapper));
+        if (generics == this.getGenerics() && paras == this.getParameters() && ret == this.getReturn() && exceptions == this.getExceptions()) {
+            return this;
+        }
+        return new MethodSignature(generics, paras, ret, exceptions);
     }
 
     /**
@@ -70,19 +109,65 @@ public class MethodSignature {
      */
     public String write() {
         StringBuilder builder = new StringBuilder();
-        if (!this.generics.isEmpty()) {
-            builder.append("<");
-            this.generics.forEach(t -> builder.append(t.write()));
-            builder.append(">");
-        }
-        builder.append("(");
-        this.paras.forEach(t -> builder.append(t.write()));
-        builder.append(")");
-        builder.append(this.ret.write());
-        this.exceptions.forEach(t -> builder.append("^").append(t.write()));
+        this.write(builder);
         return builder.toString();
     }
 
+    /**
+     * Appends the formatted signature, as it would appear in bytecode, to the given builder.
+     *
+     * @param builder The builder to append to.
+     */
+    public void write(StringBuilder builder) {
+        try {
+            this.write((Appendable) builder);
+        } catch (IOException e) {
+            //StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the formatted signature, as it would appear in bytecode, to the given output. The whole signature is
+     * written directly into the output, without building any intermediate strings.
+     *
+     * @param out The output to append to.
+     * @throws IOException If the output throws an IOException.
+     */
+    public void write(Appendable out) throws IOException {
+        if (SignatureMetrics.isEnabled()) {
+            SignatureMetrics.record(SignatureOperation.WRITE, measurement -> {
+                this.writeTo(measurement.count(out));
+                return this;
+            });
+        } else {
+            this.writeTo(out);
+        }
+    }
+
+    private void writeTo(Appendable out) throws IOException {
+        List<TypeVar> generics = this.getGenerics();
+        if (!generics.isEmpty()) {
+            out.append('<');
+            for (int i = 0; i < generics.size(); i++) {
+                generics.get(i).write(out);
+            }
+            out.append('>');
+        }
+        List<TypeInformal> paras = this.getParameters();
+        out.append('(');
+        for (int i = 0; i < paras.size(); i++) {
+            paras.get(i).write(out);
+        }
+        out.append(')');
+        this.getReturn().write(out);
+        List<TypeInformal> exceptions = this.getExceptions();
+        for (int i = 0; i < exceptions.size(); i++) {
+            out.append('^');
+            exceptions.get(i).write(out);
+        }
+    }
+
     /**
      * @return The return type of this method signature.
      */
@@ -96,25 +181,29 @@ public class MethodSignature {
      * @param ret The new return type.
      */
     public void setReturn(TypeInformal ret) {
+        this.checkMutable();
         this.ret = ret;
     }
 
     /**
-     * @return The formal type parameters associated with this method signature.
+     * @return The formal type parameters associated with this method signature. The list may be unmodifiable, use
+     * {@link MethodSignature#addGeneric(TypeVar)} to add a formal type parameter.
      */
     public List<TypeVar> getGenerics() {
         return this.generics;
     }
 
     /**
-     * @return The types of the parameters of this method signature.
+     * @return The types of the parameters of this method signature. The list may be unmodifiable, use
+     * {@link MethodSignature#addParameter(TypeInformal)} to add a parameter.
      */
     public List<TypeInformal> getParameters() {
         return this.paras;
     }
 
     /**
-     * @return The types of the exceptions associated with this method signature.
+     * @return The types of the exceptions associated with this method signature. The list may be unmodifiable, use
+     * {@link MethodSignature#addException(TypeInformal)} to add an exception.
      */
     public List<TypeInformal> getExceptions() {
         return this.exceptions;
@@ -126,6 +215,10 @@ public class MethodSignature {
      * @param gen The formal type parameter to add to this method signature.
      */
     public void addGeneric(TypeVar gen) {
+        this.checkMutable();
+        if (!(this.generics instanceof ArrayList)) {
+            this.generics = new ArrayList<>(this.generics);
+        }
         this.generics.add(gen);
     }
 
@@ -136,6 +229,10 @@ public class MethodSignature {
      * @param para The parameter to add.
      */
     public void addParameter(TypeInformal para) {
+        this.checkMutable();
+        if (!(this.paras instanceof ArrayList)) {
+            this.paras = new ArrayList<>(this.paras);
+        }
         this.paras.add(para);
     }
 
@@ -145,23 +242,63 @@ public class MethodSignature {
      * @param except The exception to add.
      */
     public void addException(TypeInformal except) {
+        this.checkMutable();
+        if (!(this.exceptions instanceof ArrayList)) {
+            this.exceptions = new ArrayList<>(this.exceptions);
+        }
         this.exceptions.add(except);
     }
 
+    /**
+     * Creates an immutable, deep snapshot of this method signature. Every signature part of the snapshot is frozen
+     * (see {@link TypeInformal#freeze()}), and the hash code of the snapshot is computed once. Attempting to modify a
+     * frozen method signature will throw an {@link UnsupportedOperationException}.
+     *
+     * @return The frozen snapshot of this method signature, or this if it is already frozen.
+     */
+    public MethodSignature freeze() {
+        if (this.frozen) {
+            return this;
+        }
+
+        MethodSignature signature = new MethodSignature(TypeInterner.freeze(this.getGenerics()), TypeInterner.freeze(this.getParameters()), this.getReturn().freeze(), TypeInterner.freeze(this.getExceptions()));
+        signature.frozen = true;
+        signature.hash = signature.computeHash();
+        return signature;
+    }
+
+    /**
+     * @return True if this method signature is frozen, and therefore immutable, false otherwise.
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Frozen signatures may not be modified");
+        }
+    }
+
+    private int computeHash() {
+        return Objects.hash(this.getGenerics(), this.getParameters(), this.getReturn(), this.getExceptions());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof MethodSignature)) return false;
         MethodSignature signature = (MethodSignature) o;
-        return Objects.equals(generics, signature.generics) &&
-                Objects.equals(paras, signature.paras) &&
-                Objects.equals(ret, signature.ret) &&
-                Objects.equals(exceptions, signature.exceptions);
+        if (this.frozen && signature.frozen && this.hash != signature.hash) return false;
+        return Objects.equals(this.getGenerics(), signature.getGenerics()) &&
+                Objects.equals(this.getParameters(), signature.getParameters()) &&
+                Objects.equals(this.getReturn(), signature.getReturn()) &&
+                Objects.equals(this.getExceptions(), signature.getExceptions());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(generics, paras, ret, exceptions);
+        return this.frozen ? this.hash : this.computeHash();
     }
 
 }
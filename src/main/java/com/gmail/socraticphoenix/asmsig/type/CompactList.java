@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.type;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.UnaryOperator;
+
+/**
+ * An unmodifiable list backed directly by an exactly sized array. Signature objects store their children in compact
+ * lists once they are complete (for example, once parsing has finished or once they have been frozen), and in the
+ * shared {@link Collections#emptyList() empty list} when they have no children, so that a signature object does not
+ * retain any spare list capacity.
+ *
+ * @param <T> The type of the elements.
+ */
+public class CompactList<T> extends AbstractList<T> implements RandomAccess {
+    private Object[] elements;
+
+    private CompactList(Object[] elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Creates a compact list which takes ownership of the given array. The array must not be modified afterwards.
+     *
+     * @param elements The elements.
+     * @param <T> The type of the elements.
+     * @return A compact list of the given elements, or the shared empty list if there are no elements.
+     */
+    public static <T> List<T> wrap(Object[] elements) {
+        return elements.length == 0 ? Collections.emptyList() : new CompactList<>(elements);
+    }
+
+    /**
+     * Creates a compact copy of the given list.
+     *
+     * @param list The list to copy.
+     * @param <T> The type of the elements.
+     * @return A compact copy of the given list, the given list if it is already a compact list, or the shared empty list
+     *         if the given list is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> copyOf(List<? extends T> list) {
+        if (list instanceof CompactList) {
+            return (List<T>) list;
+        }
+        return list.isEmpty() ? Collections.emptyList() : new CompactList<>(list.toArray());
+    }
+
+    /**
+     * Applies the given function to every element of the given list. If the function returns every element unchanged
+     * (the identical instance), the given list itself is returned, so that unchanged lists are shared rather than
+     * copied.
+     *
+     * @param list The list.
+     * @param function The function to apply.
+     * @param <T> The type of the elements.
+     * @return The given list if no element was changed, or a compact list of the results otherwise.
+     */
+    public static <T> List<T> map(List<T> list, UnaryOperator<T> function) {
+        Object[] mapped = null;
+        for (int i = 0; i < list.size(); i++) {
+            T element = list.get(i);
+            T result = function.apply(element);
+            if (mapped == null && result != element) {
+                mapped = new Object[list.size()];
+                for (int j = 0; j < i; j++) {
+                    mapped[j] = list.get(j);
+                }
+            }
+            if (mapped != null) {
+                mapped[i] = result;
+            }
+        }
+        return mapped == null ? list : CompactList.wrap(mapped);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) this.elements[index];
+    }
+
+    @Override
+    public int size() {
+        return this.elements.length;
+    }
+
+}
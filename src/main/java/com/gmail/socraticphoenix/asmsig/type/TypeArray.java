@@ -23,7 +23,7 @@ package com.gmail.socraticphoenix.asmsig.type;
 
 import org.objectweb.asm.Type;
 
-import java.util.Objects;
+import java.io.IOException;
 import java.util.function.Function;
 
 /**
@@ -31,6 +31,8 @@ import java.util.function.Function;
  */
 public class TypeArray implements TypeInformal, TypeSignaturePart {
     private TypeInformal type;
+    private boolean frozen;
+    private int hash;
 
     /**
      * Creates an array type with the given element, with the given dimensions.
@@ -69,6 +71,7 @@ public class TypeArray implements TypeInformal, TypeSignaturePart {
      * @param type The new element
      */
     public void setType(TypeInformal type) {
+        this.checkMutable();
         this.type = type;
     }
 
@@ -76,45 +79,79 @@ public class TypeArray implements TypeInformal, TypeSignaturePart {
      * @return The depth, or number of dimensions, of this array.
      */
     public int depth() {
-        if(this.type instanceof TypeArray) {
-            return 1 + ((TypeArray) this.type).depth();
-        } else {
-            return 1;
+        int depth = 1;
+        TypeInformal type = this.type;
+        while (type instanceof TypeArray) {
+            type = ((TypeArray) type).type;
+            depth++;
         }
+        return depth;
     }
 
     /**
      * @return The root element of this array (it will not be a TypeArray).
      */
     public TypeInformal element() {
-        if(this.type instanceof TypeArray) {
-            return ((TypeArray) this.type).element();
-        } else {
-            return this.type;
+        TypeInformal type = this.type;
+        while (type instanceof TypeArray) {
+            type = ((TypeArray) type).type;
         }
+        return type;
     }
 
     @Override
-    public String write() {
-        return "[" + this.type.write();
+    public void write(Appendable out) throws IOException {
+        TypeTraversal.write(this, out);
     }
 
     @Override
     public TypeArray map(Function<Type, Type> mapper) {
-        return new TypeArray(this.type.map(mapper));
+        return (TypeArray) TypeTraversal.map(this, mapper);
+    }
+
+    @Override
+    public TypeArray freeze() {
+        return this.frozen ? this : (TypeArray) TypeTraversal.freeze(this);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    @Override
+    public TypeKind kind() {
+        return TypeKind.ARRAY;
+    }
+
+    @Override
+    public <R> R accept(TypeVisitor<R> visitor) {
+        return visitor.visitArray(this);
+    }
+
+    void seal() {
+        this.frozen = true;
+        this.hash = this.computeHash();
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Frozen signature parts may not be modified");
+        }
+    }
+
+    private int computeHash() {
+        return TypeTraversal.hash(this);
     }
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        TypeArray array = (TypeArray) o;
-        return Objects.equals(type, array.type);
+        return TypeTraversal.equals(this, o);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type);
+        return this.frozen ? this.hash : this.computeHash();
     }
 
 }
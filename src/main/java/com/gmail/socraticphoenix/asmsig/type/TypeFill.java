@@ -21,12 +21,12 @@
  */
 package com.gmail.socraticphoenix.asmsig.type;
 
-import com.gmail.socraticphoenix.asmsig.Signatures;
 import org.objectweb.asm.Type;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.Function;
 
 /**
@@ -36,6 +36,8 @@ import java.util.function.Function;
 public class TypeFill implements TypeInformal {
     private Type type;
     private List<TypeInformal> fill;
+    private boolean frozen;
+    private int hash;
 
     /**
      * Creates a new filled type with the given {@link Type}.
@@ -43,8 +45,18 @@ public class TypeFill implements TypeInformal {
      * @param type The type.
      */
     public TypeFill(Type type) {
+        this(type, Collections.emptyList());
+    }
+
+    /**
+     * Creates a new filled type with the given {@link Type} and the given filled type parameters.
+     *
+     * @param type The type.
+     * @param fill The filled type parameters.
+     */
+    public TypeFill(Type type, List<TypeInformal> fill) {
         this.type = type;
-        this.fill = new ArrayList<>();
+        this.fill = CompactList.copyOf(fill);
     }
 
     /**
@@ -60,11 +72,13 @@ public class TypeFill implements TypeInformal {
      * @param type The new base type.
      */
     public void setType(Type type) {
+        this.checkMutable();
         this.type = type;
     }
 
     /**
-     * @return The filled type parameters of this filled type.
+     * @return The filled type parameters of this filled type. The list may be unmodifiable, use
+     * {@link TypeFill#addPart(TypeInformal)} to add a filled type parameter.
      */
     public List<TypeInformal> getFill() {
         return this.fill;
@@ -76,6 +90,10 @@ public class TypeFill implements TypeInformal {
      * @param part The filled type parameter to add.
      */
     public void addPart(TypeInformal part) {
+        this.checkMutable();
+        if (!(this.fill instanceof ArrayList)) {
+            this.fill = new ArrayList<>(this.fill);
+        }
         this.fill.add(part);
     }
 
@@ -90,35 +108,57 @@ public class TypeFill implements TypeInformal {
     }
 
     @Override
-    public String write() {
-        StringBuilder k = new StringBuilder().append(Signatures.writeStart(this.type));
+    public void write(Appendable out) throws IOException {
+        TypeTraversal.write(this, out);
+    }
+
+    @Override
+    public TypeFill freeze() {
+        return this.frozen ? this : (TypeFill) TypeTraversal.freeze(this);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    @Override
+    public TypeKind kind() {
+        return TypeKind.FILL;
+    }
+
+    @Override
+    public <R> R accept(TypeVisitor<R> visitor) {
+        return visitor.visitFill(this);
+    }
+
+    void seal() {
+        this.frozen = true;
+        this.hash = this.computeHash();
+    }
 
-        if(!this.fill.isEmpty()) {
-            k.append("<");
-            this.fill.forEach(f -> k.append(f.write()));
-            k.append(">");
+    void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Frozen signature parts may not be modified");
         }
-        return k.append(Signatures.writeEnd(this.type)).toString();
+    }
+
+    private int computeHash() {
+        return TypeTraversal.hash(this);
     }
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        TypeFill typeFill = (TypeFill) o;
-        return Objects.equals(type, typeFill.type) &&
-                Objects.equals(fill, typeFill.fill);
+        return TypeTraversal.equals(this, o);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, fill);
+        return this.frozen ? this.hash : this.computeHash();
     }
 
     @Override
     public TypeFill map(Function<Type, Type> mapper) {
-        TypeFill type = new TypeFill(mapper.apply(this.type));
-        this.fill.forEach(t -> type.addPart(t.map(mapper)));
-        return type;
+        return (TypeFill) TypeTraversal.map(this, mapper);
     }
 }
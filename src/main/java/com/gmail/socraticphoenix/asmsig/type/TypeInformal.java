@@ -34,4 +34,7 @@ public interface TypeInformal extends TypeSignaturePart {
     @Override
     TypeInformal map(Function<Type, Type> mapper);
 
+    @Override
+    TypeInformal freeze();
+
 }
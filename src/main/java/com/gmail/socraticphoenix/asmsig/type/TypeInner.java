@@ -23,7 +23,7 @@ package com.gmail.socraticphoenix.asmsig.type;
 
 import org.objectweb.asm.Type;
 
-import java.util.Objects;
+import java.util.List;
 import java.util.function.Function;
 
 /**
@@ -43,11 +43,21 @@ public class TypeInner extends TypeFill implements TypeInformal {
         this.outer = outer;
     }
 
+    /**
+     * Creates a new inner type with the given type, the given outer type and the given filled type parameters.
+     *
+     * @param type The inner type.
+     * @param outer The outer type.
+     * @param fill The filled type parameters.
+     */
+    public TypeInner(Type type, TypeFill outer, List<TypeInformal> fill) {
+        super(type, fill);
+        this.outer = outer;
+    }
+
     @Override
     public TypeInner map(Function<Type, Type> mapper) {
-        TypeInner type = new TypeInner(mapper.apply(this.getType()), this.outer.map(mapper));
-        this.getFill().forEach(t -> type.addPart(t.map(mapper)));
-        return type;
+        return (TypeInner) TypeTraversal.map(this, mapper);
     }
 
     /**
@@ -63,25 +73,23 @@ public class TypeInner extends TypeFill implements TypeInformal {
      * @param outer The new outer type.
      */
     public void setOuter(TypeFill outer) {
+        this.checkMutable();
         this.outer = outer;
     }
 
     @Override
-    public String write() {
-        return this.outer.write() + "." + super.write();
+    public TypeKind kind() {
+        return TypeKind.INNER;
     }
 
     @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        TypeInner typeInner = (TypeInner) o;
-        return Objects.equals(outer, typeInner.outer);
+    public <R> R accept(TypeVisitor<R> visitor) {
+        return visitor.visitInner(this);
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(outer);
+    public TypeInner freeze() {
+        return this.isFrozen() ? this : (TypeInner) TypeTraversal.freeze(this);
     }
 
 }
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.type;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A weakly referenced pool of canonical frozen signature parts. Frozen signature parts are interned here when they
+ * are created by {@link TypeSignaturePart#freeze()}, so structurally equal frozen signature parts (such as the many
+ * {@code Ljava/lang/String;} and {@code Ljava/lang/Object;} subtrees of a classpath) share a single instance. Canonical
+ * parts are only weakly referenced by the pool, so they are garbage collected once no signature uses them. The pool is
+ * split into independently locked stripes to limit contention between threads.
+ */
+public class TypeInterner {
+    private static final int STRIPES = 32;
+    private static final List<Map<TypeSignaturePart, WeakReference<TypeSignaturePart>>> POOL = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            POOL.add(new WeakHashMap<>());
+        }
+    }
+
+    /**
+     * @return The number of canonical signature parts currently in the pool.
+     */
+    public static int size() {
+        int size = 0;
+        for (Map<TypeSignaturePart, WeakReference<TypeSignaturePart>> stripe : POOL) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends TypeSignaturePart> T intern(T part) {
+        int hash = part.hashCode();
+        Map<TypeSignaturePart, WeakReference<TypeSignaturePart>> stripe = POOL.get((hash ^ (hash >>> 16)) & (STRIPES - 1));
+        synchronized (stripe) {
+            WeakReference<TypeSignaturePart> reference = stripe.get(part);
+            TypeSignaturePart canonical = reference == null ? null : reference.get();
+            if (canonical == null) {
+                stripe.put(part, new WeakReference<>(part));
+                return part;
+            }
+            return (T) canonical;
+        }
+    }
+
+    /**
+     * Freezes every signature part in the given list (see {@link TypeSignaturePart#freeze()}).
+     *
+     * @param parts The signature parts to freeze.
+     * @param <T> The type of the signature parts.
+     * @return A compact, unmodifiable list of the frozen signature parts.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends TypeSignaturePart> List<T> freeze(List<T> parts) {
+        if (parts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        TypeSignaturePart[] frozen = new TypeSignaturePart[parts.size()];
+        for (int i = 0; i < frozen.length; i++) {
+            frozen[i] = parts.get(i).freeze();
+        }
+        return CompactList.wrap(frozen);
+    }
+
+}
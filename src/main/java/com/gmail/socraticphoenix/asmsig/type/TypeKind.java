@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.type;
+
+/**
+ * The kinds of {@link TypeSignaturePart}. Every signature part reports exactly one kind (see
+ * {@link TypeSignaturePart#kind()}), so code which handles each kind differently can switch over the kind of a part,
+ * rather than testing it against each class in turn. Note that, unlike {@code instanceof TypeFill}, the kind of an inner
+ * type is {@link TypeKind#INNER}, not {@link TypeKind#FILL}.
+ */
+public enum TypeKind {
+    /**
+     * A {@link TypeFill} which is not a {@link TypeInner}: a primitive type, or a class type with its filled type
+     * parameters.
+     */
+    FILL,
+    /**
+     * A {@link TypeInner}.
+     */
+    INNER,
+    /**
+     * A {@link TypeArray}.
+     */
+    ARRAY,
+    /**
+     * A {@link TypeWild}.
+     */
+    WILD,
+    /**
+     * A {@link TypeVarRef}.
+     */
+    VAR_REF,
+    /**
+     * A {@link TypeVar}.
+     */
+    VAR,
+    /**
+     * A {@link TypeParameterized}.
+     */
+    PARAMETERIZED
+
+}
@@ -21,12 +21,13 @@
  */
 package com.gmail.socraticphoenix.asmsig.type;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.Function;
 
-import com.gmail.socraticphoenix.asmsig.Signatures;
 import org.objectweb.asm.Type;
 
 /**
@@ -35,6 +36,8 @@ import org.objectweb.asm.Type;
 public class TypeParameterized implements TypeSignaturePart {
     private Type type;
     private List<TypeVar> paras;
+    private boolean frozen;
+    private int hash;
 
     /**
      * Creates a new parameterized type with the given {@link Type}.
@@ -42,8 +45,18 @@ public class TypeParameterized implements TypeSignaturePart {
      * @param type The type.
      */
     public TypeParameterized(Type type) {
+        this(type, Collections.emptyList());
+    }
+
+    /**
+     * Creates a new parameterized type with the given {@link Type} and the given formal type parameters.
+     *
+     * @param type The type.
+     * @param paras The formal type parameters.
+     */
+    public TypeParameterized(Type type, List<TypeVar> paras) {
         this.type = type;
-        this.paras = new ArrayList<>();
+        this.paras = CompactList.copyOf(paras);
     }
 
     /**
@@ -59,11 +72,13 @@ public class TypeParameterized implements TypeSignaturePart {
      * @param type The new base type.
      */
     public void setType(Type type) {
+        this.checkMutable();
         this.type = type;
     }
 
     /**
-     * @return A list of the formal type parameters associated with this parameterized type.
+     * @return A list of the formal type parameters associated with this parameterized type. The list may be
+     * unmodifiable, use {@link TypeParameterized#addParameter(TypeVar)} to add a formal type parameter.
      */
     public List<TypeVar> getParameters() {
         return this.paras;
@@ -75,6 +90,10 @@ public class TypeParameterized implements TypeSignaturePart {
      * @param var The formal type parameter to add.
      */
     public void addParameter(TypeVar var) {
+        this.checkMutable();
+        if (!(this.paras instanceof ArrayList)) {
+            this.paras = new ArrayList<>(this.paras);
+        }
         this.paras.add(var);
     }
 
@@ -82,45 +101,86 @@ public class TypeParameterized implements TypeSignaturePart {
      * @return The formatted parameters of this parameterized type, as they would appear in bytecode.
      */
     public String writeParams() {
-        StringBuilder k = new StringBuilder();
-        if(!this.paras.isEmpty()) {
-            k.append("<");
-            this.paras.forEach(f -> k.append(f.write()));
-            k.append(">");
+        StringBuilder builder = new StringBuilder();
+        try {
+            this.writeParams(builder);
+        } catch (IOException e) {
+            //StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
         }
-        return k.toString();
+        return builder.toString();
     }
 
-    @Override
-    public String write() {
-        StringBuilder k = new StringBuilder().append(Signatures.writeStart(this.type));
+    /**
+     * Appends the formatted parameters of this parameterized type, as they would appear in bytecode, to the given
+     * output.
+     *
+     * @param out The output to append to.
+     * @throws IOException If the output throws an IOException.
+     */
+    public void writeParams(Appendable out) throws IOException {
         if(!this.paras.isEmpty()) {
-            k.append("<");
-            this.paras.forEach(f -> k.append(f.write()));
-            k.append(">");
+            out.append('<');
+            for (int i = 0; i < this.paras.size(); i++) {
+                this.paras.get(i).write(out);
+            }
+            out.append('>');
         }
-        return k.append(Signatures.writeEnd(this.type)).toString();
+    }
+
+    @Override
+    public void write(Appendable out) throws IOException {
+        TypeTraversal.write(this, out);
     }
 
     @Override
     public TypeParameterized map(Function<Type, Type> mapper) {
-        TypeParameterized type = new TypeParameterized(mapper.apply(this.type));
-        this.paras.forEach(t -> type.addParameter(t.map(mapper)));
-        return type;
+        return (TypeParameterized) TypeTraversal.map(this, mapper);
+    }
+
+    @Override
+    public TypeParameterized freeze() {
+        return this.frozen ? this : (TypeParameterized) TypeTraversal.freeze(this);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    @Override
+    public TypeKind kind() {
+        return TypeKind.PARAMETERIZED;
+    }
+
+    @Override
+    public <R> R accept(TypeVisitor<R> visitor) {
+        return visitor.visitParameterized(this);
+    }
+
+    void seal() {
+        this.frozen = true;
+        this.hash = this.computeHash();
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Frozen signature parts may not be modified");
+        }
+    }
+
+    private int computeHash() {
+        return TypeTraversal.hash(this);
     }
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        TypeParameterized that = (TypeParameterized) o;
-        return Objects.equals(type, that.type) &&
-                Objects.equals(paras, that.paras);
+        return TypeTraversal.equals(this, o);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, paras);
+        return this.frozen ? this.hash : this.computeHash();
     }
 
 }
@@ -24,33 +24,95 @@ package com.gmail.socraticphoenix.asmsig.type;
 import com.gmail.socraticphoenix.asmsig.Signatures;
 import org.objectweb.asm.Type;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.function.Function;
 
 /**
  * Represents an element of a signature or an element of an element of a signature. All TypeSignatureParts are mutable
  * so that they can be built up through ASM's visitor pattern, but you are strongly advised not to mutate them yourself
- * after they have first been initialized.
+ * after they have first been initialized. An immutable snapshot of a signature part, which can be safely shared
+ * between threads and cached, can be obtained through {@link TypeSignaturePart#freeze()}.
  */
 public interface TypeSignaturePart {
 
     /**
      * @return The formatted signature part, as it would appear in bytecode.
      */
-    String write();
+    default String write() {
+        StringBuilder builder = new StringBuilder();
+        this.write(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Appends the formatted signature part, as it would appear in bytecode, to the given builder.
+     *
+     * @param builder The builder to append to.
+     */
+    default void write(StringBuilder builder) {
+        try {
+            this.write((Appendable) builder);
+        } catch (IOException e) {
+            //StringBuilder never throws an IOException
+            throw new UncheckedIOException(e);
+        }
+    }
 
     /**
-     * Maps the Types contained by this signature part
+     * Appends the formatted signature part, as it would appear in bytecode, to the given output. The whole signature
+     * part is written directly into the output, without building any intermediate strings.
+     *
+     * @param out The output to append to.
+     * @throws IOException If the output throws an IOException.
+     */
+    void write(Appendable out) throws IOException;
+
+    /**
+     * Maps the Types contained by this signature part. Subtrees whose types are all mapped to equal types are not
+     * copied: the mapped signature part shares them with this signature part, and this signature part itself is
+     * returned if none of its types change. See {@link com.gmail.socraticphoenix.asmsig.Signatures#memoizing(Function)}
+     * for mappers which should only be applied once per distinct type.
      *
      * @param mapper The mapper to use
-     * @return A mapped signature part
+     * @return A mapped signature part, which may share parts with, or be, this signature part
      */
     TypeSignaturePart map(Function<Type, Type> mapper);
 
+    /**
+     * Creates an immutable, deep snapshot of this signature part. The hash code of the snapshot is computed once, and
+     * the snapshot is interned in a weakly referenced pool of canonical signature parts (see {@link TypeInterner}), so
+     * that structurally equal frozen signature parts are the same instance. Attempting to modify a frozen signature
+     * part will throw an {@link UnsupportedOperationException}.
+     *
+     * @return The canonical frozen snapshot of this signature part, or this if it is already frozen.
+     */
+    TypeSignaturePart freeze();
+
+    /**
+     * @return True if this signature part is frozen, and therefore immutable, false otherwise.
+     */
+    boolean isFrozen();
+
+    /**
+     * @return The kind of this signature part.
+     */
+    TypeKind kind();
+
+    /**
+     * Calls the method of the given visitor for the kind of this signature part.
+     *
+     * @param visitor The visitor.
+     * @param <R> The type of the result of the visitor.
+     * @return The result of the visitor.
+     */
+    <R> R accept(TypeVisitor<R> visitor);
+
     /**
      * @return True if this is a primitive type, false otherwise.
      */
     default boolean isPrimitive() {
-        return this instanceof TypeFill && Signatures.isPrimitive(((TypeFill) this).getType());
+        return this.kind() == TypeKind.FILL && Signatures.isPrimitive(((TypeFill) this).getType());
     }
 
     /**
@@ -64,49 +126,50 @@ public interface TypeSignaturePart {
      * @return True if this is an array type, false otherwise.
      */
     default boolean isArray() {
-        return this instanceof TypeArray;
+        return this.kind() == TypeKind.ARRAY;
     }
 
     /**
      * @return True if this is a filled type, false otherwise.
      */
     default boolean isFill() {
-        return this instanceof TypeFill;
+        TypeKind kind = this.kind();
+        return kind == TypeKind.FILL || kind == TypeKind.INNER;
     }
 
     /**
      * @return True if this is a inner type, false otherwise.
      */
     default boolean isInner() {
-        return this instanceof TypeInner;
+        return this.kind() == TypeKind.INNER;
     }
 
     /**
      * @return True if this is a parameterized type, false otherwise.
      */
     default boolean isParameterized() {
-        return this instanceof TypeParameterized;
+        return this.kind() == TypeKind.PARAMETERIZED;
     }
 
     /**
      * @return True if this is a formal type variable, false otherwise.
      */
     default boolean isVar() {
-        return this instanceof TypeVar;
+        return this.kind() == TypeKind.VAR;
     }
 
     /**
      * @return True if this is a reference to a formal type variable, false otherwise.
      */
     default boolean isVarRef() {
-        return this instanceof TypeVarRef;
+        return this.kind() == TypeKind.VAR_REF;
     }
 
     /**
      * @return True if this is a wildcard type, false otherwise.
      */
     default boolean isWild() {
-        return this instanceof TypeWild;
+        return this.kind() == TypeKind.WILD;
     }
 
 }
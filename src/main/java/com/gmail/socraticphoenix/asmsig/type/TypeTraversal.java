@@ -0,0 +1,776 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.type;
+
+import com.gmail.socraticphoenix.asmsig.Signatures;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Stack safe implementations of the operations which walk a whole tree of signature parts: writing, hashing, comparing,
+ * mapping and freezing. Each walk recurses, without allocating, up to a fixed depth, and continues any deeper subtree
+ * with an explicit stack on the heap, so that arbitrarily deeply nested signature parts (such as 255 dimension arrays,
+ * or type arguments nested hundreds deep) are handled in time linear in their size, without overflowing the stack of
+ * the calling thread, while ordinary signatures pay nothing for it. The results are exactly those of the natural
+ * recursive definitions. Every walk switches over the {@link TypeKind} of each part, rather than testing it against
+ * each class in turn.
+ */
+class TypeTraversal {
+    private static final Object END = new Object();
+    private static final int MAX_DEPTH = 96;
+
+    private static final int WRITE = 0;
+    private static final int BODY = 1;
+    private static final int ARGUMENTS = 2;
+    private static final int NAME = 3;
+    private static final int CLOSE = 4;
+    private static final int CHAR = 5;
+
+    static void write(TypeSignaturePart root, Appendable out) throws IOException {
+        TypeTraversal.write(root, out, 0);
+    }
+
+    static int hash(TypeSignaturePart root) {
+        return TypeTraversal.hash(root, 0);
+    }
+
+    static boolean equals(TypeSignaturePart root, Object other) {
+        return TypeTraversal.equals(root, other, 0);
+    }
+
+    static TypeSignaturePart map(TypeSignaturePart root, Function<Type, Type> mapper) {
+        return TypeTraversal.rebuild(root, mapper, 0);
+    }
+
+    static TypeSignaturePart freeze(TypeSignaturePart root) {
+        return TypeTraversal.rebuild(root, null, 0);
+    }
+
+    private static void write(TypeSignaturePart part, Appendable out, int depth) throws IOException {
+        if (depth >= MAX_DEPTH) {
+            TypeTraversal.writeIteratively(WRITE, part, out);
+            return;
+        }
+
+        switch (part.kind()) {
+            case FILL:
+            case INNER:
+                TypeTraversal.writeBody((TypeFill) part, out, depth);
+                Signatures.writeEnd(((TypeFill) part).getType(), out);
+                break;
+            case ARRAY:
+                out.append('[');
+                TypeTraversal.write(((TypeArray) part).getType(), out, depth + 1);
+                break;
+            case WILD:
+                TypeWild wild = (TypeWild) part;
+                if (wild.getUpper() != null) {
+                    out.append('+');
+                    TypeTraversal.write(wild.getUpper(), out, depth + 1);
+                } else if (wild.getLower() != null) {
+                    out.append('-');
+                    TypeTraversal.write(wild.getLower(), out, depth + 1);
+                } else {
+                    out.append('*');
+                }
+                break;
+            case VAR_REF:
+                out.append('T').append(((TypeVarRef) part).getName()).append(';');
+                break;
+            case VAR:
+                TypeVar var = (TypeVar) part;
+                out.append(var.getName()).append(':');
+                if (var.getClassBound() != null) {
+                    TypeTraversal.write(var.getClassBound(), out, depth + 1);
+                }
+                List<TypeInformal> interBound = var.getInterBound();
+                for (int i = 0; i < interBound.size(); i++) {
+                    out.append(':');
+                    TypeTraversal.write(interBound.get(i), out, depth + 1);
+                }
+                break;
+            default:
+                TypeParameterized parameterized = (TypeParameterized) part;
+                Signatures.writeStart(parameterized.getType(), out);
+                TypeTraversal.writeArguments(parameterized.getParameters(), out, depth);
+                Signatures.writeEnd(parameterized.getType(), out);
+                break;
+        }
+    }
+
+    private static void writeBody(TypeFill fill, Appendable out, int depth) throws IOException {
+        //The body of a class type is everything but its closing semicolon, and the outer classes of an inner class type
+        //only contribute their bodies
+        if (fill.kind() == TypeKind.INNER) {
+            TypeFill outer = ((TypeInner) fill).getOuter();
+            if (depth >= MAX_DEPTH) {
+                TypeTraversal.writeIteratively(BODY, outer, out);
+            } else {
+                TypeTraversal.writeBody(outer, out, depth + 1);
+            }
+            out.append('.').append(fill.getType().getInternalName());
+        } else {
+            Signatures.writeStart(fill.getType(), out);
+        }
+        TypeTraversal.writeArguments(fill.getFill(), out, depth);
+    }
+
+    private static void writeArguments(List<? extends TypeSignaturePart> parts, Appendable out, int depth) throws IOException {
+        if (!parts.isEmpty()) {
+            out.append('<');
+            for (int i = 0; i < parts.size(); i++) {
+                TypeTraversal.write(parts.get(i), out, depth + 1);
+            }
+            out.append('>');
+        }
+    }
+
+    private static void writeIteratively(int start, TypeSignaturePart root, Appendable out) throws IOException {
+        Stack stack = new Stack();
+        stack.push(start, root);
+        while (!stack.isEmpty()) {
+            int op = stack.value();
+            Object item = stack.pop();
+            switch (op) {
+                case WRITE:
+                    TypeTraversal.write((TypeSignaturePart) item, out, stack);
+                    break;
+                case BODY:
+                    TypeFill fill = (TypeFill) item;
+                    if (fill.kind() == TypeKind.INNER) {
+                        stack.push(ARGUMENTS, fill);
+                        stack.push(NAME, fill.getType());
+                        stack.push(BODY, ((TypeInner) fill).getOuter());
+                    } else {
+                        Signatures.writeStart(fill.getType(), out);
+                        TypeTraversal.writeArguments(fill.getFill(), out, stack);
+                    }
+                    break;
+                case ARGUMENTS:
+                    TypeTraversal.writeArguments(((TypeFill) item).getFill(), out, stack);
+                    break;
+                case NAME:
+                    out.append('.').append(((Type) item).getInternalName());
+                    break;
+                case CLOSE:
+                    Signatures.writeEnd((Type) item, out);
+                    break;
+                case CHAR:
+                    out.append((Character) item);
+                    break;
+            }
+        }
+    }
+
+    private static int hash(TypeSignaturePart node, int depth) {
+        //Every hash is that of Objects.hash over the components, which is the same fold as the hash of a list
+        if (depth >= MAX_DEPTH) {
+            return TypeTraversal.hashIteratively(node);
+        }
+
+        switch (node.kind()) {
+            case FILL: {
+                TypeFill fill = (TypeFill) node;
+                return 31 * (31 + Objects.hashCode(fill.getType())) + TypeTraversal.hash(fill.getFill(), depth);
+            }
+            case INNER: {
+                TypeInner inner = (TypeInner) node;
+                int hash = 31 * (31 + Objects.hashCode(inner.getType())) + TypeTraversal.hash(inner.getFill(), depth);
+                return 31 * hash + TypeTraversal.hashPart(inner.getOuter(), depth);
+            }
+            case ARRAY:
+                return 31 + TypeTraversal.hashPart(((TypeArray) node).getType(), depth);
+            case WILD: {
+                TypeWild wild = (TypeWild) node;
+                return 31 * (31 + TypeTraversal.hashPart(wild.getUpper(), depth)) + TypeTraversal.hashPart(wild.getLower(), depth);
+            }
+            case VAR_REF:
+                return 31 + Objects.hashCode(((TypeVarRef) node).getName());
+            case VAR: {
+                TypeVar var = (TypeVar) node;
+                int hash = 31 * (31 + Objects.hashCode(var.getName())) + TypeTraversal.hashPart(var.getClassBound(), depth);
+                return 31 * hash + TypeTraversal.hash(var.getInterBound(), depth);
+            }
+            default: {
+                TypeParameterized parameterized = (TypeParameterized) node;
+                return 31 * (31 + Objects.hashCode(parameterized.getType())) + TypeTraversal.hash(parameterized.getParameters(), depth);
+            }
+        }
+    }
+
+    private static int hash(List<? extends TypeSignaturePart> parts, int depth) {
+        int hash = 1;
+        for (int i = 0; i < parts.size(); i++) {
+            hash = 31 * hash + TypeTraversal.hashPart(parts.get(i), depth + 1);
+        }
+        return hash;
+    }
+
+    private static int hashPart(TypeSignaturePart part, int depth) {
+        //Frozen parts have already computed their hash codes
+        if (part == null) {
+            return 0;
+        }
+        return part.isFrozen() ? part.hashCode() : TypeTraversal.hash(part, depth + 1);
+    }
+
+    private static int hashIteratively(Object root) {
+        Stack stack = new Stack();
+        stack.push(0, root);
+        while (true) {
+            Object node = stack.item();
+            int index = stack.value();
+            stack.set(index + 1);
+            Object component = TypeTraversal.component(node, index);
+            if (component == END) {
+                int hash = stack.accumulator();
+                stack.pop();
+                if (stack.isEmpty()) {
+                    return hash;
+                }
+                stack.accumulate(hash);
+            } else if (TypeTraversal.isHashed(component)) {
+                stack.push(0, component);
+            } else {
+                stack.accumulate(Objects.hashCode(component));
+            }
+        }
+    }
+
+    private static boolean equals(TypeSignaturePart a, Object b, int depth) {
+        if (a == b) {
+            return true;
+        } else if (b == null || !TypeTraversal.isComparable(a, b)) {
+            return false;
+        } else if (depth >= MAX_DEPTH) {
+            return TypeTraversal.equalsIteratively(a, b);
+        }
+
+        switch (a.kind()) {
+            case FILL: {
+                TypeFill left = (TypeFill) a;
+                TypeFill right = (TypeFill) b;
+                return Objects.equals(left.getType(), right.getType()) && TypeTraversal.equals(left.getFill(), right.getFill(), depth);
+            }
+            case INNER: {
+                TypeInner left = (TypeInner) a;
+                TypeInner right = (TypeInner) b;
+                return Objects.equals(left.getType(), right.getType()) && TypeTraversal.equals(left.getFill(), right.getFill(), depth)
+                        && TypeTraversal.equalsPart(left.getOuter(), right.getOuter(), depth);
+            }
+            case ARRAY:
+                return TypeTraversal.equalsPart(((TypeArray) a).getType(), ((TypeArray) b).getType(), depth);
+            case WILD: {
+                TypeWild left = (TypeWild) a;
+                TypeWild right = (TypeWild) b;
+                return TypeTraversal.equalsPart(left.getUpper(), right.getUpper(), depth) && TypeTraversal.equalsPart(left.getLower(), right.getLower(), depth);
+            }
+            case VAR_REF:
+                return Objects.equals(((TypeVarRef) a).getName(), ((TypeVarRef) b).getName());
+            case VAR: {
+                TypeVar left = (TypeVar) a;
+                TypeVar right = (TypeVar) b;
+                return Objects.equals(left.getName(), right.getName()) && TypeTraversal.equalsPart(left.getClassBound(), right.getClassBound(), depth)
+                        && TypeTraversal.equals(left.getInterBound(), right.getInterBound(), depth);
+            }
+            default: {
+                TypeParameterized left = (TypeParameterized) a;
+                TypeParameterized right = (TypeParameterized) b;
+                return Objects.equals(left.getType(), right.getType()) && TypeTraversal.equals(left.getParameters(), right.getParameters(), depth);
+            }
+        }
+    }
+
+    private static boolean equals(List<? extends TypeSignaturePart> left, List<? extends TypeSignaturePart> right, int depth) {
+        if (left == right) {
+            return true;
+        } else if (left.size() != right.size()) {
+            return false;
+        }
+        for (int i = 0; i < left.size(); i++) {
+            if (!TypeTraversal.equalsPart(left.get(i), right.get(i), depth + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsPart(TypeSignaturePart left, TypeSignaturePart right, int depth) {
+        if (left == right) {
+            return true;
+        } else if (left == null || right == null) {
+            return false;
+        }
+        return TypeTraversal.equals(left, right, depth + 1);
+    }
+
+    private static boolean equalsIteratively(Object root, Object other) {
+        Stack stack = new Stack();
+        stack.push(0, root);
+        stack.push(0, other);
+        while (!stack.isEmpty()) {
+            Object b = stack.pop();
+            Object a = stack.pop();
+            if (a == b) {
+                continue;
+            } else if (a == null || b == null) {
+                return false;
+            } else if (a instanceof List) {
+                if (!(b instanceof List) || ((List<?>) a).size() != ((List<?>) b).size()) {
+                    return false;
+                }
+                List<?> left = (List<?>) a;
+                List<?> right = (List<?>) b;
+                for (int i = 0; i < left.size(); i++) {
+                    stack.push(0, left.get(i));
+                    stack.push(0, right.get(i));
+                }
+            } else if (a instanceof TypeSignaturePart) {
+                if (!TypeTraversal.isComparable((TypeSignaturePart) a, b)) {
+                    return false;
+                }
+
+                for (int i = 0; ; i++) {
+                    Object component = TypeTraversal.component(a, i);
+                    if (component == END) {
+                        break;
+                    }
+                    Object otherComponent = TypeTraversal.component(b, i);
+                    if (component instanceof List || component instanceof TypeSignaturePart) {
+                        stack.push(0, component);
+                        stack.push(0, otherComponent);
+                    } else if (!Objects.equals(component, otherComponent)) {
+                        return false;
+                    }
+                }
+            } else if (!a.equals(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static TypeSignaturePart rebuild(TypeSignaturePart node, Function<Type, Type> mapper, int depth) {
+        //A null mapper freezes rather than maps; the components are rebuilt in the order of the recursive definition
+        if (depth >= MAX_DEPTH) {
+            return (TypeSignaturePart) TypeTraversal.rebuildIteratively(node, mapper);
+        }
+
+        switch (node.kind()) {
+            case FILL: {
+                TypeFill fill = (TypeFill) node;
+                Type type = TypeTraversal.rebuild(fill.getType(), mapper);
+                return TypeTraversal.build(fill, type, TypeTraversal.list(TypeTraversal.rebuild(fill.getFill(), mapper, depth)), mapper);
+            }
+            case INNER: {
+                TypeInner inner = (TypeInner) node;
+                Type type = TypeTraversal.rebuild(inner.getType(), mapper);
+                TypeSignaturePart outer = TypeTraversal.rebuildPart(inner.getOuter(), mapper, depth);
+                return TypeTraversal.build(inner, type, (TypeFill) outer, TypeTraversal.list(TypeTraversal.rebuild(inner.getFill(), mapper, depth)), mapper);
+            }
+            case ARRAY: {
+                TypeArray array = (TypeArray) node;
+                return TypeTraversal.build(array, (TypeInformal) TypeTraversal.rebuildPart(array.getType(), mapper, depth), mapper);
+            }
+            case WILD: {
+                TypeWild wild = (TypeWild) node;
+                TypeInformal upper = (TypeInformal) TypeTraversal.rebuildPart(wild.getUpper(), mapper, depth);
+                return TypeTraversal.build(wild, upper, (TypeInformal) TypeTraversal.rebuildPart(wild.getLower(), mapper, depth), mapper);
+            }
+            case VAR_REF:
+                return TypeTraversal.build((TypeVarRef) node, mapper);
+            case VAR: {
+                TypeVar var = (TypeVar) node;
+                TypeInformal classBound = (TypeInformal) TypeTraversal.rebuildPart(var.getClassBound(), mapper, depth);
+                return TypeTraversal.build(var, classBound, TypeTraversal.list(TypeTraversal.rebuild(var.getInterBound(), mapper, depth)), mapper);
+            }
+            default: {
+                TypeParameterized parameterized = (TypeParameterized) node;
+                Type type = TypeTraversal.rebuild(parameterized.getType(), mapper);
+                return TypeTraversal.build(parameterized, type, TypeTraversal.list(TypeTraversal.rebuild(parameterized.getParameters(), mapper, depth)), mapper);
+            }
+        }
+    }
+
+    private static List<?> rebuild(List<? extends TypeSignaturePart> parts, Function<Type, Type> mapper, int depth) {
+        Object[] rebuilt = null;
+        for (int i = 0; i < parts.size(); i++) {
+            TypeSignaturePart part = parts.get(i);
+            Object result = TypeTraversal.rebuildPart(part, mapper, depth + 1);
+            if (rebuilt == null && result != part) {
+                rebuilt = new Object[parts.size()];
+                for (int j = 0; j < i; j++) {
+                    rebuilt[j] = parts.get(j);
+                }
+            }
+            if (rebuilt != null) {
+                rebuilt[i] = result;
+            }
+        }
+        return TypeTraversal.build(parts, rebuilt, mapper);
+    }
+
+    private static TypeSignaturePart rebuildPart(TypeSignaturePart part, Function<Type, Type> mapper, int depth) {
+        //Frozen parts are already frozen all the way down
+        if (part == null || (mapper == null && part.isFrozen())) {
+            return part;
+        }
+        return TypeTraversal.rebuild(part, mapper, depth + 1);
+    }
+
+    private static Type rebuild(Type type, Function<Type, Type> mapper) {
+        return mapper == null ? type : mapper.apply(type);
+    }
+
+    private static Object rebuildIteratively(Object root, Function<Type, Type> mapper) {
+        //The nodes being rebuilt are on the stack, and the rebuilt components of each node are on the values stack
+        //above the base stored as the node's accumulator; a null mapper freezes rather than maps
+        Stack stack = new Stack();
+        Stack values = new Stack();
+        stack.push(0, root);
+        stack.base(0);
+        while (true) {
+            Object node = stack.item();
+            int index = stack.value();
+            stack.set(index + 1);
+            Object component = TypeTraversal.orderedComponent(node, index);
+            if (component == END) {
+                int base = stack.accumulator();
+                Object result;
+                if (node instanceof List) {
+                    List<?> list = (List<?>) node;
+                    boolean same = true;
+                    for (int i = 0; i < list.size() && same; i++) {
+                        same = values.items[base + i] == list.get(i);
+                    }
+                    result = TypeTraversal.build(list, same ? null : Arrays.copyOfRange(values.items, base, base + list.size()), mapper);
+                } else {
+                    result = TypeTraversal.build(node, values.get(base), values.get(base + 1), values.get(base + 2), mapper);
+                }
+                values.truncate(base);
+                stack.pop();
+                if (stack.isEmpty()) {
+                    return result;
+                }
+                values.push(0, result);
+            } else if (component instanceof Type) {
+                values.push(0, mapper == null ? component : mapper.apply((Type) component));
+            } else if (TypeTraversal.isRebuilt(component, mapper)) {
+                stack.push(0, component);
+                stack.base(values.size);
+            } else {
+                values.push(0, component);
+            }
+        }
+    }
+
+    private static List<?> build(List<?> list, Object[] rebuilt, Function<Type, Type> mapper) {
+        //The rebuilt elements are null if every element was unchanged; frozen parts store their children in compact lists
+        if (rebuilt == null && (mapper != null || list instanceof CompactList)) {
+            return list;
+        }
+        return CompactList.wrap(rebuilt != null ? rebuilt : list.toArray());
+    }
+
+    private static Object build(Object node, Object first, Object second, Object third, Function<Type, Type> mapper) {
+        switch (((TypeSignaturePart) node).kind()) {
+            case FILL:
+                return TypeTraversal.build((TypeFill) node, (Type) first, TypeTraversal.list(second), mapper);
+            case INNER:
+                return TypeTraversal.build((TypeInner) node, (Type) first, (TypeFill) second, TypeTraversal.list(third), mapper);
+            case ARRAY:
+                return TypeTraversal.build((TypeArray) node, (TypeInformal) first, mapper);
+            case WILD:
+                return TypeTraversal.build((TypeWild) node, (TypeInformal) first, (TypeInformal) second, mapper);
+            case VAR_REF:
+                return TypeTraversal.build((TypeVarRef) node, mapper);
+            case VAR:
+                return TypeTraversal.build((TypeVar) node, (TypeInformal) second, TypeTraversal.list(third), mapper);
+            default:
+                return TypeTraversal.build((TypeParameterized) node, (Type) first, TypeTraversal.list(second), mapper);
+        }
+    }
+
+    private static TypeInner build(TypeInner inner, Type type, TypeFill outer, List<TypeInformal> fill, Function<Type, Type> mapper) {
+        if (mapper == null) {
+            TypeInner frozen = new TypeInner(type, outer, fill);
+            frozen.seal();
+            return TypeInterner.intern(frozen);
+        }
+        return type.equals(inner.getType()) && outer == inner.getOuter() && fill == inner.getFill() ? inner : new TypeInner(type, outer, fill);
+    }
+
+    private static TypeFill build(TypeFill fill, Type type, List<TypeInformal> parts, Function<Type, Type> mapper) {
+        if (mapper == null) {
+            TypeFill frozen = new TypeFill(type, parts);
+            frozen.seal();
+            return TypeInterner.intern(frozen);
+        }
+        return type.equals(fill.getType()) && parts == fill.getFill() ? fill : new TypeFill(type, parts);
+    }
+
+    private static TypeArray build(TypeArray array, TypeInformal type, Function<Type, Type> mapper) {
+        if (mapper == null) {
+            TypeArray frozen = new TypeArray(type);
+            frozen.seal();
+            return TypeInterner.intern(frozen);
+        }
+        return type == array.getType() ? array : new TypeArray(type);
+    }
+
+    private static TypeWild build(TypeWild wild, TypeInformal upper, TypeInformal lower, Function<Type, Type> mapper) {
+        if (mapper == null) {
+            TypeWild frozen = new TypeWild(upper, lower);
+            frozen.seal();
+            return TypeInterner.intern(frozen);
+        }
+        return upper == wild.getUpper() && lower == wild.getLower() ? wild : new TypeWild(upper, lower);
+    }
+
+    private static TypeVarRef build(TypeVarRef ref, Function<Type, Type> mapper) {
+        if (mapper == null) {
+            TypeVarRef frozen = new TypeVarRef(ref.getName());
+            frozen.seal();
+            return TypeInterner.intern(frozen);
+        }
+        //A type variable reference holds no types, so it is never changed
+        return ref;
+    }
+
+    private static TypeVar build(TypeVar var, TypeInformal classBound, List<TypeInformal> interBound, Function<Type, Type> mapper) {
+        if (mapper == null) {
+            TypeVar frozen = new TypeVar(var.getName(), classBound, interBound);
+            frozen.seal();
+            return TypeInterner.intern(frozen);
+        }
+        return classBound == var.getClassBound() && interBound == var.getInterBound() ? var : new TypeVar(var.getName(), classBound, interBound);
+    }
+
+    private static TypeParameterized build(TypeParameterized parameterized, Type type, List<TypeVar> paras, Function<Type, Type> mapper) {
+        if (mapper == null) {
+            TypeParameterized frozen = new TypeParameterized(type, paras);
+            frozen.seal();
+            return TypeInterner.intern(frozen);
+        }
+        return type.equals(parameterized.getType()) && paras == parameterized.getParameters() ? parameterized : new TypeParameterized(type, paras);
+    }
+
+    private static Object orderedComponent(Object node, int index) {
+        //Inner class types map their outer class type before their type arguments, as the recursive definition did
+        if ((index == 1 || index == 2) && node instanceof TypeSignaturePart && ((TypeSignaturePart) node).kind() == TypeKind.INNER) {
+            return TypeTraversal.component(node, 3 - index);
+        }
+        return TypeTraversal.component(node, index);
+    }
+
+    private static Object component(Object node, int index) {
+        if (node instanceof List) {
+            List<?> list = (List<?>) node;
+            return index < list.size() ? list.get(index) : END;
+        }
+
+        switch (((TypeSignaturePart) node).kind()) {
+            case FILL:
+                return index == 0 ? ((TypeFill) node).getType() : index == 1 ? ((TypeFill) node).getFill() : END;
+            case INNER: {
+                TypeInner inner = (TypeInner) node;
+                return index == 0 ? inner.getType() : index == 1 ? inner.getFill() : index == 2 ? inner.getOuter() : END;
+            }
+            case ARRAY:
+                return index == 0 ? ((TypeArray) node).getType() : END;
+            case WILD: {
+                TypeWild wild = (TypeWild) node;
+                return index == 0 ? wild.getUpper() : index == 1 ? wild.getLower() : END;
+            }
+            case VAR_REF:
+                return index == 0 ? ((TypeVarRef) node).getName() : END;
+            case VAR: {
+                TypeVar var = (TypeVar) node;
+                return index == 0 ? var.getName() : index == 1 ? var.getClassBound() : index == 2 ? var.getInterBound() : END;
+            }
+            default: {
+                TypeParameterized parameterized = (TypeParameterized) node;
+                return index == 0 ? parameterized.getType() : index == 1 ? parameterized.getParameters() : END;
+            }
+        }
+    }
+
+    private static void write(TypeSignaturePart part, Appendable out, Stack stack) throws IOException {
+        switch (part.kind()) {
+            case FILL:
+            case INNER:
+                stack.push(CLOSE, ((TypeFill) part).getType());
+                stack.push(BODY, part);
+                break;
+            case ARRAY:
+                out.append('[');
+                stack.push(WRITE, ((TypeArray) part).getType());
+                break;
+            case WILD:
+                TypeWild wild = (TypeWild) part;
+                if (wild.getUpper() != null) {
+                    out.append('+');
+                    stack.push(WRITE, wild.getUpper());
+                } else if (wild.getLower() != null) {
+                    out.append('-');
+                    stack.push(WRITE, wild.getLower());
+                } else {
+                    out.append('*');
+                }
+                break;
+            case VAR_REF:
+                out.append('T').append(((TypeVarRef) part).getName()).append(';');
+                break;
+            case VAR:
+                TypeVar var = (TypeVar) part;
+                out.append(var.getName()).append(':');
+                List<TypeInformal> interBound = var.getInterBound();
+                for (int i = interBound.size() - 1; i >= 0; i--) {
+                    stack.push(WRITE, interBound.get(i));
+                    stack.push(CHAR, ':');
+                }
+                if (var.getClassBound() != null) {
+                    stack.push(WRITE, var.getClassBound());
+                }
+                break;
+            default:
+                TypeParameterized parameterized = (TypeParameterized) part;
+                Signatures.writeStart(parameterized.getType(), out);
+                stack.push(CLOSE, parameterized.getType());
+                TypeTraversal.writeArguments(parameterized.getParameters(), out, stack);
+                break;
+        }
+    }
+
+    private static void writeArguments(List<? extends TypeSignaturePart> parts, Appendable out, Stack stack) throws IOException {
+        if (!parts.isEmpty()) {
+            out.append('<');
+            stack.push(CHAR, '>');
+            for (int i = parts.size() - 1; i >= 0; i--) {
+                stack.push(WRITE, parts.get(i));
+            }
+        }
+    }
+
+    private static boolean isHashed(Object component) {
+        //Frozen parts have already computed their hash codes
+        return component instanceof List || (component instanceof TypeSignaturePart && !((TypeSignaturePart) component).isFrozen());
+    }
+
+    private static boolean isRebuilt(Object component, Function<Type, Type> mapper) {
+        //Frozen parts are already frozen all the way down
+        return component instanceof List || (component instanceof TypeSignaturePart && (mapper != null || !((TypeSignaturePart) component).isFrozen()));
+    }
+
+    private static boolean isComparable(TypeSignaturePart part, Object other) {
+        if (part.getClass() != other.getClass()) {
+            return false;
+        }
+        TypeSignaturePart otherPart = (TypeSignaturePart) other;
+        return !part.isFrozen() || !otherPart.isFrozen() || part.hashCode() == otherPart.hashCode();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> list(Object list) {
+        return (List<T>) list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> list(List<?> list) {
+        return (List<T>) list;
+    }
+
+    private static class Stack {
+        private Object[] items;
+        private int[] values;
+        private int[] accumulators;
+        private int size;
+
+        public Stack() {
+            this.items = new Object[16];
+            this.values = new int[16];
+            this.accumulators = new int[16];
+        }
+
+        void push(int value, Object item) {
+            if (this.size == this.items.length) {
+                this.items = Arrays.copyOf(this.items, this.size * 2);
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+                this.accumulators = Arrays.copyOf(this.accumulators, this.size * 2);
+            }
+            this.items[this.size] = item;
+            this.values[this.size] = value;
+            this.accumulators[this.size] = 1;
+            this.size++;
+        }
+
+        Object pop() {
+            Object item = this.items[--this.size];
+            this.items[this.size] = null;
+            return item;
+        }
+
+        void truncate(int size) {
+            Arrays.fill(this.items, size, this.size, null);
+            this.size = size;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        Object item() {
+            return this.items[this.size - 1];
+        }
+
+        int value() {
+            return this.values[this.size - 1];
+        }
+
+        void set(int value) {
+            this.values[this.size - 1] = value;
+        }
+
+        Object get(int index) {
+            return index < this.size ? this.items[index] : null;
+        }
+
+        int accumulator() {
+            return this.accumulators[this.size - 1];
+        }
+
+        void accumulate(int hash) {
+            this.accumulators[this.size - 1] = 31 * this.accumulators[this.size - 1] + hash;
+        }
+
+        void base(int base) {
+            this.accumulators[this.size - 1] = base;
+        }
+
+    }
+
+}
@@ -21,20 +21,26 @@
  */
 package com.gmail.socraticphoenix.asmsig.type;
 
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
 import org.objectweb.asm.Type;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.Function;
 
 /**
  * Represents a formal type parameter in a method signature or a class signature.
  */
 public class TypeVar implements TypeSignaturePart {
+    private static final TypeFill OBJECT = new TypeFill(SymbolTable.OBJECT).freeze();
+
     private String name;
     private TypeInformal classBound;
     private List<TypeInformal> interBound;
+    private boolean frozen;
+    private int hash;
 
     /**
      * Creates a new formal type parameter with the given name.
@@ -42,17 +48,36 @@ public class TypeVar implements TypeSignaturePart {
      * @param name The name of this formal type parameter.
      */
     public TypeVar(String name) {
+        this(name, OBJECT, Collections.emptyList());
+    }
+
+    /**
+     * Creates a new formal type parameter with the given name and interface bounds, and a class bound of
+     * {@link Object}.
+     *
+     * @param name The name of this formal type parameter.
+     * @param interBound The interface bounds of this formal type parameter.
+     */
+    public TypeVar(String name, List<TypeInformal> interBound) {
+        this(name, OBJECT, interBound);
+    }
+
+    /**
+     * Creates a new formal type parameter with the given name, class bound and interface bounds.
+     *
+     * @param name The name of this formal type parameter.
+     * @param classBound The class bound of this formal type parameter, or null if it has no class bound.
+     * @param interBound The interface bounds of this formal type parameter.
+     */
+    public TypeVar(String name, TypeInformal classBound, List<TypeInformal> interBound) {
         this.name = name;
-        this.classBound = new TypeFill(Type.getType(Object.class));
-        this.interBound = new ArrayList<>();
+        this.classBound = classBound;
+        this.interBound = CompactList.copyOf(interBound);
     }
 
     @Override
     public TypeVar map(Function<Type, Type> mapper) {
-        TypeVar type = new TypeVar(this.name);
-        type.setClassBound(this.classBound.map(mapper));
-        this.getInterBound().forEach(t -> type.addInterBound(t.map(mapper)));
-        return type;
+        return (TypeVar) TypeTraversal.map(this, mapper);
     }
 
     /**
@@ -68,11 +93,15 @@ public class TypeVar implements TypeSignaturePart {
      * @param name The new name.
      */
     public void setName(String name) {
+        this.checkMutable();
         this.name = name;
     }
 
     /**
-     * @return The class bound of this formal type parameter (may be {@link Object}).
+     * @return The class bound of this formal type parameter (may be {@link Object}), or null if the class bound is
+     * absent, as in {@code T::Ljava/lang/Comparable<TT;>;}. An absent class bound is distinct from an explicit class
+     * bound of {@link Object}, as in {@code T:Ljava/lang/Object;:Ljava/lang/Comparable<TT;>;}, which is written and
+     * erased differently.
      */
     public TypeInformal getClassBound() {
         return this.classBound;
@@ -81,14 +110,16 @@ public class TypeVar implements TypeSignaturePart {
     /**
      * Sets the class bound of this formal type parameter.
      *
-     * @param classBound The new class bound.
+     * @param classBound The new class bound, or null to remove the class bound.
      */
     public void setClassBound(TypeInformal classBound) {
+        this.checkMutable();
         this.classBound = classBound;
     }
 
     /**
-     * @return The interface bounds of this formal type parameter (may be empty).
+     * @return The interface bounds of this formal type parameter (may be empty). The list may be unmodifiable, use
+     * {@link TypeVar#addInterBound(TypeInformal)} to add an interface bound.
      */
     public List<TypeInformal> getInterBound() {
         return this.interBound;
@@ -100,33 +131,61 @@ public class TypeVar implements TypeSignaturePart {
      * @param bound The bound to add.
      */
     public void addInterBound(TypeInformal bound) {
+        this.checkMutable();
+        if (!(this.interBound instanceof ArrayList)) {
+            this.interBound = new ArrayList<>(this.interBound);
+        }
         this.interBound.add(bound);
     }
 
     @Override
-    public String write() {
-        StringBuilder k = new StringBuilder().append(this.name)
-                .append(":")
-                .append(this.classBound.write());
-        if(!this.interBound.isEmpty()) {
-            this.interBound.forEach(f -> k.append(":").append(f.write()));
+    public void write(Appendable out) throws IOException {
+        TypeTraversal.write(this, out);
+    }
+
+    @Override
+    public TypeVar freeze() {
+        return this.frozen ? this : (TypeVar) TypeTraversal.freeze(this);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    @Override
+    public TypeKind kind() {
+        return TypeKind.VAR;
+    }
+
+    @Override
+    public <R> R accept(TypeVisitor<R> visitor) {
+        return visitor.visitVar(this);
+    }
+
+    void seal() {
+        this.frozen = true;
+        this.hash = this.computeHash();
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Frozen signature parts may not be modified");
         }
-        return k.toString();
+    }
+
+    private int computeHash() {
+        return TypeTraversal.hash(this);
     }
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        TypeVar typeVar = (TypeVar) o;
-        return Objects.equals(name, typeVar.name) &&
-                Objects.equals(classBound, typeVar.classBound) &&
-                Objects.equals(interBound, typeVar.interBound);
+        return TypeTraversal.equals(this, o);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, classBound, interBound);
+        return this.frozen ? this.hash : this.computeHash();
     }
 
 }
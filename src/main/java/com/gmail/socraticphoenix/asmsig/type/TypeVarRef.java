@@ -23,6 +23,7 @@ package com.gmail.socraticphoenix.asmsig.type;
 
 import org.objectweb.asm.Type;
 
+import java.io.IOException;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -31,6 +32,8 @@ import java.util.function.Function;
  */
 public class TypeVarRef implements TypeSignaturePart, TypeInformal {
     private String name;
+    private boolean frozen;
+    private int hash;
 
     /**
      * Creates a new reference to a formal type parameter with the given name.
@@ -54,12 +57,54 @@ public class TypeVarRef implements TypeSignaturePart, TypeInformal {
      * @param name The new name.
      */
     public void setName(String name) {
+        this.checkMutable();
         this.name = name;
     }
 
     @Override
-    public String write() {
-        return "T" + this.name + ";";
+    public void write(Appendable out) throws IOException {
+        out.append('T').append(this.name).append(';');
+    }
+
+    @Override
+    public TypeVarRef freeze() {
+        if (this.frozen) {
+            return this;
+        }
+
+        TypeVarRef ref = new TypeVarRef(this.name);
+        ref.seal();
+        return TypeInterner.intern(ref);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    @Override
+    public TypeKind kind() {
+        return TypeKind.VAR_REF;
+    }
+
+    @Override
+    public <R> R accept(TypeVisitor<R> visitor) {
+        return visitor.visitVarRef(this);
+    }
+
+    void seal() {
+        this.frozen = true;
+        this.hash = this.computeHash();
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Frozen signature parts may not be modified");
+        }
+    }
+
+    private int computeHash() {
+        return Objects.hash(name);
     }
 
     @Override
@@ -67,16 +112,18 @@ public class TypeVarRef implements TypeSignaturePart, TypeInformal {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TypeVarRef ref = (TypeVarRef) o;
+        if (this.frozen && ref.frozen && this.hash != ref.hash) return false;
         return Objects.equals(name, ref.name);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        return this.frozen ? this.hash : this.computeHash();
     }
 
     @Override
     public TypeVarRef map(Function<Type, Type> mapper) {
-        return new TypeVarRef(this.name);
+        //A type variable reference holds no types, so it is never changed
+        return this;
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.gmail.socraticphoenix.asmsig.type;
+
+/**
+ * A visitor over the kinds of {@link TypeSignaturePart}. Passing a visitor to
+ * {@link TypeSignaturePart#accept(TypeVisitor)} calls exactly the method for the kind of that part (see
+ * {@link TypeKind}), so an inner type is only passed to {@link TypeVisitor#visitInner(TypeInner)}, and never to
+ * {@link TypeVisitor#visitFill(TypeFill)}. A visitor does not descend into the children of a part by itself; it is up to
+ * each method to visit the children it is interested in.
+ *
+ * @param <R> The type of the result of visiting a part.
+ */
+public interface TypeVisitor<R> {
+
+    /**
+     * Visits a filled type which is not an inner type.
+     *
+     * @param fill The filled type.
+     * @return The result.
+     */
+    R visitFill(TypeFill fill);
+
+    /**
+     * Visits an inner type.
+     *
+     * @param inner The inner type.
+     * @return The result.
+     */
+    R visitInner(TypeInner inner);
+
+    /**
+     * Visits an array type.
+     *
+     * @param array The array type.
+     * @return The result.
+     */
+    R visitArray(TypeArray array);
+
+    /**
+     * Visits a wildcard type.
+     *
+     * @param wild The wildcard type.
+     * @return The result.
+     */
+    R visitWild(TypeWild wild);
+
+    /**
+     * Visits a reference to a formal type variable.
+     *
+     * @param ref The reference.
+     * @return The result.
+     */
+    R visitVarRef(TypeVarRef ref);
+
+    /**
+     * Visits a formal type variable.
+     *
+     * @param var The formal type variable.
+     * @return The result.
+     */
+    R visitVar(TypeVar var);
+
+    /**
+     * Visits a parameterized type.
+     *
+     * @param parameterized The parameterized type.
+     * @return The result.
+     */
+    R visitParameterized(TypeParameterized parameterized);
+
+}
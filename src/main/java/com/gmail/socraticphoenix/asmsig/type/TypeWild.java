@@ -23,7 +23,7 @@ package com.gmail.socraticphoenix.asmsig.type;
 
 import org.objectweb.asm.Type;
 
-import java.util.Objects;
+import java.io.IOException;
 import java.util.function.Function;
 
 /**
@@ -33,6 +33,8 @@ import java.util.function.Function;
 public class TypeWild implements TypeSignaturePart, TypeInformal {
     private TypeInformal upper;
     private TypeInformal lower;
+    private boolean frozen;
+    private int hash;
 
     /**
      * Creates a new wild type with the given upper bound and lower bound.
@@ -58,6 +60,7 @@ public class TypeWild implements TypeSignaturePart, TypeInformal {
      * @param upper The new upper bound.
      */
     public void setUpper(TypeInformal upper) {
+        this.checkMutable();
         this.upper = upper;
     }
 
@@ -74,37 +77,62 @@ public class TypeWild implements TypeSignaturePart, TypeInformal {
      * @param lower The new lower bound.
      */
     public void setLower(TypeInformal lower) {
+        this.checkMutable();
         this.lower = lower;
     }
 
     @Override
-    public String write() {
-        if(upper != null) {
-            return "+" + this.upper.write();
-        } else if (this.lower != null) {
-            return "-" + this.lower.write();
-        } else {
-            return "*";
+    public void write(Appendable out) throws IOException {
+        TypeTraversal.write(this, out);
+    }
+
+    @Override
+    public TypeWild freeze() {
+        return this.frozen ? this : (TypeWild) TypeTraversal.freeze(this);
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    @Override
+    public TypeKind kind() {
+        return TypeKind.WILD;
+    }
+
+    @Override
+    public <R> R accept(TypeVisitor<R> visitor) {
+        return visitor.visitWild(this);
+    }
+
+    void seal() {
+        this.frozen = true;
+        this.hash = this.computeHash();
+    }
+
+    private void checkMutable() {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("Frozen signature parts may not be modified");
         }
     }
 
+    private int computeHash() {
+        return TypeTraversal.hash(this);
+    }
+
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        TypeWild typeWild = (TypeWild) o;
-        return Objects.equals(upper, typeWild.upper) &&
-                Objects.equals(lower, typeWild.lower);
+        return TypeTraversal.equals(this, o);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(upper, lower);
+        return this.frozen ? this.hash : this.computeHash();
     }
 
     @Override
     public TypeWild map(Function<Type, Type> mapper) {
-        return new TypeWild(this.upper != null ? this.upper.map(mapper) : null,
-                this.lower != null ? this.lower.map(mapper) : null);
+        return (TypeWild) TypeTraversal.map(this, mapper);
     }
 }
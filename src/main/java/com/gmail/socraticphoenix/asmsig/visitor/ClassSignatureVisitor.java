@@ -21,15 +21,16 @@
  */
 package com.gmail.socraticphoenix.asmsig.visitor;
 
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
 import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
 import com.gmail.socraticphoenix.asmsig.type.TypeFill;
 import com.gmail.socraticphoenix.asmsig.type.TypeParameterized;
 import com.gmail.socraticphoenix.asmsig.type.TypeVar;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
 import org.objectweb.asm.signature.SignatureVisitor;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -46,13 +47,14 @@ public class ClassSignatureVisitor extends SignatureVisitor implements Opcodes {
      */
     public ClassSignatureVisitor() {
         super(ASM5);
-        this.signature = new ClassSignature(new TypeParameterized(Type.getType(Object.class)), new TypeFill(Type.getType(Object.class)));
+        this.signature = new ClassSignature(new TypeParameterized(SymbolTable.OBJECT), new TypeFill(SymbolTable.OBJECT));
         this.visitors = new ArrayList<>();
     }
 
     @Override
     public void visitFormalTypeParameter(String name) {
-        this.previous = new TypeVar(name);
+        //The class bound is absent unless it is visited, as in T::Ljava/lang/Comparable<TT;>;
+        this.previous = new TypeVar(SymbolTable.shared().name(name), null, Collections.emptyList());
         this.signature.getType().addParameter(this.previous);
     }
 
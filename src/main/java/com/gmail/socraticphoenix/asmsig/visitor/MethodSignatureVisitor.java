@@ -21,6 +21,7 @@
  */
 package com.gmail.socraticphoenix.asmsig.visitor;
 
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
 import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
 import com.gmail.socraticphoenix.asmsig.type.TypeFill;
 import com.gmail.socraticphoenix.asmsig.type.TypeVar;
@@ -29,6 +30,7 @@ import org.objectweb.asm.Type;
 import org.objectweb.asm.signature.SignatureVisitor;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -45,13 +47,14 @@ public class MethodSignatureVisitor extends SignatureVisitor implements Opcodes
      */
     public MethodSignatureVisitor() {
         super(ASM5);
-        this.signature = new MethodSignature(new TypeFill(Type.getType(void.class)));
+        this.signature = new MethodSignature(new TypeFill(Type.VOID_TYPE));
         this.visitors = new ArrayList<>();
     }
 
     @Override
     public void visitFormalTypeParameter(String name) {
-        this.previous = new TypeVar(name);
+        //The class bound is absent unless it is visited, as in T::Ljava/lang/Comparable<TT;>;
+        this.previous = new TypeVar(SymbolTable.shared().name(name), null, Collections.emptyList());
         this.signature.addGeneric(this.previous);
     }
 
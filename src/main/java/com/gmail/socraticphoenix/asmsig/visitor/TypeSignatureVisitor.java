@@ -21,13 +21,13 @@
  */
 package com.gmail.socraticphoenix.asmsig.visitor;
 
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
 import com.gmail.socraticphoenix.asmsig.type.TypeArray;
 import com.gmail.socraticphoenix.asmsig.type.TypeFill;
 import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
 import com.gmail.socraticphoenix.asmsig.type.TypeVarRef;
 import com.gmail.socraticphoenix.asmsig.type.TypeWild;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
 import org.objectweb.asm.signature.SignatureVisitor;
 
 import java.util.ArrayList;
@@ -51,7 +51,7 @@ public class TypeSignatureVisitor extends SignatureVisitor implements Opcodes {
     public TypeSignatureVisitor(Consumer<TypeInformal> end) {
         super(ASM5);
         this.end = end;
-        this.type = new TypeFill(Type.getType(Object.class));
+        this.type = new TypeFill(SymbolTable.OBJECT);
         this.visitors = new ArrayList<>();
     }
 
@@ -64,28 +64,28 @@ public class TypeSignatureVisitor extends SignatureVisitor implements Opcodes {
 
     @Override
     public void visitBaseType(char descriptor) {
-        this.type = new TypeFill(Type.getType(String.valueOf(descriptor)));
+        this.type = new TypeFill(SymbolTable.primitive(descriptor));
     }
 
     @Override
     public void visitTypeVariable(String name) {
-        this.type = new TypeVarRef(name);
+        this.type = new TypeVarRef(SymbolTable.shared().name(name));
     }
 
     @Override
     public SignatureVisitor visitArrayType() {
-        this.type = new TypeArray(new TypeFill(Type.getType(Object.class)));
+        this.type = new TypeArray(new TypeFill(SymbolTable.OBJECT));
         return logAndReturn(new TypeSignatureVisitor(f -> ((TypeArray) this.type).setType(f)));
     }
 
     @Override
     public void visitClassType(String name) {
-        this.type = new TypeFill(Type.getObjectType(name));
+        this.type = new TypeFill(SymbolTable.shared().objectType(name));
     }
 
     @Override
     public void visitInnerClassType(String name) {
-        this.type = ((TypeFill) this.type).asInner(Type.getObjectType(name));
+        this.type = ((TypeFill) this.type).asInner(SymbolTable.shared().objectType(name));
     }
 
     @Override
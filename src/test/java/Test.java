@@ -21,12 +21,27 @@
  */
 
 import com.gmail.socraticphoenix.asmsig.Signatures;
+import com.gmail.socraticphoenix.asmsig.io.BinarySignatureReader;
+import com.gmail.socraticphoenix.asmsig.io.BinarySignatureWriter;
+import com.gmail.socraticphoenix.asmsig.parser.SignatureValidator;
+import com.gmail.socraticphoenix.asmsig.remap.SignatureRemapper;
+import com.gmail.socraticphoenix.asmsig.signature.ClassSignature;
 import com.gmail.socraticphoenix.asmsig.signature.MethodSignature;
+import com.gmail.socraticphoenix.asmsig.visitor.ClassSignatureVisitor;
+import com.gmail.socraticphoenix.asmsig.visitor.MethodSignatureVisitor;
+import com.gmail.socraticphoenix.asmsig.visitor.TypeSignatureVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.Remapper;
+import org.objectweb.asm.signature.SignatureReader;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 public class Test<VAR extends Throwable> {
 
@@ -36,10 +51,293 @@ public class Test<VAR extends Throwable> {
 
     List<?> list;
 
-    public static void main(String[] args) {
+    private static final String[] CLASSES = {
+            "<T:Ljava/lang/Object;>Ljava/lang/Object;",
+            "<T::Ljava/lang/Comparable<TT;>;>Ljava/lang/Object;Ljava/lang/Comparable<TT;>;",
+            "<V::Ljava/lang/Runnable;:Ljava/io/Serializable;>Ljava/util/AbstractMap<Ljava/lang/String;TV;>;",
+            "<E:Ljava/lang/Enum<TE;>;>Ljava/lang/Object;Ljava/lang/Comparable<TE;>;",
+            "Lcom/example/Outer.Inner<[I>;",
+            "<T:Ljava/lang/Object;>Lcom/example/Outer.Middle.Inner<*>;Ljava/util/List<-[[TT;>;"
+    };
+
+    //The signature visitors only finish nested types once the whole signature has been visited, so they add every bound
+    //to the last formal type parameter, and every type argument to the innermost class type
+    private static final String[] PARSED_CLASSES = {
+            "Lcom/example/Outer<Ljava/lang/String;>.Inner<[I>;",
+            "<T:Ljava/lang/Object;>Lcom/example/Outer<TT;>.Middle.Inner<*>;Ljava/util/List<-[[TT;>;",
+            "<K::Ljava/lang/Comparable<TK;>;V:Ljava/lang/Object;>Ljava/util/AbstractMap<TK;TV;>;",
+            "<K:Ljava/lang/Object;V::Ljava/lang/Runnable;:Ljava/io/Serializable;>Ljava/util/Map<TK;TV;>;"
+    };
+
+    private static final String[] PARSED_METHODS = {
+            "<LV:Ljava/lang/Object;P:Ljava/lang/Number;>(TP;ITVAR;Ljava/util/Collection<+TVAR;>;Ljava/util/Map<Ljava/lang/String;TVAR;>;)Ljava/util/List<TVAR;>;^TVAR;^Ljava/io/IOException;",
+            "(Lcom/example/Outer<TT;>.Inner<Ljava/lang/Integer;>;)V"
+    };
+
+    private static final String[] METHODS = {
+            "<P:Ljava/lang/Number;>(TP;ITVAR;Ljava/util/Collection<+TVAR;>;)Ljava/util/List<TVAR;>;^TVAR;^Ljava/io/IOException;",
+            "()V",
+            "([[J[Ljava/lang/String;ZBCSFD)[Ljava/util/List<*>;",
+            "<T::Ljava/lang/Comparable<-TT;>;>(Ljava/util/List<+TT;>;)TT;",
+            "(Lcom/example/Outer.Inner<Ljava/lang/Integer;>;)Lcom/example/Outer$Nested;^Ljava/lang/Exception;"
+    };
+
+    private static final String[] TYPES = {
+            "Ljava/lang/String;",
+            "Ljava/util/Map<Ljava/lang/String;Ljava/util/List<[Ljava/lang/Object;>;>;",
+            "Ljava/util/Map$Entry<TK;TV;>;",
+            "Lcom/example/Outer.Inner<*>.Deepest;"
+    };
+
+    public static void main(String[] args) throws IOException {
         MethodSignature signature = Signatures.parseMethod("<LV:Ljava/lang/Object;P:Ljava/lang/Number;>(TP;ITVAR;Ljava/util/Collection<+TVAR;>;Ljava/util/Map<Ljava/lang/String;TVAR;>;)Ljava/util/List<TVAR;>;^TVAR;^Ljava/io/IOException;");
         System.out.println("<LV:Ljava/lang/Object;P:Ljava/lang/Number;>(TP;ITVAR;Ljava/util/Collection<+TVAR;>;Ljava/util/Map<Ljava/lang/String;TVAR;>;)Ljava/util/List<TVAR;>;^TVAR;^Ljava/io/IOException;");
         System.out.println(signature.write());
+
+        //Parsing and writing a signature must give back the input, and the same output as the ASM visitors
+        for (String sig : CLASSES) {
+            ClassSignatureVisitor visitor = new ClassSignatureVisitor();
+            new SignatureReader(sig).accept(visitor);
+            visitor.visitEnd();
+            check(sig, Signatures.parseClass("com/example/Test", sig).write(), visitor.getSignature().write());
+        }
+
+        for (String sig : PARSED_CLASSES) {
+            check(sig, Signatures.parseClass("com/example/Test", sig).write(), sig);
+        }
+
+        for (String sig : PARSED_METHODS) {
+            check(sig, Signatures.parseMethod(sig).write(), sig);
+        }
+
+        for (String sig : METHODS) {
+            MethodSignatureVisitor visitor = new MethodSignatureVisitor();
+            new SignatureReader(sig).accept(visitor);
+            visitor.visitEnd();
+            check(sig, Signatures.parseMethod(sig).write(), visitor.getSignature().write());
+        }
+
+        for (String sig : TYPES) {
+            TypeSignatureVisitor visitor = new TypeSignatureVisitor();
+            new SignatureReader(sig).acceptType(visitor);
+            visitor.visitFinish();
+            check(sig, Signatures.parseType(sig).write(), visitor.getSignature().write());
+        }
+
+        System.out.println("Round trips passed");
+
+        binaryRoundTrips();
+        System.out.println("Binary round trips passed");
+
+        remappings();
+        System.out.println("Remappings passed");
+
+        validations();
+        System.out.println("Validations passed");
+    }
+
+    private static void validations() {
+        for (String[] sigs : new String[][] {CLASSES, PARSED_CLASSES}) {
+            for (String sig : sigs) {
+                if (!SignatureValidator.isValidClass(sig)) {
+                    throw new IllegalStateException("Rejected " + sig);
+                }
+            }
+        }
+        for (String[] sigs : new String[][] {METHODS, PARSED_METHODS}) {
+            for (String sig : sigs) {
+                if (!SignatureValidator.isValidMethod(sig)) {
+                    throw new IllegalStateException("Rejected " + sig);
+                }
+            }
+        }
+        for (String sig : TYPES) {
+            if (!SignatureValidator.isValidField(sig)) {
+                throw new IllegalStateException("Rejected " + sig);
+            }
+        }
+
+        //Each malformed signature, with the index of its first error, which strict parsing must report as well
+        Object[][] classes = {
+                {"", 0},
+                {"<>Ljava/lang/Object;", 1},
+                {"<T;>Ljava/lang/Object;", 2},
+                {"<T:Ljava/lang/Object;:>Ljava/lang/Object;", 22},
+                {"<T:Ljava/lang/Object;>", 22},
+                {"Ljava/lang/Object", 17},
+                {"Ljava/util/List<>;", 16},
+                {"Lcom/example/Outer<TT;>.;", 24},
+                {"Ljava/lang/Object;TT;", 18},
+                {"Ljava/lang/Object;Ljava/lang/Runnable;X", 38}
+        };
+        Object[][] methods = {
+                {"V", 0},
+                {"(I", 2},
+                {"(Q)V", 1},
+                {"()", 2},
+                {"()[V", 3},
+                {"()V^I", 4},
+                {"(Ljava/util/List<+>;)V", 18},
+                {"()VV", 3}
+        };
+
+        for (Object[] malformed : classes) {
+            String sig = (String) malformed[0];
+            SignatureValidator validator = new SignatureValidator(sig);
+            if (validator.validateClass()) {
+                throw new IllegalStateException("Validated " + sig);
+            }
+            checkError(validator, (Integer) malformed[1], () -> Signatures.parseClass("com/example/Test", sig, true));
+        }
+
+        for (Object[] malformed : methods) {
+            String sig = (String) malformed[0];
+            SignatureValidator validator = new SignatureValidator(sig);
+            if (validator.validateMethod()) {
+                throw new IllegalStateException("Validated " + sig);
+            }
+            checkError(validator, (Integer) malformed[1], () -> Signatures.parseMethod(sig, true));
+        }
+    }
+
+    private static void checkError(SignatureValidator validator, int index, Runnable parse) {
+        if (validator.getErrorIndex() != index) {
+            throw new IllegalStateException(validator.getMessage() + ", expected index " + index);
+        }
+
+        try {
+            parse.run();
+        } catch (IllegalArgumentException e) {
+            check(validator.getMessage(), e.getMessage(), validator.getMessage());
+            return;
+        }
+        throw new IllegalStateException("Parsed " + validator.getMessage());
+    }
+
+    private static void remappings() {
+        Map<String, String> names = new HashMap<>();
+        names.put("com/example/Outer", "a/A");
+        names.put("com/example/Outer$Inner", "a/A$B");
+        names.put("com/example/Outer$Middle", "a/C");
+        names.put("Inner", "D");
+        names.put("java/util/List", "b/L");
+        names.put("java/lang/Comparable", "b/C");
+        Function<Type, Type> mapper = type -> names.containsKey(type.getInternalName()) ? Type.getObjectType(names.get(type.getInternalName())) : type;
+        Remapper remapper = new Remapper() {
+            @Override
+            public String map(String typeName) {
+                return names.getOrDefault(typeName, typeName);
+            }
+        };
+
+        //Binary names must be remapped as ASM remaps them, simple names as the signature objects remap them
+        SignatureRemapper binary = new SignatureRemapper(mapper, true);
+        SignatureRemapper simple = new SignatureRemapper(mapper);
+        for (String[] sigs : new String[][] {CLASSES, PARSED_CLASSES}) {
+            for (String sig : sigs) {
+                check(remapper.mapSignature(sig, false), binary.remap(sig), remapper.mapSignature(sig, false));
+                String mapped = Signatures.parseClass("com/example/Test", sig).map(mapper).write();
+                check(mapped, simple.remap(sig), mapped);
+            }
+        }
+
+        for (String[] sigs : new String[][] {METHODS, PARSED_METHODS}) {
+            for (String sig : sigs) {
+                check(remapper.mapSignature(sig, false), binary.remap(sig), remapper.mapSignature(sig, false));
+                String mapped = Signatures.parseMethod(sig).map(mapper).write();
+                check(mapped, simple.remap(sig), mapped);
+            }
+        }
+
+        for (String sig : TYPES) {
+            check(remapper.mapSignature(sig, true), binary.remap(sig), remapper.mapSignature(sig, true));
+            String mapped = Signatures.parseType(sig).map(mapper).write();
+            check(mapped, simple.remap(sig), mapped);
+        }
+
+        //Unchanged signatures are returned as they are
+        String unchanged = "Ljava/util/Map<Ljava/lang/String;TV;>;";
+        if (binary.remap(unchanged) != unchanged) {
+            throw new IllegalStateException("Copied the unchanged signature " + unchanged);
+        }
+    }
+
+    private static void binaryRoundTrips() throws IOException {
+        //Every sample is written twice, so the second copy of each is written as back-references to the first
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int[] sizes = new int[2];
+        try (BinarySignatureWriter writer = new BinarySignatureWriter(bytes)) {
+            for (int i = 0; i < 2; i++) {
+                int start = bytes.size();
+                for (String sig : CLASSES) {
+                    writer.write(Signatures.parseClass("com/example/Test", sig));
+                }
+                for (String sig : PARSED_CLASSES) {
+                    writer.write(Signatures.parseClass("com/example/Test", sig));
+                }
+                for (String sig : METHODS) {
+                    writer.write(Signatures.parseMethod(sig));
+                }
+                for (String sig : PARSED_METHODS) {
+                    writer.write(Signatures.parseMethod(sig));
+                }
+                for (String sig : TYPES) {
+                    writer.write(Signatures.parseType(sig));
+                }
+                writer.flush();
+                sizes[i] = bytes.size() - start;
+            }
+        }
+
+        if (sizes[1] * 2 >= sizes[0]) {
+            throw new IllegalStateException("Repeated signatures took " + sizes[1] + " bytes, the first copies took " + sizes[0]);
+        }
+
+        try (BinarySignatureReader reader = new BinarySignatureReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (int i = 0; i < 2; i++) {
+                for (String sig : CLASSES) {
+                    ClassSignature signature = reader.readClass();
+                    check(sig, signature.write(), sig);
+                    check("com/example/Test", signature.getName().getInternalName(), "com/example/Test");
+                }
+                for (String sig : PARSED_CLASSES) {
+                    check(sig, reader.readClass().write(), sig);
+                }
+                for (String sig : METHODS) {
+                    check(sig, reader.readMethod().write(), sig);
+                }
+                for (String sig : PARSED_METHODS) {
+                    check(sig, reader.readMethod().write(), sig);
+                }
+                for (String sig : TYPES) {
+                    check(sig, reader.readType().write(), sig);
+                }
+            }
+
+            if (reader.hasNext()) {
+                throw new IllegalStateException("Read past the written signatures");
+            }
+        }
+
+        //A class bound is absent, rather than Object, if only interface bounds are given
+        ClassSignature bounded = Signatures.parseClass("com/example/Test", CLASSES[1]);
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        try (BinarySignatureWriter writer = new BinarySignatureWriter(single)) {
+            writer.write(bounded);
+        }
+        try (BinarySignatureReader reader = new BinarySignatureReader(new ByteArrayInputStream(single.toByteArray()))) {
+            if (reader.readClass().getGenerics().get(0).getClassBound() != null) {
+                throw new IllegalStateException("Read a class bound for " + CLASSES[1]);
+            }
+        }
+    }
+
+    private static void check(String expected, String parsed, String visited) {
+        if (!expected.equals(parsed)) {
+            throw new IllegalStateException("Parsed " + expected + " as " + parsed);
+        } else if (!expected.equals(visited)) {
+            throw new IllegalStateException("Visited " + expected + " as " + visited);
+        }
     }
 
 }
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 socraticphoenix@gmail.com
+ * Copyright (c) 2017 contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT
+ * NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import com.gmail.socraticphoenix.asmsig.SymbolTable;
+import com.gmail.socraticphoenix.asmsig.type.TypeArray;
+import com.gmail.socraticphoenix.asmsig.type.TypeFill;
+import com.gmail.socraticphoenix.asmsig.type.TypeInformal;
+import com.gmail.socraticphoenix.asmsig.type.TypeWild;
+import org.objectweb.asm.Type;
+
+import java.util.Collections;
+import java.util.function.Function;
+
+/**
+ * Measures how writing, hashing, comparing, mapping and freezing scale with the nesting depth of a signature part. The
+ * time per level should stay roughly constant as the depth grows, and no depth should overflow the stack.
+ */
+public class TraversalBenchmark {
+    private static final Type LIST = SymbolTable.shared().objectType("java/util/List");
+
+    public static void main(String[] args) {
+        Function<Type, Type> mapper = type -> type == LIST ? Type.getObjectType("java/util/ArrayList") : type;
+        System.out.printf("%-8s %8s %10s %10s %10s %10s %10s%n", "shape", "depth", "write", "hashCode", "equals", "map", "freeze");
+        for (String shape : new String[] {"array", "generic"}) {
+            for (int depth = 1000; depth <= 256000; depth *= 4) {
+                TypeInformal left = TraversalBenchmark.nest(shape, depth);
+                TypeInformal right = TraversalBenchmark.nest(shape, depth);
+                //Warm up, then report the best of several runs in nanoseconds per level
+                long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+                for (int run = 0; run < 10; run++) {
+                    best[0] = Math.min(best[0], TraversalBenchmark.time(() -> left.write()));
+                    best[1] = Math.min(best[1], TraversalBenchmark.time(left::hashCode));
+                    best[2] = Math.min(best[2], TraversalBenchmark.time(() -> left.equals(right)));
+                    best[3] = Math.min(best[3], TraversalBenchmark.time(() -> left.map(mapper)));
+                    best[4] = Math.min(best[4], TraversalBenchmark.time(left::freeze));
+                }
+                System.out.printf("%-8s %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n", shape, depth, (double) best[0] / depth, (double) best[1] / depth,
+                        (double) best[2] / depth, (double) best[3] / depth, (double) best[4] / depth);
+            }
+        }
+    }
+
+    private static TypeInformal nest(String shape, int depth) {
+        if (shape.equals("array")) {
+            return TypeArray.create(new TypeFill(SymbolTable.STRING), depth);
+        }
+
+        //List<? extends List<? extends ... List<String>>>
+        TypeInformal type = new TypeFill(SymbolTable.STRING);
+        for (int i = 0; i < depth; i++) {
+            type = new TypeFill(LIST, Collections.singletonList(new TypeWild(type, null)));
+        }
+        return type;
+    }
+
+    private static long time(Runnable runnable) {
+        long start = System.nanoTime();
+        runnable.run();
+        return System.nanoTime() - start;
+    }
+
+}